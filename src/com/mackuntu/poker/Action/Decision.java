@@ -0,0 +1,78 @@
+/**
+ * A player's decision packed into a long: the {@link Action} in the low bits
+ * and, for a raise, the total bet raised to in the high 32 bits. Decisions are
+ * plain values, so strategies on any thread can return them without
+ * allocating and without sharing mutable state.
+ */
+package com.mackuntu.poker.Action;
+
+public final class Decision
+{
+	/** No decision, from a player who cannot act */
+	public static final long NONE = -1L;
+	public static final long FOLD = Action.FOLD.ordinal();
+	public static final long CHECK = Action.CHECK.ordinal();
+	public static final long CALL = Action.CALL.ordinal();
+
+	private static final int AMOUNT_SHIFT = 32;
+	private static final long ACTION_MASK = 0xFF;
+	/** Action.values() copies the array on every call, so decoding reads this one */
+	private static final Action[] ACTIONS = Action.values();
+
+	private Decision()
+	{
+	}
+
+	/**
+	 * Gets the decision for an action that needs no amount.
+	 * @param action A fold, check or call
+	 * @return The decision
+	 * @throws IllegalArgumentException for a raise, which needs {@link #raiseTo}
+	 */
+	public static long of(Action action)
+	{
+		if (action == Action.RAISE) {
+			throw new IllegalArgumentException("A raise needs an amount");
+		}
+		return action.ordinal();
+	}
+
+	/**
+	 * Gets the decision to raise.
+	 * @param amount The total bet to raise to, taken as 0 if negative
+	 * @return The decision
+	 */
+	public static long raiseTo(int amount)
+	{
+		return ((long) Math.max(0, amount) << AMOUNT_SHIFT) | Action.RAISE.ordinal();
+	}
+
+	/**
+	 * Gets the action of a decision.
+	 * @param decision The decision
+	 * @return The action, or null for {@link #NONE}
+	 */
+	public static Action action(long decision)
+	{
+		return decision == NONE ? null : ACTIONS[(int) (decision & ACTION_MASK)];
+	}
+
+	/**
+	 * Gets the total bet a raise raises to.
+	 * @param decision The decision
+	 * @return The amount, or 0 for anything but a raise
+	 */
+	public static int amount(long decision)
+	{
+		return decision == NONE ? 0 : (int) (decision >>> AMOUNT_SHIFT);
+	}
+
+	public static String toString(long decision)
+	{
+		Action action = action(decision);
+		if (action == null) {
+			return "NONE";
+		}
+		return action == Action.RAISE ? "RAISE " + amount(decision) : action.toString();
+	}
+}
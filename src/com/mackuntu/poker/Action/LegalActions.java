@@ -0,0 +1,102 @@
+/**
+ * Works out which actions the betting rules allow a player, as a bitmask
+ * with one bit per {@link Action} (bit {@code ordinal()}), together with the
+ * smallest and largest amount they may raise to. The game computes this once
+ * for the acting seat; strategies pick from it and the game checks an action
+ * against it instead of redoing the arithmetic.
+ */
+package com.mackuntu.poker.Action;
+
+public final class LegalActions
+{
+	/** The mask allowing nothing, for a player who cannot act */
+	public static final int NONE = 0;
+
+	private LegalActions()
+	{
+	}
+
+	/**
+	 * Gets the bit of an action in a legal-action mask.
+	 * @param action The action
+	 * @return The action's bit
+	 */
+	public static int bit(Action action)
+	{
+		return 1 << action.ordinal();
+	}
+
+	/**
+	 * Checks whether a mask allows an action.
+	 * @param legal The legal-action mask
+	 * @param action The action
+	 * @return true if the action is allowed
+	 */
+	public static boolean contains(int legal, Action action)
+	{
+		return (legal & bit(action)) != 0;
+	}
+
+	/**
+	 * Works out the legal actions of a player who can act.
+	 * A check is allowed when the player has nothing to call, such as the big
+	 * blind in a limped pot, a call whenever there is something to call (a
+	 * stack too short for all of it calls all-in for less, see
+	 * {@link #callAmount}), and a raise needs room between {@link #minRaiseTo}
+	 * and {@link #maxRaiseTo}.
+	 * @param currentBet The bet to match on this street
+	 * @param committed What the player has put in on this street
+	 * @param money The player's remaining stack
+	 * @param minimumRaise The smallest raise over the current bet
+	 * @return The legal-action mask
+	 */
+	public static int compute(int currentBet, int committed, int money, int minimumRaise)
+	{
+		int legal = bit(Action.FOLD);
+		int toCall = currentBet - committed;
+		if (toCall <= 0) {
+			legal |= bit(Action.CHECK);
+		} else if (money > 0) {
+			legal |= bit(Action.CALL);
+		}
+		if (minRaiseTo(currentBet, minimumRaise) <= maxRaiseTo(committed, money)) {
+			legal |= bit(Action.RAISE);
+		}
+		return legal;
+	}
+
+	/**
+	 * Gets the chips a call puts in: what is owed, or the whole stack if
+	 * that is less.
+	 * @param currentBet The bet to match on this street
+	 * @param committed What the player has put in on this street
+	 * @param money The player's remaining stack
+	 * @return The chips to add
+	 */
+	public static int callAmount(int currentBet, int committed, int money)
+	{
+		return Math.max(0, Math.min(currentBet - committed, money));
+	}
+
+	/**
+	 * Gets the smallest total bet a raise can make.
+	 * @param currentBet The bet to match on this street
+	 * @param minimumRaise The smallest raise over the current bet
+	 * @return The smallest raise-to amount
+	 */
+	public static int minRaiseTo(int currentBet, int minimumRaise)
+	{
+		return currentBet + Math.max(minimumRaise, 1);
+	}
+
+	/**
+	 * Gets the largest total bet a player can raise to: everything they have.
+	 * @param committed What the player has put in on this street
+	 * @param money The player's remaining stack
+	 * @return The largest raise-to amount
+	 */
+	public static int maxRaiseTo(int committed, int money)
+	{
+		return committed + money;
+	}
+}
@@ -1,6 +1,8 @@
 /**
  * Represents a playing card in a standard poker deck.
  * Uses enums to represent ranks and suits for better type safety and readability.
+ * Cards are immutable; {@link #of(int)} and {@link #of(int, int)} return shared
+ * instances from a 52-card cache, so dealing does not need to allocate.
  */
 package com.mackuntu.poker.Card;
 
@@ -24,6 +26,15 @@ public class Card
 		private final int value;
 		private final String symbol;
 
+		/** Ranks indexed by value, so lookups avoid scanning a copy of values() */
+		private static final Rank[] BY_VALUE = new Rank[15];
+
+		static {
+			for (Rank rank : values()) {
+				BY_VALUE[rank.value] = rank;
+			}
+		}
+
 		Rank(int value, String symbol) {
 			this.value = value;
 			this.symbol = symbol;
@@ -33,10 +44,10 @@ public class Card
 		public String getSymbol() { return symbol; }
 
 		public static Rank fromValue(int value) {
-			for (Rank rank : values()) {
-				if (rank.value == value) return rank;
+			if (value < 0 || value >= BY_VALUE.length || BY_VALUE[value] == null) {
+				throw new IllegalArgumentException("Invalid rank value: " + value);
 			}
-			throw new IllegalArgumentException("Invalid rank value: " + value);
+			return BY_VALUE[value];
 		}
 	}
 
@@ -49,6 +60,9 @@ public class Card
 		private final int value;
 		private final String symbol;
 
+		/** Suits indexed by value (declared in value order) */
+		private static final Suit[] BY_VALUE = values();
+
 		Suit(int value, String symbol) {
 			this.value = value;
 			this.symbol = symbol;
@@ -58,15 +72,16 @@ public class Card
 		public String getSymbol() { return symbol; }
 
 		public static Suit fromValue(int value) {
-			for (Suit suit : values()) {
-				if (suit.value == value) return suit;
+			if (value < 0 || value >= BY_VALUE.length) {
+				throw new IllegalArgumentException("Invalid suit value: " + value);
 			}
-			throw new IllegalArgumentException("Invalid suit value: " + value);
+			return BY_VALUE[value];
 		}
 	}
 
 	private final Rank rank;
 	private final Suit suit;
+	private final int index;
 	
 	/**
 	 * Creates a new card with the specified rank and suit.
@@ -75,8 +90,7 @@ public class Card
 	 */
 	public Card(int rank, int suit)
 	{
-		this.rank = Rank.fromValue(rank);
-		this.suit = Suit.fromValue(suit);
+		this(Rank.fromValue(rank), Suit.fromValue(suit));
 	}
 
 	/**
@@ -88,6 +102,52 @@ public class Card
 	{
 		this.rank = rank;
 		this.suit = suit;
+		this.index = suit.getValue() * 13 + (rank.getValue() - 2);
+	}
+
+	/**
+	 * Gets the shared instance of a card by its index.
+	 * @param index The card index (0-51), as dealt by the Dealer
+	 * @return The cached card
+	 */
+	public static Card of(int index)
+	{
+		if (index < 0 || index >= DECK.length) {
+			throw new IllegalArgumentException("Invalid card index: " + index);
+		}
+		return DECK[index];
+	}
+
+	/**
+	 * Gets the shared instance of a card by rank and suit.
+	 * @param rank The rank value (2-14, where 14 is Ace)
+	 * @param suit The suit value (0-3)
+	 * @return The cached card
+	 */
+	public static Card of(int rank, int suit)
+	{
+		return DECK[Suit.fromValue(suit).getValue() * 13 + (Rank.fromValue(rank).getValue() - 2)];
+	}
+
+	/**
+	 * Gets the shared instance of a card by rank and suit.
+	 * @param rank The rank enum value
+	 * @param suit The suit enum value
+	 * @return The cached card
+	 */
+	public static Card of(Rank rank, Suit suit)
+	{
+		return DECK[suit.getValue() * 13 + (rank.getValue() - 2)];
+	}
+
+	/**
+	 * Gets the card's index in the deck.
+	 * Stable across runs: suit * 13 + (rank - 2), from 0 (2♠) to 51 (A♣).
+	 * @return The card index (0-51)
+	 */
+	public int getIndex()
+	{
+		return index;
 	}
 
 	/**
@@ -133,7 +193,7 @@ public class Card
 	@Override
 	public int hashCode()
 	{
-		return suit.getValue() * 13 + (rank.getValue() - 2);
+		return index;
 	}
 
 	/**
@@ -173,4 +233,16 @@ public class Card
 	// Static utility methods
 	public static final int TOTAL_RANKS = Rank.values().length;  // 13
 	public static final int TOTAL_SUITS = Suit.values().length;  // 4
+
+	/** Shared instances of all 52 cards, indexed by card index */
+	private static final Card[] DECK = new Card[TOTAL_RANKS * TOTAL_SUITS];
+
+	static {
+		for (Suit suit : Suit.values()) {
+			for (Rank rank : Rank.values()) {
+				Card card = new Card(rank, suit);
+				DECK[card.index] = card;
+			}
+		}
+	}
 }
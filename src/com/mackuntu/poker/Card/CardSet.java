@@ -0,0 +1,219 @@
+/**
+ * Represents a set of cards as a single primitive long.
+ * Each card owns one bit, at its index suit * 13 + (rank - 2), so a whole hand
+ * or board can be passed around, combined and queried without allocating.
+ * Spades occupy bits 0-12, hearts 13-25, diamonds 26-38 and clubs 39-51.
+ */
+package com.mackuntu.poker.Card;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CardSet
+{
+	/** The set containing no cards */
+	public static final long EMPTY = 0L;
+
+	/** The set containing all 52 cards */
+	public static final long FULL_DECK = (1L << 52) - 1;
+
+	private static final int SUIT_MASK = (1 << Card.TOTAL_RANKS) - 1;
+
+	/** The four cards of each rank, indexed by rank value (2-14) */
+	private static final long[] RANK_CARDS = new long[15];
+
+	static {
+		for (int rank = 2; rank <= 14; rank++) {
+			for (int suit = 0; suit < Card.TOTAL_SUITS; suit++) {
+				RANK_CARDS[rank] |= 1L << index(rank, suit);
+			}
+		}
+	}
+
+	private CardSet()
+	{
+	}
+
+	/**
+	 * Gets the index of a card (0-51), which is its bit in a card set.
+	 * @param rank The rank value (2-14)
+	 * @param suit The suit value (0-3)
+	 * @return The card index
+	 */
+	public static int index(int rank, int suit)
+	{
+		return suit * Card.TOTAL_RANKS + rank - 2;
+	}
+
+	/**
+	 * Gets the rank value of a card index.
+	 * @param index The card index (0-51)
+	 * @return The rank value (2-14)
+	 */
+	public static int rankOf(int index)
+	{
+		return index % Card.TOTAL_RANKS + 2;
+	}
+
+	/**
+	 * Gets the suit value of a card index.
+	 * @param index The card index (0-51)
+	 * @return The suit value (0-3)
+	 */
+	public static int suitOf(int index)
+	{
+		return index / Card.TOTAL_RANKS;
+	}
+
+	/**
+	 * Creates a set holding a single card.
+	 * @param card The card
+	 * @return The card set
+	 */
+	public static long of(Card card)
+	{
+		return 1L << card.getIndex();
+	}
+
+	/**
+	 * Creates a set holding every card of a list. Duplicates collapse.
+	 * @param cards The cards
+	 * @return The card set
+	 */
+	public static long of(List<Card> cards)
+	{
+		long set = EMPTY;
+		for (int i = 0; i < cards.size(); i++) {
+			set |= 1L << cards.get(i).getIndex();
+		}
+		return set;
+	}
+
+	public static long add(long set, Card card)
+	{
+		return set | of(card);
+	}
+
+	public static long add(long set, int index)
+	{
+		return set | (1L << index);
+	}
+
+	public static long remove(long set, Card card)
+	{
+		return set & ~of(card);
+	}
+
+	public static long union(long a, long b)
+	{
+		return a | b;
+	}
+
+	/**
+	 * Removes every card of one set from another.
+	 * @return The cards of a that are not in b
+	 */
+	public static long difference(long a, long b)
+	{
+		return a & ~b;
+	}
+
+	public static boolean contains(long set, Card card)
+	{
+		return (set & of(card)) != 0;
+	}
+
+	public static boolean contains(long set, int index)
+	{
+		return (set & (1L << index)) != 0;
+	}
+
+	/**
+	 * Checks whether two sets share any card.
+	 * @return true if at least one card is in both sets
+	 */
+	public static boolean intersects(long a, long b)
+	{
+		return (a & b) != 0;
+	}
+
+	public static int count(long set)
+	{
+		return Long.bitCount(set);
+	}
+
+	public static boolean isEmpty(long set)
+	{
+		return set == EMPTY;
+	}
+
+	/**
+	 * Gets the ranks held in one suit as a 13-bit mask (bit 0 is the deuce).
+	 * @param set The card set
+	 * @param suit The suit value (0-3)
+	 * @return The rank mask of that suit
+	 */
+	public static int suitMask(long set, int suit)
+	{
+		return (int) (set >>> (suit * Card.TOTAL_RANKS)) & SUIT_MASK;
+	}
+
+	/**
+	 * Gets the four cards of a rank as a card set.
+	 * @param rank The rank value (2-14)
+	 * @return The cards of that rank
+	 */
+	public static long rankMask(int rank)
+	{
+		return RANK_CARDS[rank];
+	}
+
+	/**
+	 * Counts the cards of a rank in a set.
+	 * @param set The card set
+	 * @param rank The rank value (2-14)
+	 * @return The number of cards of that rank (0-4)
+	 */
+	public static int rankCount(long set, int rank)
+	{
+		return Long.bitCount(set & RANK_CARDS[rank]);
+	}
+
+	/**
+	 * Gets the lowest card index in a set.
+	 * @return The card index, or 64 if the set is empty
+	 */
+	public static int firstCard(long set)
+	{
+		return Long.numberOfTrailingZeros(set);
+	}
+
+	/**
+	 * Gets the highest card index in a set.
+	 * @return The card index, or -1 if the set is empty
+	 */
+	public static int lastCard(long set)
+	{
+		return 63 - Long.numberOfLeadingZeros(set);
+	}
+
+	/**
+	 * Lists the cards of a set in index order.
+	 * @param set The card set
+	 * @return A new list of the shared card instances
+	 */
+	public static List<Card> toList(long set)
+	{
+		List<Card> cards = new ArrayList<>(count(set));
+		for (long rest = set; rest != 0; rest &= rest - 1) {
+			int index = firstCard(rest);
+			cards.add(Card.of(index));
+		}
+		return cards;
+	}
+
+	public static String toString(long set)
+	{
+		return toList(set).toString();
+	}
+}
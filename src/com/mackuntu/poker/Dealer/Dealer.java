@@ -1,16 +1,24 @@
 /**
  * Represents the dealer in a poker game.
  * Manages the deck of cards and handles card distribution.
+ * The deck is a fixed int array: dealt cards are swapped behind the
+ * remaining ones, so dealing does not allocate and the deck can be reused
+ * for the next hand by {@link #reset()}.
  */
 package com.mackuntu.poker.Dealer;
 
-import java.util.ArrayList;
 import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public class Dealer {
-	/** The deck of cards represented as indices (0-51) */
-	private final ArrayList<Integer> dealer;
-	private final Random random;
+	/** Seed used in test mode, so every test hand deals the same cards */
+	private static final long TEST_SEED = 42;
+
+	/** The deck of cards represented as indices (0-51); the first {@code size} are undealt */
+	private final int[] deck;
+	private RandomGenerator random;
+	private final boolean testMode;
+	private int size;
 
 	/**
 	 * Creates a new dealer with a fresh deck of 52 cards.
@@ -25,12 +33,24 @@ public class Dealer {
 	 * @param testMode If true, uses a fixed seed for random number generation
 	 */
 	public Dealer(boolean testMode) {
-		this.dealer = new ArrayList<>(52);
-		this.random = testMode ? new Random(42) : new Random();
-		
-		for(int i = 0; i < 52; i++) {
-			dealer.add(i);
-		}
+		this(testMode ? new Random(TEST_SEED) : RandomStreams.create(), testMode);
+	}
+
+	/**
+	 * Creates a new dealer with a fresh deck of 52 cards, dealing with the given generator.
+	 * A seeded generator makes the whole sequence of hands repeatable.
+	 * @param random The generator used to pick cards
+	 * @see RandomStreams
+	 */
+	public Dealer(RandomGenerator random) {
+		this(random, false);
+	}
+
+	private Dealer(RandomGenerator random, boolean testMode) {
+		this.deck = new int[52];
+		this.random = random;
+		this.testMode = testMode;
+		fill();
 		
 		if (testMode) {
 			shuffle(); // Initial shuffle with fixed seed
@@ -39,19 +59,41 @@ public class Dealer {
 	
 	/**
 	 * Deals a single card from the deck.
-	 * Randomly selects a card from the remaining cards.
+	 * Randomly selects a card from the remaining cards and swaps it behind them.
 	 * @return The index of the dealt card (0-51)
 	 */
 	public int getCard() {
-		if (dealer.isEmpty()) {
+		if (size == 0) {
 			throw new IllegalStateException("No cards left in deck");
 		}
-		int card = random.nextInt(dealer.size());
-		int cardValue = dealer.remove(card);
-		if (cardValue < 0 || cardValue > 51) {
-			throw new IllegalStateException("Invalid card value: " + cardValue);
+		int pick = random.nextInt(size);
+		int card = deck[pick];
+		deck[pick] = deck[--size];
+		deck[size] = card;
+		return card;
+	}
+
+	/**
+	 * Returns every dealt card to the deck for a new hand.
+	 * The array always holds a permutation of the full deck, so this only has
+	 * to reset the count. In test mode the seed and starting order are restored
+	 * as well, so each hand deals exactly what a new test dealer would.
+	 */
+	public void reset() {
+		if (testMode) {
+			random = new Random(TEST_SEED);
+			fill();
+			shuffle();
+		} else {
+			size = deck.length;
+		}
+	}
+
+	private void fill() {
+		for (int i = 0; i < deck.length; i++) {
+			deck[i] = i;
 		}
-		return cardValue;
+		size = deck.length;
 	}
 
 	/**
@@ -59,7 +101,7 @@ public class Dealer {
 	 * @return The current size of the deck
 	 */
 	public int getSize() {
-		return dealer.size();
+		return size;
 	}
 
 	/**
@@ -67,12 +109,12 @@ public class Dealer {
 	 * Uses the Fisher-Yates shuffle algorithm.
 	 */
 	public void shuffle() {
-		for (int i = dealer.size() - 1; i > 0; i--) {
+		for (int i = size - 1; i > 0; i--) {
 			int j = random.nextInt(i + 1);
 			// Swap elements
-			int temp = dealer.get(i);
-			dealer.set(i, dealer.get(j));
-			dealer.set(j, temp);
+			int temp = deck[i];
+			deck[i] = deck[j];
+			deck[j] = temp;
 		}
 	}
 }
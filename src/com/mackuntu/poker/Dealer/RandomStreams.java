@@ -0,0 +1,100 @@
+/**
+ * Creates the random number generators used for dealing and by strategies.
+ * Generators are {@link SplittableRandom}s, which keep their state unshared,
+ * so each table and seat can own one without contention between threads.
+ * Seeds for tables and seats are derived from a single master seed with the
+ * SplitMix64 mixing function, so a run is reproducible from that one number
+ * whatever the number of threads or the order tables are played in.
+ */
+package com.mackuntu.poker.Dealer;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+public final class RandomStreams {
+	/** Odd constant (2^64 / golden ratio) that spaces successive stream seeds apart */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	/** Separates seat seeds from table seeds derived from the same value */
+	private static final long SEAT_SALT = 0x5EA7L;
+	/** Separates numbered streams from table seeds derived from the same seed */
+	private static final long STREAM_SALT = 0x57EAL;
+
+	private RandomStreams() {
+	}
+
+	/**
+	 * Creates an unseeded generator, for play that does not need to be repeatable.
+	 * @return A new generator
+	 */
+	public static RandomGenerator create() {
+		return new SplittableRandom();
+	}
+
+	/**
+	 * Creates a generator that always produces the same sequence for a seed.
+	 * @param seed The seed
+	 * @return A new generator
+	 */
+	public static RandomGenerator create(long seed) {
+		return new SplittableRandom(seed);
+	}
+
+	/**
+	 * Derives the seed of one table from the master seed of a run.
+	 * @param masterSeed The seed of the whole run
+	 * @param table The table number (0 upwards)
+	 * @return The table's seed
+	 */
+	public static long tableSeed(long masterSeed, int table) {
+		return mix(masterSeed + GOLDEN_GAMMA * (table + 1L));
+	}
+
+	/**
+	 * Derives the seed of one seat at a table from the table's seed.
+	 * @param tableSeed A seed returned by {@link #tableSeed(long, int)}
+	 * @param seat The seat index
+	 * @return The seat's seed
+	 */
+	public static long seatSeed(long tableSeed, int seat) {
+		return mix(mix(tableSeed ^ SEAT_SALT) + GOLDEN_GAMMA * (seat + 1L));
+	}
+
+	/**
+	 * Creates the generator a table deals with.
+	 * @param masterSeed The seed of the whole run
+	 * @param table The table number
+	 * @return A new generator
+	 */
+	public static RandomGenerator forTable(long masterSeed, int table) {
+		return create(tableSeed(masterSeed, table));
+	}
+
+	/**
+	 * Creates the generator of the strategy sitting in one seat of a table.
+	 * @param masterSeed The seed of the whole run
+	 * @param table The table number
+	 * @param seat The seat index
+	 * @return A new generator
+	 */
+	public static RandomGenerator forSeat(long masterSeed, int table, int seat) {
+		return create(seatSeed(tableSeed(masterSeed, table), seat));
+	}
+
+	/**
+	 * Creates the generator of one of many numbered streams derived from a seed,
+	 * such as the chunks of work a parallel calculation splits into.
+	 * @param seed The seed of the whole calculation
+	 * @param stream The stream number (0 upwards)
+	 * @return A new generator
+	 */
+	public static RandomGenerator forStream(long seed, long stream) {
+		return create(mix(mix(seed ^ STREAM_SALT) + GOLDEN_GAMMA * (stream + 1)));
+	}
+
+	/** The SplitMix64 finalizer: a bijection that spreads every input bit over the output */
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
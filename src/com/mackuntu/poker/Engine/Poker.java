@@ -7,11 +7,13 @@ import processing.core.PImage;
 import com.mackuntu.poker.Card.Card;
 import com.mackuntu.poker.Player.Player;
 import com.mackuntu.poker.Player.RandomPlayerStrategy;
+import com.mackuntu.poker.game.ConsoleGameListener;
 import com.mackuntu.poker.game.GameState;
 import com.mackuntu.poker.game.PokerGame;
 import com.mackuntu.poker.ui.PokerUI;
 
 public class Poker extends PApplet {
+	private static final long serialVersionUID = 1L;
 	private static final int NUM_PLAYERS = 12;
 	private static final int WINDOW_WIDTH = 1200;
 	private static final int WINDOW_HEIGHT = 800;
@@ -48,6 +50,7 @@ public class Poker extends PApplet {
 		
 		// Initialize game
 		game = new PokerGame(players, false);
+		game.setListener(new ConsoleGameListener(players));
 		ui = new PokerUI(this, deckImages, cardBack, font);
 		
 		// Start first hand
@@ -63,11 +66,11 @@ public class Poker extends PApplet {
 		
 		for (int suite = 0; suite < 4; suite++) {
 			for (int rank = 2; rank < 15; rank++) {
-				Card newCard = new Card(rank, suite);
+				Card newCard = Card.of(rank, suite);
 				if (rank == 1) {
-					deckImages[newCard.hashCode()] = allCards.get(0, suite * 118, 84, 118);
+					deckImages[newCard.getIndex()] = allCards.get(0, suite * 118, 84, 118);
 				} else {
-					deckImages[newCard.hashCode()] = allCards.get((14 - rank) * 84, suite * 118, 84, 118);
+					deckImages[newCard.getIndex()] = allCards.get((14 - rank) * 84, suite * 118, 84, 118);
 				}
 			}
 		}
@@ -106,7 +109,7 @@ public class Poker extends PApplet {
 		// Draw hand analysis
 		ArrayList<String> handAnalysis = new ArrayList<>(game.getHandAnalysis());
 		ui.drawHandAnalysis(handAnalysis, game.getCurrentPlayer(), 
-						  players, game.getCardManager().getCommunityCards(), WINDOW_WIDTH, WINDOW_HEIGHT);
+						  players, game.getCardManager().getBoard(), WINDOW_WIDTH, WINDOW_HEIGHT);
 		
 		if (gameOver) {
 			// Draw game over screen
@@ -137,23 +140,12 @@ public class Poker extends PApplet {
 		// Process game actions
 		if (!game.isTestMode()) {
 			if (keyPressed && !waitingForNextKey) {
-				System.out.println("\n=== Key Pressed ===");
-				System.out.println("Current Game State: " + game.getGameState());
-				System.out.println("Active Players: " + game.getActivePlayerCount());
-				System.out.println("Players with money: " + countPlayersWithMoney());
-				System.out.println("Current Pot: $" + game.getPot());
-				
 				if (game.getGameState() == GameState.FINISH) {
-					System.out.println("Starting new hand (in FINISH state)");
 					game.startNewHand();
 				} else {
-					System.out.println("Processing next action for player " + game.getCurrentPlayer());
 					game.processNextAction();
 				}
 				waitingForNextKey = true;
-				
-				System.out.println("After action - Game State: " + game.getGameState());
-				System.out.println("==================");
 			}
 		} else {
 			// Test mode - process actions automatically
@@ -166,16 +158,8 @@ public class Poker extends PApplet {
 	}
 	
 	public void keyPressed() {
-		System.out.println("\n=== Key Pressed ===");
-		System.out.println("Current Game State: " + game.getGameState());
-		System.out.println("Active Players: " + game.getActivePlayerCount());
-		System.out.println("Players with money: " + countPlayersWithMoney());
-		System.out.println("Current Pot: $" + game.getPot());
-		
 		if (gameOver) {
-			System.out.println("Game is over - checking for restart");
 			if (key == 'r' || key == 'R') {
-				System.out.println("Restarting game");
 				restartGame();
 			}
 			return;
@@ -183,10 +167,8 @@ public class Poker extends PApplet {
 
 		if (!testMode) {
 			if (game.getGameState() == GameState.FINISH) {
-				System.out.println("Hand is finished - starting new hand");
 				game.processNextAction();  // This will start a new hand
 			} else {
-				System.out.println("Processing next action");
 				game.processNextAction();
 			}
 		}
@@ -197,16 +179,6 @@ public class Poker extends PApplet {
 		waitingForNextKey = false;  // Allow next action after key release
 	}
 	
-	private int countPlayersWithMoney() {
-		int count = 0;
-		for (Player player : players) {
-			if (player.getMoney() > 0) {
-				count++;
-			}
-		}
-		return count;
-	}
-	
 	private void restartGame() {
 		// Reset all players
 		for (Player player : players) {
@@ -215,6 +187,7 @@ public class Poker extends PApplet {
 		
 		// Create new game instance
 		game = new PokerGame(players, false);
+		game.setListener(new ConsoleGameListener(players));
 		game.startNewHand();
 		
 		// Reset game state
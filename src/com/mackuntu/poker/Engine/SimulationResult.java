@@ -0,0 +1,187 @@
+package com.mackuntu.poker.Engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Chip and showdown results of a simulation run, per seat.
+ * Seats keep their index across tables, so a seat's totals cover every
+ * table it was played at. Results of separate runs over the same seats can
+ * be merged; all totals are exact sums, so the merged result is the same
+ * whatever order the parts are merged in. All-in EV adjustments are kept in
+ * thousandths of a chip for the same reason.
+ */
+public class SimulationResult {
+	private final String[] strategies;
+	private final long[] netChips;
+	private final long[] handsDealt;
+	private final long[] showdowns;
+	private final long[] showdownsWon;
+	/** Equity minus chips won in all-in hands, in thousandths of a chip */
+	private final long[] allInAdjustment;
+	private final boolean allInEv;
+	private long hands;
+	private int tables;
+	private long elapsedNanos;
+
+	/**
+	 * Creates an empty result.
+	 * @param strategies The strategy name at each seat
+	 */
+	public SimulationResult(String[] strategies) {
+		this(strategies, false);
+	}
+
+	/**
+	 * Creates an empty result.
+	 * @param strategies The strategy name at each seat
+	 * @param allInEv Whether to report results with all-in hands credited at their equity
+	 */
+	public SimulationResult(String[] strategies, boolean allInEv) {
+		this.strategies = strategies.clone();
+		this.allInEv = allInEv;
+		this.allInAdjustment = new long[strategies.length];
+		this.netChips = new long[strategies.length];
+		this.handsDealt = new long[strategies.length];
+		this.showdowns = new long[strategies.length];
+		this.showdownsWon = new long[strategies.length];
+	}
+
+	/** Records a hand finishing at one table */
+	void addHand() {
+		hands++;
+	}
+
+	/** Records a seat being dealt into a hand */
+	void addHandDealt(int seat) {
+		handsDealt[seat]++;
+	}
+
+	/** Records a seat reaching showdown, and whether it won chips there */
+	void addShowdown(int seat, boolean won) {
+		showdowns[seat]++;
+		if (won) {
+			showdownsWon[seat]++;
+		}
+	}
+
+	/** Records the chips a seat won (or lost, when negative) over a table */
+	void addNetChips(int seat, long chips) {
+		netChips[seat] += chips;
+	}
+
+	/**
+	 * Records how far a seat's all-in equity in a hand differed from what it won.
+	 * @param chips Expected chips minus chips won
+	 */
+	void addAllInAdjustment(int seat, double chips) {
+		allInAdjustment[seat] += Math.round(chips * 1000);
+	}
+
+	/** Records a table finishing */
+	void addTable() {
+		tables++;
+	}
+
+	void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * Adds another result over the same seats into this one.
+	 * @param other The result to add
+	 * @return This result
+	 */
+	public SimulationResult merge(SimulationResult other) {
+		if (other.strategies.length != strategies.length || other.allInEv != allInEv) {
+			throw new IllegalArgumentException("Cannot merge results with different seats");
+		}
+		for (int seat = 0; seat < strategies.length; seat++) {
+			netChips[seat] += other.netChips[seat];
+			handsDealt[seat] += other.handsDealt[seat];
+			showdowns[seat] += other.showdowns[seat];
+			showdownsWon[seat] += other.showdownsWon[seat];
+			allInAdjustment[seat] += other.allInAdjustment[seat];
+		}
+		hands += other.hands;
+		tables += other.tables;
+		return this;
+	}
+
+	public int getSeatCount() { return strategies.length; }
+	public String getStrategy(int seat) { return strategies[seat]; }
+	public String getSeatName(int seat) { return "Seat " + seat + " (" + strategies[seat] + ")"; }
+	public long getNetChips(int seat) { return netChips[seat]; }
+	public long getHandsDealt(int seat) { return handsDealt[seat]; }
+	public long getShowdowns(int seat) { return showdowns[seat]; }
+	public long getShowdownsWon(int seat) { return showdownsWon[seat]; }
+	public boolean isAllInEv() { return allInEv; }
+
+	/**
+	 * Gets a seat's net chips with every all-in hand credited at its equity
+	 * instead of the board that was dealt.
+	 */
+	public double getAllInEvChips(int seat) {
+		return netChips[seat] + allInAdjustment[seat] / 1000.0;
+	}
+	public long getHands() { return hands; }
+	public int getTables() { return tables; }
+	public long getElapsedNanos() { return elapsedNanos; }
+
+	public double getHandsPerSecond() {
+		return elapsedNanos == 0 ? 0 : hands * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * Formats the results as a table, one line per seat and then one line
+	 * per strategy covering every seat that played it.
+	 * @return The report
+	 */
+	public String report() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%d hands at %d tables in %.3f s (%.0f hands/s)%n",
+			hands, tables, elapsedNanos / 1e9, getHandsPerSecond()));
+		appendHeader(sb, "seat");
+		for (int seat = 0; seat < strategies.length; seat++) {
+			appendLine(sb, getSeatName(seat), netChips[seat], handsDealt[seat], showdowns[seat],
+				showdownsWon[seat], allInAdjustment[seat]);
+		}
+
+		Map<String, long[]> byStrategy = new LinkedHashMap<>();
+		for (int seat = 0; seat < strategies.length; seat++) {
+			long[] totals = byStrategy.computeIfAbsent(strategies[seat], name -> new long[5]);
+			totals[0] += netChips[seat];
+			totals[1] += handsDealt[seat];
+			totals[2] += showdowns[seat];
+			totals[3] += showdownsWon[seat];
+			totals[4] += allInAdjustment[seat];
+		}
+		sb.append(System.lineSeparator());
+		appendHeader(sb, "strategy");
+		for (Map.Entry<String, long[]> entry : byStrategy.entrySet()) {
+			long[] totals = entry.getValue();
+			appendLine(sb, entry.getKey(), totals[0], totals[1], totals[2], totals[3], totals[4]);
+		}
+		return sb.toString();
+	}
+
+	private void appendHeader(StringBuilder sb, String name) {
+		sb.append(String.format("%-24s %12s %10s %12s %10s %8s",
+			name, "net chips", "dealt", "chips/hand", "showdowns", "won %"));
+		sb.append(allInEv ? String.format(" %12s%n", "ev/hand") : System.lineSeparator());
+	}
+
+	private void appendLine(StringBuilder sb, String name, long chips, long dealt,
+			long showdowns, long won, long adjustment) {
+		double perHand = dealt == 0 ? 0 : (double) chips / dealt;
+		double wonPercent = showdowns == 0 ? 0 : 100.0 * won / showdowns;
+		sb.append(String.format("%-24s %12d %10d %12.2f %10d %8.1f",
+			name, chips, dealt, perHand, showdowns, wonPercent));
+		if (allInEv) {
+			double evPerHand = dealt == 0 ? 0 : (chips + adjustment / 1000.0) / dealt;
+			sb.append(String.format(" %12.2f%n", evPerHand));
+		} else {
+			sb.append(System.lineSeparator());
+		}
+	}
+}
@@ -0,0 +1,493 @@
+package com.mackuntu.poker.Engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+import com.mackuntu.poker.Dealer.RandomStreams;
+import com.mackuntu.poker.Evaluator.PreflopTable;
+import com.mackuntu.poker.Player.AggressiveStrategy;
+import com.mackuntu.poker.Player.BasicPokerStrategy;
+import com.mackuntu.poker.Player.Player;
+import com.mackuntu.poker.Player.PlayerStrategy;
+import com.mackuntu.poker.Player.RandomPlayerStrategy;
+import com.mackuntu.poker.game.BatchedGames;
+import com.mackuntu.poker.game.GameEventListener;
+import com.mackuntu.poker.game.GameState;
+import com.mackuntu.poker.game.PokerGame;
+
+/**
+ * Plays games headlessly, as fast as the engine allows.
+ * Unlike {@link Poker} it does not touch Processing, so it can run on a
+ * server or in CI. Every table is dealt and played from generators derived
+ * from the configured seed (see {@link RandomStreams}), so a run is repeatable.
+ *
+ * Tables are independent, so they are spread over a fork/join pool. Each task
+ * plays a run of tables into its own result and the results are merged as the
+ * tasks join; a table's play depends only on its number and the seed, so the
+ * totals are the same for any number of threads.
+ *
+ * With all-in EV on, hands that go all-in also credit each player the
+ * share of the pot they could expect over the runouts (see
+ * {@link PokerGame#setAllInEquity(boolean)}). The chips still move by the
+ * board dealt; the report adds the EV-adjusted result, which has much less
+ * variance and so settles with far fewer hands.
+ *
+ * Batched, each task plays its tables in lockstep on one {@link BatchedGames},
+ * which keeps every table in flat arrays instead of a PokerGame per table.
+ * The chips come out the same as with PokerGame.
+ *
+ * Usage: Simulator [--seats=basic,aggressive,random,...] [--hands=N]
+ *                  [--tables=N] [--stack=N] [--seed=N] [--threads=N]
+ *                  [--allin-ev=true] [--batched=true]
+ */
+public class Simulator {
+	/** A hand that takes more actions than this is stuck, not just long */
+	private static final int MAX_ACTIONS_PER_HAND = 10_000;
+	/** Tables a task plays itself rather than splitting further */
+	private static final int TABLES_PER_TASK = 4;
+
+	private final Config config;
+	private final int tablesPerTask;
+
+	public Simulator(Config config) {
+		this.config = config;
+		// A batch plays best with many tables, so give each thread one share
+		this.tablesPerTask = config.batched
+			? Math.max(TABLES_PER_TASK, (config.tables + config.threads - 1) / config.threads)
+			: TABLES_PER_TASK;
+	}
+
+	public static void main(String[] args) {
+		Config.Builder builder = new Config.Builder();
+		List<String> seats = new ArrayList<>();
+		for (String arg : args) {
+			String[] option = arg.split("=", 2);
+			if (option.length != 2 || !option[0].startsWith("--")) {
+				throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+			}
+			switch (option[0]) {
+				case "--seats" -> seats.addAll(List.of(option[1].split(",")));
+				case "--hands" -> builder.hands(Integer.parseInt(option[1]));
+				case "--tables" -> builder.tables(Integer.parseInt(option[1]));
+				case "--stack" -> builder.startingStack(Integer.parseInt(option[1]));
+				case "--seed" -> builder.seed(Long.parseLong(option[1]));
+				case "--threads" -> builder.threads(Integer.parseInt(option[1]));
+				case "--allin-ev" -> builder.allInEv(Boolean.parseBoolean(option[1]));
+				case "--batched" -> builder.batched(Boolean.parseBoolean(option[1]));
+				default -> throw new IllegalArgumentException("Unknown option: " + option[0]);
+			}
+		}
+		if (seats.isEmpty()) {
+			seats.addAll(List.of("basic", "aggressive", "random", "basic", "aggressive", "random"));
+		}
+		for (String seat : seats) {
+			builder.seat(seat, strategy(seat));
+		}
+
+		if (PreflopTable.find() == null) {
+			System.err.println("No preflop table at " + PreflopTable.defaultPath()
+				+ ", so starting hands are judged by rank; write it with gradle preflopTable");
+		}
+		SimulationResult result = new Simulator(builder.build()).run();
+		System.out.print(result.report());
+	}
+
+	/**
+	 * Looks up a built-in strategy by name.
+	 * @param name "basic", "aggressive" or "random"
+	 * @return A factory creating the strategy from its generator
+	 */
+	public static Function<RandomGenerator, PlayerStrategy> strategy(String name) {
+		return switch (name) {
+			case "basic" -> BasicPokerStrategy::new;
+			case "aggressive" -> AggressiveStrategy::new;
+			case "random" -> RandomPlayerStrategy::new;
+			default -> throw new IllegalArgumentException("Unknown strategy: " + name);
+		};
+	}
+
+	/**
+	 * Plays every configured table, in parallel when more than one thread is configured.
+	 * @return The combined results
+	 */
+	public SimulationResult run() {
+		long start = System.nanoTime();
+		SimulationResult result;
+		if (config.threads == 1) {
+			result = playTables(0, config.tables);
+		} else {
+			ForkJoinPool pool = new ForkJoinPool(config.threads);
+			try {
+				result = pool.invoke(new TableRange(0, config.tables));
+			} finally {
+				pool.shutdown();
+			}
+		}
+		result.setElapsedNanos(System.nanoTime() - start);
+		return result;
+	}
+
+	/**
+	 * Plays a run of tables on the calling thread.
+	 * @param from The first table number
+	 * @param to One past the last table number
+	 * @return The results of those tables
+	 */
+	SimulationResult playTables(int from, int to) {
+		SimulationResult result = new SimulationResult(config.strategyNames(), config.allInEv);
+		if (config.batched) {
+			playBatch(from, to, result);
+		} else {
+			for (int table = from; table < to; table++) {
+				playTable(table, result);
+			}
+		}
+		return result;
+	}
+
+	/** Splits a run of tables in half until it is small enough to play */
+	private class TableRange extends RecursiveTask<SimulationResult> {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		TableRange(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected SimulationResult compute() {
+			if (to - from <= tablesPerTask) {
+				return playTables(from, to);
+			}
+			int middle = (from + to) >>> 1;
+			TableRange right = new TableRange(middle, to);
+			right.fork();
+			SimulationResult left = new TableRange(from, middle).compute();
+			return left.merge(right.join());
+		}
+	}
+
+	/**
+	 * Plays one table until it has played the configured number of hands,
+	 * or until only one player has chips left.
+	 * @param table The table number, which selects its random streams
+	 * @param result Where to record the table's results
+	 */
+	void playTable(int table, SimulationResult result) {
+		int seats = config.seatCount();
+		Player[] players = new Player[seats];
+		for (int seat = 0; seat < seats; seat++) {
+			RandomGenerator random = RandomStreams.forSeat(config.seed, table, seat);
+			players[seat] = new Player(config.names.get(seat), config.strategies.get(seat).apply(random));
+		}
+		PokerGame game = new PokerGame(players, RandomStreams.forTable(config.seed, table), config.startingStack);
+		if (config.allInEv) {
+			game.setAllInEquity(true);
+			game.setListener(new AllInTracker(result, seats));
+		}
+
+		int[] stacks = new int[seats];
+		for (int hand = 0; hand < config.hands && game.hasEnoughPlayersWithMoney(); hand++) {
+			for (int seat = 0; seat < seats; seat++) {
+				stacks[seat] = players[seat].getMoney();
+			}
+			if (hand == 0) {
+				game.startNewHand();
+			} else {
+				game.processNextAction();  // Moves the dealer on and deals the next hand
+			}
+			for (int seat = 0; seat < seats; seat++) {
+				if (players[seat].getCardSet() != 0) {
+					result.addHandDealt(seat);
+				}
+			}
+
+			int actions = 0;
+			while (game.getGameState() != GameState.FINISH) {
+				if (++actions > MAX_ACTIONS_PER_HAND) {
+					throw new IllegalStateException("Hand " + hand + " at table " + table
+						+ " did not finish after " + MAX_ACTIONS_PER_HAND + " actions");
+				}
+				game.processNextAction();
+			}
+			recordShowdown(players, stacks, result);
+			result.addHand();
+		}
+
+		for (int seat = 0; seat < seats; seat++) {
+			result.addNetChips(seat, players[seat].getMoney() - config.startingStack);
+		}
+		result.addTable();
+	}
+
+	/**
+	 * Plays a run of tables in lockstep, each dealt and decided from the same
+	 * random streams {@link #playTable} would use.
+	 * @param from The first table number
+	 * @param to One past the last table number
+	 * @param result Where to record the tables' results
+	 */
+	void playBatch(int from, int to, SimulationResult result) {
+		int tables = to - from;
+		int seats = config.seatCount();
+		PlayerStrategy[] strategies = new PlayerStrategy[tables * seats];
+		RandomGenerator[] dealing = new RandomGenerator[tables];
+		for (int table = 0; table < tables; table++) {
+			for (int seat = 0; seat < seats; seat++) {
+				RandomGenerator random = RandomStreams.forSeat(config.seed, from + table, seat);
+				strategies[table * seats + seat] = config.strategies.get(seat).apply(random);
+			}
+			dealing[table] = RandomStreams.forTable(config.seed, from + table);
+		}
+		BatchedGames games = new BatchedGames(seats, config.startingStack, config.hands, strategies, dealing);
+		games.setListener(new BatchTracker(games, result, config.startingStack));
+		games.run();
+
+		for (int table = 0; table < tables; table++) {
+			for (int seat = 0; seat < seats; seat++) {
+				result.addNetChips(seat, games.getStack(table, seat) - config.startingStack);
+			}
+			result.addTable();
+		}
+	}
+
+	/**
+	 * Records the hands of a batch as they are dealt and finished. Players
+	 * reach showdown when two or more dealt in have not folded.
+	 */
+	private static class BatchTracker implements BatchedGames.HandListener {
+		private final BatchedGames games;
+		private final SimulationResult result;
+		/** Each seat's stack before the current hand's blinds */
+		private final int[] stacks;
+
+		BatchTracker(BatchedGames games, SimulationResult result, int startingStack) {
+			this.games = games;
+			this.result = result;
+			this.stacks = new int[games.getTableCount() * games.getSeatCount()];
+			Arrays.fill(stacks, startingStack);
+		}
+
+		@Override
+		public void handStarted(int table) {
+			for (int rest = games.getInHandMask(table); rest != 0; rest &= rest - 1) {
+				result.addHandDealt(Integer.numberOfTrailingZeros(rest));
+			}
+		}
+
+		@Override
+		public void handFinished(int table) {
+			int seats = games.getSeatCount();
+			int inHand = games.getInHandMask(table);
+			if (Integer.bitCount(inHand) >= 2) {
+				for (int rest = inHand; rest != 0; rest &= rest - 1) {
+					int seat = Integer.numberOfTrailingZeros(rest);
+					result.addShowdown(seat, games.getStack(table, seat) > stacks[table * seats + seat]);
+				}
+			}
+			for (int seat = 0; seat < seats; seat++) {
+				stacks[table * seats + seat] = games.getStack(table, seat);
+			}
+			result.addHand();
+		}
+	}
+
+	/**
+	 * Records who reached showdown in the hand just finished: every player who
+	 * still holds cards, when more than one does. A player won at showdown if
+	 * they ended the hand with more chips than they started it with.
+	 */
+	private static void recordShowdown(Player[] players, int[] stacks, SimulationResult result) {
+		int inHand = 0;
+		for (Player player : players) {
+			if (player.getCardSet() != 0) {
+				inHand++;
+			}
+		}
+		if (inHand < 2) {
+			return;
+		}
+		for (int seat = 0; seat < players.length; seat++) {
+			if (players[seat].getCardSet() != 0) {
+				result.addShowdown(seat, players[seat].getMoney() > stacks[seat]);
+			}
+		}
+	}
+
+	/**
+	 * Credits each seat the difference between its all-in equity and what it
+	 * actually won, for every hand that was run out all-in.
+	 */
+	private static class AllInTracker implements GameEventListener {
+		private final SimulationResult result;
+		private final double[] expected;
+		private final int[] awarded;
+		private boolean allIn;
+
+		AllInTracker(SimulationResult result, int seats) {
+			this.result = result;
+			this.expected = new double[seats];
+			this.awarded = new int[seats];
+		}
+
+		@Override
+		public void handStarted(int handNumber, int dealerSeat) {
+			Arrays.fill(expected, 0);
+			Arrays.fill(awarded, 0);
+			allIn = false;
+		}
+
+		@Override
+		public void allInEquity(int seat, double expectedChips) {
+			expected[seat] = expectedChips;
+			allIn = true;
+		}
+
+		@Override
+		public void potAwarded(int seat, int amount) {
+			awarded[seat] += amount;
+		}
+
+		@Override
+		public void handFinished(int handNumber) {
+			if (allIn) {
+				for (int seat = 0; seat < expected.length; seat++) {
+					result.addAllInAdjustment(seat, expected[seat] - awarded[seat]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * What to simulate: the strategy at each seat, how many tables and hands,
+	 * the starting stack, the master seed, how many threads to play on,
+	 * whether to report all-in EV and whether to play tables batched.
+	 */
+	public static class Config {
+		private final List<String> names;
+		private final List<Function<RandomGenerator, PlayerStrategy>> strategies;
+		private final int hands;
+		private final int tables;
+		private final int startingStack;
+		private final long seed;
+		private final int threads;
+		private final boolean allInEv;
+		private final boolean batched;
+
+		private Config(Builder builder) {
+			this.names = List.copyOf(builder.names);
+			this.strategies = List.copyOf(builder.strategies);
+			this.hands = builder.hands;
+			this.tables = builder.tables;
+			this.startingStack = builder.startingStack;
+			this.seed = builder.seed;
+			this.threads = builder.threads;
+			this.allInEv = builder.allInEv;
+			this.batched = builder.batched;
+		}
+
+		public int seatCount() { return names.size(); }
+		public int getHands() { return hands; }
+		public int getTables() { return tables; }
+		public int getStartingStack() { return startingStack; }
+		public long getSeed() { return seed; }
+		public int getThreads() { return threads; }
+		public boolean isAllInEv() { return allInEv; }
+		public boolean isBatched() { return batched; }
+
+		String[] strategyNames() {
+			return names.toArray(new String[0]);
+		}
+
+		public static class Builder {
+			private final List<String> names = new ArrayList<>();
+			private final List<Function<RandomGenerator, PlayerStrategy>> strategies = new ArrayList<>();
+			private int hands = 1000;
+			private int tables = 1;
+			private int startingStack = 1000;
+			private long seed = 1;
+			private int threads = Runtime.getRuntime().availableProcessors();
+			private boolean allInEv;
+			private boolean batched;
+
+			/**
+			 * Adds a seat to the table.
+			 * @param name The name the seat is reported under
+			 * @param strategy Creates the seat's strategy from its own generator
+			 */
+			public Builder seat(String name, Function<RandomGenerator, PlayerStrategy> strategy) {
+				names.add(name);
+				strategies.add(strategy);
+				return this;
+			}
+
+			/** The most hands to play at each table; a table stops early once one player has every chip */
+			public Builder hands(int hands) {
+				if (hands < 0) {
+					throw new IllegalArgumentException("Hands cannot be negative");
+				}
+				this.hands = hands;
+				return this;
+			}
+
+			public Builder tables(int tables) {
+				if (tables < 1) {
+					throw new IllegalArgumentException("Need at least one table");
+				}
+				this.tables = tables;
+				return this;
+			}
+
+			public Builder startingStack(int startingStack) {
+				if (startingStack <= 0) {
+					throw new IllegalArgumentException("Starting stack must be positive");
+				}
+				this.startingStack = startingStack;
+				return this;
+			}
+
+			public Builder seed(long seed) {
+				this.seed = seed;
+				return this;
+			}
+
+			/** The number of threads to play tables on; 1 plays them all on the calling thread */
+			public Builder threads(int threads) {
+				if (threads < 1) {
+					throw new IllegalArgumentException("Need at least one thread");
+				}
+				this.threads = threads;
+				return this;
+			}
+
+			/** Whether to also report results with all-in hands credited at their equity */
+			public Builder allInEv(boolean allInEv) {
+				this.allInEv = allInEv;
+				return this;
+			}
+
+			/** Whether to play each thread's tables in lockstep on a {@link BatchedGames} */
+			public Builder batched(boolean batched) {
+				this.batched = batched;
+				return this;
+			}
+
+			public Config build() {
+				if (names.size() < 2) {
+					throw new IllegalStateException("Need at least two seats");
+				}
+				if (batched && allInEv) {
+					throw new IllegalStateException("All-in EV is only reported by unbatched tables");
+				}
+				return new Config(this);
+			}
+		}
+	}
+}
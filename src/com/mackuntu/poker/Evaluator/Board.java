@@ -0,0 +1,81 @@
+/**
+ * The community cards of a hand, held once for the whole table. The game
+ * deals into it, and every seat's hand is scored against it by adding the
+ * seat's hole cards to the board's {@link HandState}, so the board is never
+ * copied into the players and a street costs the same however many are in.
+ *
+ * The cards are kept both as a {@link CardSet}, for scoring and for
+ * strategies, and as the list they were dealt in, for display.
+ */
+package com.mackuntu.poker.Evaluator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.mackuntu.poker.Card.Card;
+import com.mackuntu.poker.Card.CardSet;
+
+public final class Board {
+	/** Flop, turn and river */
+	public static final int MAX_CARDS = 5;
+
+	private final HandState state = new HandState();
+	private final ArrayList<Card> cards = new ArrayList<>(MAX_CARDS);
+	private final List<Card> view = Collections.unmodifiableList(cards);
+
+	/**
+	 * Deals a card to the board.
+	 * @param card The card
+	 * @throws IllegalStateException if the board already holds five cards
+	 * @throws IllegalArgumentException if the card is already on the board
+	 */
+	public void add(Card card) {
+		if (cards.size() == MAX_CARDS) {
+			throw new IllegalStateException("The board already holds " + MAX_CARDS + " cards");
+		}
+		if (CardSet.contains(state.getCards(), card)) {
+			throw new IllegalArgumentException("Already on the board: " + card);
+		}
+		cards.add(card);
+		state.add(card);
+	}
+
+	/** Empties the board, for a new deal */
+	public void clear() {
+		cards.clear();
+		state.clear();
+	}
+
+	/** Gets the cards as a {@link CardSet} */
+	public long getCardSet() {
+		return state.getCards();
+	}
+
+	/** Gets the cards in the order they were dealt, as a read-only view */
+	public List<Card> getCards() {
+		return view;
+	}
+
+	public int size() {
+		return cards.size();
+	}
+
+	public boolean isEmpty() {
+		return cards.isEmpty();
+	}
+
+	/**
+	 * Scores a seat's hole cards on the board.
+	 * @param holeCards The hole cards as a {@link CardSet}
+	 * @return The score of the best hand, as {@link HandEvaluator#evaluate(long)} gives it
+	 */
+	public int scoreWith(long holeCards) {
+		return state.scoreWith(holeCards);
+	}
+
+	@Override
+	public String toString() {
+		return state.toString();
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * The outcome of an equity calculation: how often a hand won outright, tied
+ * for the best hand and lost over the runouts sampled or enumerated, and its
+ * equity, the share of the pot it can expect counting a tie as a split with
+ * everyone tied.
+ */
+package com.mackuntu.poker.Evaluator;
+
+public final class Equity {
+	private final long samples;
+	private final long wins;
+	private final long ties;
+	private final long losses;
+	private final double tieShare;
+	private final boolean exact;
+
+	/**
+	 * @param wins Runouts won outright
+	 * @param ties Runouts tied for the best hand
+	 * @param losses Runouts lost
+	 * @param tieShare The pot shares won on ties, e.g. 0.5 for each two-way tie
+	 * @param exact Whether every runout was counted rather than a sample
+	 */
+	Equity(long wins, long ties, long losses, double tieShare, boolean exact) {
+		this.samples = wins + ties + losses;
+		this.wins = wins;
+		this.ties = ties;
+		this.losses = losses;
+		this.tieShare = tieShare;
+		this.exact = exact;
+	}
+
+	/** Checks whether every runout was enumerated, so the figures are exact */
+	public boolean isExact() {
+		return exact;
+	}
+
+	/** Gets the number of runouts sampled or enumerated */
+	public long getSamples() {
+		return samples;
+	}
+
+	public long getWins() {
+		return wins;
+	}
+
+	public long getTies() {
+		return ties;
+	}
+
+	public long getLosses() {
+		return losses;
+	}
+
+	/** Gets the probability of winning outright */
+	public double getWin() {
+		return fraction(wins);
+	}
+
+	/** Gets the probability of tying for the best hand */
+	public double getTie() {
+		return fraction(ties);
+	}
+
+	/** Gets the probability of losing */
+	public double getLose() {
+		return fraction(losses);
+	}
+
+	/** Gets the expected share of the pot, between 0 and 1 */
+	public double getEquity() {
+		return samples == 0 ? 0 : (wins + tieShare) / samples;
+	}
+
+	private double fraction(long count) {
+		return samples == 0 ? 0 : (double) count / samples;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("win %.4f tie %.4f lose %.4f equity %.4f (%d %s)",
+			getWin(), getTie(), getLose(), getEquity(), samples, exact ? "runouts" : "samples");
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * Equity looked up from a {@link HandCache} before it is worked out. Hands
+ * are keyed by their {@link HandIndexer} class on the street, so the same
+ * hole cards and board come straight from the cache however often seats,
+ * streets and tables ask, and so do hands that only differ by suits.
+ *
+ * A missing equity comes from {@link EquityCalculator#calculate} on the
+ * class's own hand ({@link HandIndexer#unindex}), not the suits of whichever
+ * hand asked: exact when there are few runouts left, otherwise sampled with
+ * a seed taken from the key, so the cached value of a class is the same
+ * whichever thread, and whichever of its hands, asks first.
+ * One instance can be shared by every strategy on every thread.
+ */
+package com.mackuntu.poker.Evaluator;
+
+import com.mackuntu.poker.Card.CardSet;
+
+public final class EquityCache {
+	/** Bits of a key below the hand's class index: the board size and the opponents */
+	private static final int OPPONENT_BITS = 5;
+	private static final int BOARD_BITS = 3;
+	private static final int MAX_OPPONENTS = (1 << OPPONENT_BITS) - 1;
+
+	private final EquityCalculator calculator;
+	private final HandCache cache;
+	private final int samples;
+
+	/**
+	 * @param calculator Works out equities missing from the cache
+	 * @param capacity The most equities to keep
+	 * @param samples Runouts to sample when there are too many to enumerate
+	 */
+	public EquityCache(EquityCalculator calculator, int capacity, int samples) {
+		if (samples < 1) {
+			throw new IllegalArgumentException("samples must be at least 1");
+		}
+		this.calculator = calculator;
+		this.cache = new HandCache(capacity);
+		this.samples = samples;
+	}
+
+	/**
+	 * Gets the equity of hole cards against random hands.
+	 * @param holeCards The hand's two hole cards as a {@link CardSet}
+	 * @param board The board: 0, 3, 4 or 5 cards
+	 * @param opponents The number of opponents
+	 * @return The expected share of the pot
+	 * @throws IllegalArgumentException if the cards do not make a hand on a street
+	 */
+	public double getEquity(long holeCards, long board, int opponents) {
+		if (opponents < 1 || opponents > MAX_OPPONENTS) {
+			throw new IllegalArgumentException("opponents must be between 1 and " + MAX_OPPONENTS);
+		}
+		int boardCards = CardSet.count(board);
+		HandIndexer indexer = HandIndexer.forBoard(boardCards);
+		long index = indexer.index(holeCards, board);
+		long key = (((index << BOARD_BITS) | boardCards) << OPPONENT_BITS) | opponents;
+		long bits = cache.computeIfAbsent(key, k -> {
+			long[] hand = indexer.unindex(index);
+			long handBoard = hand.length > 1 ? hand[1] : CardSet.EMPTY;
+			return Double.doubleToRawLongBits(
+				calculator.calculate(hand[0], handBoard, CardSet.EMPTY, opponents, samples, k).getEquity());
+		});
+		return Double.longBitsToDouble(bits);
+	}
+
+	/** Gets the cache behind the lookups, for its hit and miss counts */
+	public HandCache getCache() {
+		return cache;
+	}
+}
@@ -0,0 +1,514 @@
+/**
+ * Estimates the equity of a hold'em hand by Monte Carlo: the unknown board
+ * cards and every opponent's hole cards are dealt at random from the cards
+ * that are not known, and the hands are scored with {@link HandEvaluator}.
+ *
+ * Sampling is cut into fixed-size chunks, each drawing from its own random
+ * stream derived from the seed (see {@link RandomStreams#forStream}). Chunks
+ * are shared out over a pool of worker threads, and since the chunks and the
+ * counts they produce do not depend on which thread ran them, a seeded
+ * estimate with a sample budget gives the same answer for any thread count.
+ * A runout does not allocate, so one thread manages millions of runouts a
+ * second and a calculation is cheap enough to make inside a strategy decision.
+ *
+ * When few cards are left to deal, as on the turn and river or heads-up on
+ * the flop, every runout can be enumerated instead for the exact equity.
+ * The possible first board cards are split over the pool, and each board is
+ * scored against every possible opponent hand just once, however many ways
+ * those hands can be shared out between the opponents.
+ * {@link #calculate} enumerates when the number of runouts is within a limit
+ * and falls back to sampling above it.
+ */
+package com.mackuntu.poker.Evaluator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+import com.mackuntu.poker.Card.CardSet;
+import com.mackuntu.poker.Dealer.RandomStreams;
+
+public final class EquityCalculator implements AutoCloseable {
+	/** Runouts sampled from one random stream */
+	static final int CHUNK_SIZE = 4096;
+	private static final int HOLE_CARDS = 2;
+	private static final int BOARD_CARDS = 5;
+	/** The most runouts {@link #calculate} enumerates by default */
+	public static final long DEFAULT_ENUMERATION_LIMIT = 2_000_000;
+	/** Outcomes of an opponent hand against the hero's */
+	private static final byte BEATEN = 0;
+	private static final byte TIED = 1;
+	private static final byte BEATS = 2;
+	/** The deadline of a calculation with a sample budget instead of a time budget */
+	private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+	private final int threads;
+	private final long enumerationLimit;
+	/** The worker pool, or null when sampling on the calling thread */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a calculator that samples on the calling thread.
+	 */
+	public EquityCalculator() {
+		this(1);
+	}
+
+	/**
+	 * Creates a calculator that samples on a pool of worker threads.
+	 * @param threads The number of threads; 1 samples on the calling thread
+	 * @throws IllegalArgumentException if threads is less than 1
+	 */
+	public EquityCalculator(int threads) {
+		this(threads, DEFAULT_ENUMERATION_LIMIT);
+	}
+
+	/**
+	 * Creates a calculator that samples on a pool of worker threads.
+	 * @param threads The number of threads; 1 samples on the calling thread
+	 * @param enumerationLimit The most runouts {@link #calculate} enumerates before sampling instead
+	 * @throws IllegalArgumentException if threads is less than 1 or the limit is negative
+	 */
+	public EquityCalculator(int threads, long enumerationLimit) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1");
+		}
+		if (enumerationLimit < 0) {
+			throw new IllegalArgumentException("enumerationLimit must not be negative");
+		}
+		this.threads = threads;
+		this.enumerationLimit = enumerationLimit;
+		this.pool = threads == 1 ? null : new ForkJoinPool(threads);
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public long getEnumerationLimit() {
+		return enumerationLimit;
+	}
+
+	/**
+	 * Works out equity exactly when there are few enough runouts to enumerate
+	 * (see {@link #getEnumerationLimit()}), and estimates it otherwise.
+	 * @param holeCards The hand's two hole cards as a {@link CardSet}
+	 * @param board The community cards dealt so far (0 to 5)
+	 * @param deadCards Cards known to be out of play, such as folded or exposed cards
+	 * @param opponents The number of opponents, whose hole cards are unknown
+	 * @param samples The number of runouts to sample if there are too many to enumerate
+	 * @param seed The seed the random streams are derived from when sampling
+	 * @return The exact equity or the estimate
+	 * @throws IllegalArgumentException if the cards overlap, or too few cards are left to deal
+	 */
+	public Equity calculate(long holeCards, long board, long deadCards, int opponents, int samples, long seed) {
+		if (countRunouts(holeCards, board, deadCards, opponents) <= enumerationLimit) {
+			return enumerate(holeCards, board, deadCards, opponents);
+		}
+		return estimate(holeCards, board, deadCards, opponents, samples, seed);
+	}
+
+	/**
+	 * Works out equity exactly by playing out every runout. The time this
+	 * takes grows with {@link #countRunouts}, which can be astronomical
+	 * early in the hand or against several opponents.
+	 * @param holeCards The hand's two hole cards as a {@link CardSet}
+	 * @param board The community cards dealt so far (0 to 5)
+	 * @param deadCards Cards known to be out of play, such as folded or exposed cards
+	 * @param opponents The number of opponents, whose hole cards are unknown
+	 * @return The exact equity
+	 * @throws IllegalArgumentException if the cards overlap, or too few cards are left to deal
+	 */
+	public Equity enumerate(long holeCards, long board, long deadCards, int opponents) {
+		Runouts runouts = new Runouts(holeCards, board, deadCards, opponents);
+		if (pool != null) {
+			return pool.invoke(new Enumeration(runouts, 0, runouts.firstCards())).toExactEquity();
+		}
+		// Without a pool of its own a task would fork into the common pool, so play it all here
+		Tally tally = new Tally(opponents);
+		runouts.enumerate(0, runouts.firstCards(), tally);
+		return tally.toExactEquity();
+	}
+
+	/**
+	 * Counts the distinct runouts of a hand: the ways to finish the board,
+	 * times the ways to deal the opponents' hole cards from what is left.
+	 * @param holeCards The hand's two hole cards as a {@link CardSet}
+	 * @param board The community cards dealt so far (0 to 5)
+	 * @param deadCards Cards known to be out of play
+	 * @param opponents The number of opponents
+	 * @return The number of runouts, or Long.MAX_VALUE if it does not fit a long
+	 * @throws IllegalArgumentException if the cards overlap, or too few cards are left to deal
+	 */
+	public static long countRunouts(long holeCards, long board, long deadCards, int opponents) {
+		Runouts runouts = new Runouts(holeCards, board, deadCards, opponents);
+		int left = runouts.unseen.length;
+		double count = 1;
+		for (int i = 0; i < runouts.toCome; i++) {
+			count = count * (left - i) / (i + 1);
+		}
+		left -= runouts.toCome;
+		// Hands dealt one opponent after another, then the order of the opponents divided out
+		for (int i = 0; i < opponents; i++) {
+			count = count * (left - 2 * i) * (left - 2 * i - 1) / 2 / (i + 1);
+		}
+		return count >= Long.MAX_VALUE ? Long.MAX_VALUE : Math.round(count);
+	}
+
+	/**
+	 * Estimates equity from a fixed number of runouts.
+	 * @param holeCards The hand's two hole cards as a {@link CardSet}
+	 * @param board The community cards dealt so far (0 to 5)
+	 * @param deadCards Cards known to be out of play, such as folded or exposed cards
+	 * @param opponents The number of opponents, whose hole cards are unknown
+	 * @param samples The number of runouts to sample
+	 * @param seed The seed the random streams are derived from
+	 * @return The estimate
+	 * @throws IllegalArgumentException if the cards overlap, or too few cards are left to deal
+	 */
+	public Equity estimate(long holeCards, long board, long deadCards, int opponents, int samples, long seed) {
+		if (samples < 1) {
+			throw new IllegalArgumentException("samples must be at least 1");
+		}
+		Runouts runouts = new Runouts(holeCards, board, deadCards, opponents);
+		return run(runouts, samples, NO_DEADLINE, seed);
+	}
+
+	/**
+	 * Estimates equity from as many runouts as fit in a time budget.
+	 * At least one chunk of runouts is always sampled.
+	 * @param holeCards The hand's two hole cards as a {@link CardSet}
+	 * @param board The community cards dealt so far (0 to 5)
+	 * @param deadCards Cards known to be out of play, such as folded or exposed cards
+	 * @param opponents The number of opponents, whose hole cards are unknown
+	 * @param budget How long to sample for
+	 * @param seed The seed the random streams are derived from
+	 * @return The estimate
+	 * @throws IllegalArgumentException if the cards overlap, or too few cards are left to deal
+	 */
+	public Equity estimate(long holeCards, long board, long deadCards, int opponents, Duration budget, long seed) {
+		if (budget.isNegative() || budget.isZero()) {
+			throw new IllegalArgumentException("budget must be positive");
+		}
+		Runouts runouts = new Runouts(holeCards, board, deadCards, opponents);
+		return run(runouts, Long.MAX_VALUE, System.nanoTime() + budget.toNanos(), seed);
+	}
+
+	private Equity run(Runouts runouts, long samples, long deadline, long seed) {
+		long chunks = samples == Long.MAX_VALUE ? Long.MAX_VALUE : (samples + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		AtomicLong nextChunk = new AtomicLong();
+		Tally total = new Tally(runouts.opponents);
+		if (pool == null) {
+			runouts.sample(nextChunk, chunks, samples, deadline, seed, total);
+			return total.toEquity();
+		}
+		List<Future<Tally>> workers = new ArrayList<>(threads);
+		for (int i = 0; i < threads; i++) {
+			workers.add(pool.submit(() -> {
+				Tally tally = new Tally(runouts.opponents);
+				runouts.sample(nextChunk, chunks, samples, deadline, seed, tally);
+				return tally;
+			}));
+		}
+		try {
+			for (Future<Tally> worker : workers) {
+				total.add(worker.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while estimating equity", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Equity estimate failed", e.getCause());
+		}
+		return total.toEquity();
+	}
+
+	/**
+	 * Stops the worker threads. Estimates already running finish first.
+	 */
+	@Override
+	public void close() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	/** The known cards of one calculation, and what is left to deal around them */
+	private static final class Runouts {
+		private final long holeCards;
+		private final long board;
+		private final int opponents;
+		/** Board cards still to come */
+		private final int toCome;
+		/** Cards needed for one runout: the rest of the board, then two per opponent */
+		private final int needed;
+		/** The cards that could still be dealt, by index */
+		private final int[] unseen;
+
+		Runouts(long holeCards, long board, long deadCards, int opponents) {
+			if (CardSet.count(holeCards) != HOLE_CARDS) {
+				throw new IllegalArgumentException("Need exactly two hole cards");
+			}
+			if (CardSet.count(board) > BOARD_CARDS) {
+				throw new IllegalArgumentException("The board has at most five cards");
+			}
+			if (CardSet.intersects(holeCards, board) || CardSet.intersects(holeCards, deadCards)
+					|| CardSet.intersects(board, deadCards)) {
+				throw new IllegalArgumentException("Hole cards, board and dead cards overlap");
+			}
+			if (opponents < 1) {
+				throw new IllegalArgumentException("Need at least one opponent");
+			}
+			this.holeCards = holeCards;
+			this.board = board;
+			this.opponents = opponents;
+			this.toCome = BOARD_CARDS - CardSet.count(board);
+			this.needed = toCome + HOLE_CARDS * opponents;
+			long remaining = CardSet.difference(CardSet.FULL_DECK, holeCards | board | deadCards);
+			if (CardSet.count(remaining) < needed) {
+				throw new IllegalArgumentException("Not enough cards left to deal " + opponents + " opponents");
+			}
+			unseen = new int[CardSet.count(remaining)];
+			for (int i = 0; i < unseen.length; i++) {
+				unseen[i] = CardSet.firstCard(remaining);
+				remaining = CardSet.difference(remaining, 1L << unseen[i]);
+			}
+		}
+
+		/**
+		 * Claims chunks until they run out or the deadline passes,
+		 * always finishing at least the first chunk claimed.
+		 */
+		void sample(AtomicLong nextChunk, long chunks, long samples, long deadline, long seed, Tally tally) {
+			int[] deck = new int[unseen.length];
+			boolean first = true;
+			long chunk;
+			while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+				if (!first && deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0) {
+					break;
+				}
+				first = false;
+				long count = Math.min(CHUNK_SIZE, samples - chunk * CHUNK_SIZE);
+				// Every chunk starts from the same order, so it draws the same whichever thread runs it
+				System.arraycopy(unseen, 0, deck, 0, unseen.length);
+				sampleChunk(deck, RandomStreams.forStream(seed, chunk), (int) count, tally);
+			}
+		}
+
+		private void sampleChunk(int[] deck, RandomGenerator random, int count, Tally tally) {
+			int size = deck.length;
+			int heroScore = toCome == 0 ? HandEvaluator.evaluate(holeCards | board) : 0;
+			for (int sample = 0; sample < count; sample++) {
+				// A partial Fisher-Yates shuffle puts a uniformly random draw in the first cards
+				for (int i = 0; i < needed; i++) {
+					int j = i + random.nextInt(size - i);
+					int card = deck[j];
+					deck[j] = deck[i];
+					deck[i] = card;
+				}
+				long runout = board;
+				for (int i = 0; i < toCome; i++) {
+					runout |= 1L << deck[i];
+				}
+				int hero = toCome == 0 ? heroScore : HandEvaluator.evaluate(holeCards | runout);
+				int tied = 0;
+				boolean lost = false;
+				for (int i = toCome; i < needed; i += HOLE_CARDS) {
+					int score = HandEvaluator.evaluate(runout | (1L << deck[i]) | (1L << deck[i + 1]));
+					if (score > hero) {
+						lost = true;
+						break;
+					}
+					if (score == hero) {
+						tied++;
+					}
+				}
+				tally.record(lost, tied);
+			}
+		}
+
+		/** Gets the number of positions the first board card can be dealt from */
+		int firstCards() {
+			return toCome == 0 ? 1 : unseen.length - toCome + 1;
+		}
+
+		/**
+		 * Plays out every runout whose first board card is dealt from one of a
+		 * range of positions in the unseen cards (the whole board when complete).
+		 */
+		void enumerate(int from, int to, Tally tally) {
+			int size = unseen.length;
+			Boards boards = new Boards(size);
+			if (toCome == 0) {
+				scoreBoard(board, boards, tally);
+				return;
+			}
+			for (int first = from; first < to; first++) {
+				boards.used[first] = true;
+				finishBoard(1, first, board | (1L << unseen[first]), boards, tally);
+				boards.used[first] = false;
+			}
+		}
+
+		private void finishBoard(int dealt, int last, long runout, Boards boards, Tally tally) {
+			if (dealt == toCome) {
+				scoreBoard(runout, boards, tally);
+				return;
+			}
+			for (int next = last + 1; next < unseen.length; next++) {
+				boards.used[next] = true;
+				finishBoard(dealt + 1, next, runout | (1L << unseen[next]), boards, tally);
+				boards.used[next] = false;
+			}
+		}
+
+		/** Scores every hand an opponent could hold on a complete board, then shares them out */
+		private void scoreBoard(long runout, Boards boards, Tally tally) {
+			int size = unseen.length;
+			int hero = HandEvaluator.evaluate(holeCards | runout);
+			for (int a = 0; a < size; a++) {
+				if (boards.used[a]) {
+					continue;
+				}
+				for (int b = a + 1; b < size; b++) {
+					if (boards.used[b]) {
+						continue;
+					}
+					int score = HandEvaluator.evaluate(runout | (1L << unseen[a]) | (1L << unseen[b]));
+					boards.outcomes[a * size + b] = score > hero ? BEATS : score == hero ? TIED : BEATEN;
+				}
+			}
+			dealOpponents(0, -1, 0, false, boards, tally);
+		}
+
+		/**
+		 * Deals the opponents every set of distinct hands, each set once:
+		 * hands are dealt in order of their lower card.
+		 */
+		private void dealOpponents(int dealt, int last, int tied, boolean lost, Boards boards, Tally tally) {
+			if (dealt == opponents) {
+				tally.record(lost, tied);
+				return;
+			}
+			int size = unseen.length;
+			boolean[] used = boards.used;
+			for (int a = last + 1; a < size; a++) {
+				if (used[a]) {
+					continue;
+				}
+				used[a] = true;
+				for (int b = a + 1; b < size; b++) {
+					if (used[b]) {
+						continue;
+					}
+					used[b] = true;
+					byte outcome = boards.outcomes[a * size + b];
+					dealOpponents(dealt + 1, a, outcome == TIED ? tied + 1 : tied,
+						lost || outcome == BEATS, boards, tally);
+					used[b] = false;
+				}
+				used[a] = false;
+			}
+		}
+	}
+
+	/** Scratch space for enumerating runouts */
+	private static final class Boards {
+		/** Unseen card positions dealt so far */
+		final boolean[] used;
+		/** Opponent hand outcomes on the current board, by pair of positions */
+		final byte[] outcomes;
+
+		Boards(int size) {
+			used = new boolean[size];
+			outcomes = new byte[size * size];
+		}
+	}
+
+	/**
+	 * Enumerates the runouts starting with a range of first board cards,
+	 * splitting the range; only run in the calculator's own pool.
+	 */
+	private static final class Enumeration extends RecursiveTask<Tally> {
+		private static final long serialVersionUID = 1L;
+
+		private final Runouts runouts;
+		private final int from;
+		private final int to;
+
+		Enumeration(Runouts runouts, int from, int to) {
+			this.runouts = runouts;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Tally compute() {
+			if (to - from <= 1) {
+				Tally tally = new Tally(runouts.opponents);
+				runouts.enumerate(from, to, tally);
+				return tally;
+			}
+			int middle = (from + to) >>> 1;
+			Enumeration right = new Enumeration(runouts, middle, to);
+			right.fork();
+			Tally left = new Enumeration(runouts, from, middle).compute();
+			left.add(right.join());
+			return left;
+		}
+	}
+
+	/** Outcome counts of the runouts one worker sampled or enumerated */
+	private static final class Tally {
+		private long wins;
+		private long losses;
+		/** Ties by the number of opponents tied with */
+		private final long[] ties;
+
+		Tally(int opponents) {
+			ties = new long[opponents + 1];
+		}
+
+		void record(boolean lost, int tied) {
+			if (lost) {
+				losses++;
+			} else if (tied == 0) {
+				wins++;
+			} else {
+				ties[tied]++;
+			}
+		}
+
+		void add(Tally other) {
+			wins += other.wins;
+			losses += other.losses;
+			for (int i = 0; i < ties.length; i++) {
+				ties[i] += other.ties[i];
+			}
+		}
+
+		Equity toEquity() {
+			return toEquity(false);
+		}
+
+		Equity toExactEquity() {
+			return toEquity(true);
+		}
+
+		private Equity toEquity(boolean exact) {
+			long tieCount = 0;
+			double tieShare = 0;
+			for (int i = 1; i < ties.length; i++) {
+				tieCount += ties[i];
+				tieShare += (double) ties[i] / (i + 1);
+			}
+			return new Equity(wins, tieCount, losses, tieShare, exact);
+		}
+	}
+}
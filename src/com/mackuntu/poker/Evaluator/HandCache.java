@@ -0,0 +1,218 @@
+/**
+ * A fixed-size cache from long keys to long values, such as a
+ * {@link HandIndexer} index to an equity, that many threads can share.
+ *
+ * Entries live in buckets of {@link #WAYS} slots chosen by the key's hash,
+ * and each bucket evicts with the CLOCK algorithm: an entry is marked when
+ * read, and the bucket's hand passes over marked entries once, clearing the
+ * mark, before evicting an unmarked one. So entries in use stay while those
+ * read once make way, at the cost of a flag instead of an LRU list. Buckets
+ * are spread over a fixed set of locks (stripes), so threads only wait for
+ * each other when their keys share a stripe, and the hit and miss counts are
+ * kept in {@link LongAdder}s that do not contend at all.
+ */
+package com.mackuntu.poker.Evaluator;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongUnaryOperator;
+
+public final class HandCache {
+	/** Slots per bucket */
+	public static final int WAYS = 8;
+	/** Locks a cache is spread over unless told otherwise */
+	public static final int DEFAULT_STRIPES = 64;
+
+	/** Slot states: unused, holding an entry, and holding an entry read since the hand passed */
+	private static final byte EMPTY = 0;
+	private static final byte COLD = 1;
+	private static final byte REFERENCED = 2;
+
+	private final long[] keys;
+	private final long[] values;
+	private final byte[] states;
+	/** The CLOCK hand of each bucket, as a way number */
+	private final byte[] hands;
+	private final int bucketMask;
+	private final Object[] stripes;
+	private final int stripeMask;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates a cache spread over {@link #DEFAULT_STRIPES} locks.
+	 * @param capacity The most entries to hold, rounded up to a power of two
+	 */
+	public HandCache(int capacity) {
+		this(capacity, DEFAULT_STRIPES);
+	}
+
+	/**
+	 * Creates a cache.
+	 * @param capacity The most entries to hold, rounded up to a power of two (at least {@link #WAYS})
+	 * @param stripes The number of locks, rounded up to a power of two; a few times
+	 *        the number of threads sharing the cache keeps them from waiting
+	 * @throws IllegalArgumentException if capacity or stripes is less than 1
+	 */
+	public HandCache(int capacity, int stripes) {
+		if (capacity < 1 || stripes < 1) {
+			throw new IllegalArgumentException("capacity and stripes must be at least 1");
+		}
+		int buckets = Math.max(1, powerOfTwo(capacity) / WAYS);
+		int stripeCount = Math.min(powerOfTwo(stripes), buckets);
+		keys = new long[buckets * WAYS];
+		values = new long[buckets * WAYS];
+		states = new byte[buckets * WAYS];
+		hands = new byte[buckets];
+		bucketMask = buckets - 1;
+		this.stripes = new Object[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			this.stripes[i] = new Object();
+		}
+		stripeMask = stripeCount - 1;
+	}
+
+	private static int powerOfTwo(int value) {
+		return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+	}
+
+	/** Gets the most entries the cache holds */
+	public int getCapacity() {
+		return keys.length;
+	}
+
+	/**
+	 * Looks a key up, counting a hit or a miss.
+	 * @param key The key
+	 * @param absent What to return when the key is not cached
+	 * @return The cached value, or absent
+	 */
+	public long get(long key, long absent) {
+		int bucket = bucket(key);
+		synchronized (stripes[bucket & stripeMask]) {
+			int slot = find(bucket, key);
+			if (slot >= 0) {
+				states[slot] = REFERENCED;
+				hits.increment();
+				return values[slot];
+			}
+		}
+		misses.increment();
+		return absent;
+	}
+
+	/**
+	 * Caches a value, replacing any value the key has, and evicting
+	 * another entry of the key's bucket if it is full.
+	 * @param key The key
+	 * @param value The value
+	 */
+	public void put(long key, long value) {
+		int bucket = bucket(key);
+		synchronized (stripes[bucket & stripeMask]) {
+			int slot = find(bucket, key);
+			if (slot < 0) {
+				slot = victim(bucket);
+				keys[slot] = key;
+				states[slot] = COLD;
+			}
+			values[slot] = value;
+		}
+	}
+
+	/**
+	 * Gets a key's value, working it out and caching it on a miss. The value
+	 * is worked out outside the cache's locks, so a slow calculation does not
+	 * hold up other threads; two threads missing the same key at once may
+	 * both work it out, so it should always give the same value for a key.
+	 * @param key The key
+	 * @param loader Works out the value of a key
+	 * @return The value
+	 */
+	public long computeIfAbsent(long key, LongUnaryOperator loader) {
+		int bucket = bucket(key);
+		synchronized (stripes[bucket & stripeMask]) {
+			int slot = find(bucket, key);
+			if (slot >= 0) {
+				states[slot] = REFERENCED;
+				hits.increment();
+				return values[slot];
+			}
+		}
+		misses.increment();
+		long value = loader.applyAsLong(key);
+		put(key, value);
+		return value;
+	}
+
+	/** Empties the cache; the counts are kept */
+	public void clear() {
+		for (int stripe = 0; stripe < stripes.length; stripe++) {
+			synchronized (stripes[stripe]) {
+				// The buckets guarded by a stripe are those with its number in their low bits
+				for (int bucket = stripe; bucket <= bucketMask; bucket += stripes.length) {
+					for (int way = 0; way < WAYS; way++) {
+						states[bucket * WAYS + way] = EMPTY;
+					}
+					hands[bucket] = 0;
+				}
+			}
+		}
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/** Gets the number of entries evicted to make room for others */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/** Gets the share of lookups that were hits, or 0 before any lookup */
+	public double getHitRate() {
+		long hitCount = hits.sum();
+		long total = hitCount + misses.sum();
+		return total == 0 ? 0 : (double) hitCount / total;
+	}
+
+	/** Picks a bucket from a mix of every bit of the key */
+	private int bucket(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		hash ^= hash >>> 29;
+		return (int) hash & bucketMask;
+	}
+
+	private int find(int bucket, long key) {
+		int base = bucket * WAYS;
+		for (int slot = base; slot < base + WAYS; slot++) {
+			if (states[slot] != EMPTY && keys[slot] == key) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/** Finds a free slot in a bucket, or evicts the entry the CLOCK hand settles on */
+	private int victim(int bucket) {
+		int base = bucket * WAYS;
+		for (int slot = base; slot < base + WAYS; slot++) {
+			if (states[slot] == EMPTY) {
+				return slot;
+			}
+		}
+		int way = hands[bucket];
+		while (states[base + way] == REFERENCED) {
+			states[base + way] = COLD;
+			way = (way + 1) % WAYS;
+		}
+		hands[bucket] = (byte) ((way + 1) % WAYS);
+		evictions.increment();
+		return base + way;
+	}
+}
@@ -1,20 +1,26 @@
 /**
  * Evaluates poker hands to determine their ranking and type.
  * Supports standard poker hand rankings from high card to royal flush.
+ * Scoring is done through precomputed lookup tables (see {@link HandRankTable}),
+ * so evaluating a hand of up to seven cards does not allocate.
+ *
+ * A hand score packs the category (bits 20-23) above five 4-bit rank slots
+ * holding the ranks that decide ties (the pair before its kickers, and so on),
+ * so comparing two scores as plain ints orders hands including kickers.
  */
 package com.mackuntu.poker.Evaluator;
 
-import java.util.*;
+import java.util.List;
 import com.mackuntu.poker.Card.Card;
+import com.mackuntu.poker.Card.CardSet;
 
-public class HandEvaluator {
-	private final List<Card> cards;
-	private HandRank handRank;
-	private List<Integer> tieBreakers;
-	private String description;
+public class HandEvaluator implements Comparable<HandEvaluator> {
+	/** The cards in the hand, carried forward as cards are added and removed */
+	private final HandState hand;
+	private int score;
 
 	// Enum to represent hand rankings in poker
-	private enum HandRank {
+	enum HandRank {
 		HIGH_CARD(0, "high card"),
 		ONE_PAIR(1, "pair"),
 		TWO_PAIR(2, "two pair"),
@@ -36,265 +42,122 @@ public class HandEvaluator {
 	}
 
 	public HandEvaluator(List<Card> cards) {
-		this.cards = new ArrayList<>(cards);
-		evaluate();
+		this(CardSet.of(cards));
+	}
+
+	/**
+	 * Creates an evaluator for a set of cards.
+	 * @param cards The cards as a {@link CardSet}
+	 */
+	public HandEvaluator(long cards) {
+		this.hand = new HandState(cards);
+		this.score = hand.getScore();
+	}
+
+	/**
+	 * Creates an evaluator for a player's hole cards combined with the board,
+	 * without copying either list.
+	 * @param holeCards The player's cards
+	 * @param communityCards The community cards
+	 */
+	public HandEvaluator(List<Card> holeCards, List<Card> communityCards) {
+		this(CardSet.union(CardSet.of(holeCards), CardSet.of(communityCards)));
 	}
 
 	public HandEvaluator() {
-		this.cards = new ArrayList<>();
+		this.hand = new HandState();
 	}
 
+	/**
+	 * Adds a card and rescores the hand, in O(1) (see {@link HandState}).
+	 * @param card The card
+	 */
 	public void addCard(Card card) {
-		cards.add(card);
-		evaluate();
+		hand.add(card);
+		score = hand.getScore();
 	}
 
 	public void removeCard(Card card) {
-		cards.remove(card);
-		evaluate();
+		hand.remove(card);
+		score = hand.getScore();
 	}
 
 	public int getRanking() {
-		return handRank != null ? handRank.value : 0;
+		return getRanking(score);
 	}
 
 	public String getString() {
-		return description;
+		return CardSet.isEmpty(hand.getCards()) ? "no cards" : describe(score);
 	}
 
-	private void evaluate() {
-		if (cards.isEmpty()) {
-			handRank = HandRank.HIGH_CARD;
-			tieBreakers = Collections.emptyList();
-			description = "no cards";
-			return;
-		}
-
-		// Sort cards by rank (high to low)
-		List<Card> sortedCards = new ArrayList<>(cards);
-		sortedCards.sort((a, b) -> Integer.compare(b.getNum(), a.getNum()));
-
-		// Group cards by suit and rank
-		Map<Integer, List<Card>> bySuit = new HashMap<>();
-		Map<Integer, List<Card>> byRank = new HashMap<>();
-		
-		for (Card card : sortedCards) {
-			bySuit.computeIfAbsent(card.getSuite(), k -> new ArrayList<>()).add(card);
-			byRank.computeIfAbsent(card.getNum(), k -> new ArrayList<>()).add(card);
-		}
-
-		// Check for flush
-		Optional<List<Card>> flush = bySuit.values().stream()
-			.filter(suited -> suited.size() >= 5)
-			.findFirst();
-
-		// Check for straight and straight flush
-		List<Card> straightCards = findStraight(sortedCards);
-		List<Card> straightFlushCards = flush.map(this::findStraightInFlush).orElse(null);
-
-		// Evaluate hand from best to worst
-		if (straightFlushCards != null) {
-			if (straightFlushCards.get(0).getNum() == 14) { // Ace high
-				handRank = HandRank.ROYAL_FLUSH;
-				tieBreakers = Collections.emptyList();
-				description = "royal flush";
-			} else {
-				handRank = HandRank.STRAIGHT_FLUSH;
-				tieBreakers = Collections.singletonList(straightFlushCards.get(0).getNum());
-				description = String.format("%s high straight flush", 
-					getCardName(straightFlushCards.get(0).getNum()));
-			}
-			return;
-		}
-
-		// Group ranks by frequency
-		Map<Integer, Integer> rankFreq = new HashMap<>();
-		for (Map.Entry<Integer, List<Card>> entry : byRank.entrySet()) {
-			rankFreq.put(entry.getKey(), entry.getValue().size());
-		}
-
-		// Find four of a kind
-		Optional<Map.Entry<Integer, Integer>> fourOfKind = rankFreq.entrySet().stream()
-			.filter(e -> e.getValue() == 4)
-			.findFirst();
-
-		if (fourOfKind.isPresent()) {
-			int quadRank = fourOfKind.get().getKey();
-			int kicker = sortedCards.stream()
-				.filter(c -> c.getNum() != quadRank)
-				.findFirst()
-				.map(Card::getNum)
-				.orElse(0);
-			handRank = HandRank.FOUR_OF_KIND;
-			tieBreakers = Arrays.asList(quadRank, kicker);
-			description = String.format("four %ss", getCardName(quadRank));
-			return;
-		}
-
-		// Find three of a kind and pairs
-		List<Integer> threeOfKinds = rankFreq.entrySet().stream()
-			.filter(e -> e.getValue() == 3)
-			.map(Map.Entry::getKey)
-			.sorted(Comparator.reverseOrder())
-			.toList();
-
-		List<Integer> pairs = rankFreq.entrySet().stream()
-			.filter(e -> e.getValue() == 2)
-			.map(Map.Entry::getKey)
-			.sorted(Comparator.reverseOrder())
-			.toList();
-
-		// Check for full house
-		if (!threeOfKinds.isEmpty() && !pairs.isEmpty()) {
-			handRank = HandRank.FULL_HOUSE;
-			tieBreakers = Arrays.asList(threeOfKinds.get(0), pairs.get(0));
-			description = String.format("full house: %ss full of %ss",
-				getCardName(threeOfKinds.get(0)), getCardName(pairs.get(0)));
-			return;
-		}
-
-		// Check for flush
-		if (flush.isPresent()) {
-			List<Card> flushCards = flush.get().subList(0, 5);
-			handRank = HandRank.FLUSH;
-			tieBreakers = flushCards.stream()
-				.map(Card::getNum)
-				.toList();
-			description = String.format("%s high flush", 
-				getCardName(flushCards.get(0).getNum()));
-			return;
-		}
-
-		// Check for straight
-		if (straightCards != null) {
-			handRank = HandRank.STRAIGHT;
-			tieBreakers = Collections.singletonList(straightCards.get(0).getNum());
-			description = String.format("%s high straight",
-				getCardName(straightCards.get(0).getNum()));
-			return;
-		}
-
-		// Check for three of a kind
-		if (!threeOfKinds.isEmpty()) {
-			List<Integer> kickers = sortedCards.stream()
-				.map(Card::getNum)
-				.filter(r -> r != threeOfKinds.get(0))
-				.limit(2)
-				.toList();
-			handRank = HandRank.THREE_OF_KIND;
-			tieBreakers = new ArrayList<>();
-			tieBreakers.add(threeOfKinds.get(0));
-			tieBreakers.addAll(kickers);
-			description = String.format("three %ss", getCardName(threeOfKinds.get(0)));
-			return;
-		}
-
-		// Check for two pair
-		if (pairs.size() >= 2) {
-			int kicker = sortedCards.stream()
-				.map(Card::getNum)
-				.filter(r -> r != pairs.get(0) && r != pairs.get(1))
-				.findFirst()
-				.orElse(0);
-			handRank = HandRank.TWO_PAIR;
-			tieBreakers = Arrays.asList(pairs.get(0), pairs.get(1), kicker);
-			description = String.format("two pair: %ss and %ss",
-				getCardName(pairs.get(0)), getCardName(pairs.get(1)));
-			return;
-		}
-
-		// Check for one pair
-		if (pairs.size() == 1) {
-			List<Integer> kickers = sortedCards.stream()
-				.map(Card::getNum)
-				.filter(r -> r != pairs.get(0))
-				.limit(3)
-				.toList();
-			handRank = HandRank.ONE_PAIR;
-			tieBreakers = new ArrayList<>();
-			tieBreakers.add(pairs.get(0));
-			tieBreakers.addAll(kickers);
-			description = String.format("pair of %ss", getCardName(pairs.get(0)));
-			return;
-		}
-
-		// High card
-		handRank = HandRank.HIGH_CARD;
-		tieBreakers = sortedCards.stream()
-			.limit(5)
-			.map(Card::getNum)
-			.toList();
-		description = String.format("%s high", getCardName(tieBreakers.get(0)));
+	/**
+	 * Gets the full score of the hand, including kickers.
+	 * @return The hand score; higher is stronger, equal scores tie
+	 */
+	public int getScore() {
+		return score;
 	}
 
-	private List<Card> findStraight(List<Card> sortedCards) {
-		// Handle special case: Ace-low straight (A-2-3-4-5)
-		if (hasAceLowStraight(sortedCards)) {
-			List<Card> straight = new ArrayList<>();
-			// Find 5,4,3,2
-			for (Card card : sortedCards) {
-				if (card.getNum() >= 2 && card.getNum() <= 5) {
-					straight.add(card);
-				}
-			}
-			// Add Ace at the end (low)
-			straight.add(sortedCards.stream()
-				.filter(c -> c.getNum() == 14)
-				.findFirst()
-				.orElseThrow());
-			return straight;
-		}
-
-		// Check for regular straights
-		List<Card> straight = new ArrayList<>();
-		int lastRank = -1;
-		
-		for (Card card : sortedCards) {
-			int rank = card.getNum();
-			if (lastRank == -1) {
-				straight.add(card);
-				lastRank = rank;
-			} else if (rank == lastRank - 1) {
-				straight.add(card);
-				lastRank = rank;
-				if (straight.size() == 5) {
-					return straight;
-				}
-			} else if (rank != lastRank) {
-				straight.clear();
-				straight.add(card);
-				lastRank = rank;
-			}
-		}
-		
-		return straight.size() == 5 ? straight : null;
+	/**
+	 * Compares the strength of two hands, kickers included.
+	 * @param other The hand to compare with
+	 * @return A positive number if this hand wins, negative if it loses, 0 on a tie
+	 */
+	@Override
+	public int compareTo(HandEvaluator other) {
+		return Integer.compare(score, other.score);
 	}
 
-	private List<Card> findStraightInFlush(List<Card> flushCards) {
-		return findStraight(flushCards);
+	/**
+	 * Scores the best hand that can be made from a set of cards.
+	 * Higher scores are stronger hands; equal scores tie.
+	 * @param cards The cards as a {@link CardSet}
+	 * @return The hand score
+	 */
+	public static int evaluate(long cards) {
+		return HandRankTable.evaluate(cards);
 	}
 
-	private boolean hasAceLowStraight(List<Card> sortedCards) {
-		boolean hasAce = false;
-		boolean has2 = false;
-		boolean has3 = false;
-		boolean has4 = false;
-		boolean has5 = false;
+	/**
+	 * Gets the hand category (0 for high card up to 9 for royal flush) of a score.
+	 * @param score A score returned by {@link #evaluate(long)}
+	 * @return The hand ranking
+	 */
+	public static int getRanking(int score) {
+		return score >>> HandRankTable.CATEGORY_SHIFT;
+	}
 
-		for (Card card : sortedCards) {
-			switch (card.getNum()) {
-				case 14 -> hasAce = true;
-				case 2 -> has2 = true;
-				case 3 -> has3 = true;
-				case 4 -> has4 = true;
-				case 5 -> has5 = true;
-			}
-		}
+	/**
+	 * Describes a hand score in words, e.g. "two pair: As and 6s".
+	 * @param score A score returned by {@link #evaluate(long)}
+	 * @return The description
+	 */
+	public static String describe(int score) {
+		int first = rankAt(score, 0);
+		int second = rankAt(score, 1);
+		return switch (HandRank.values()[getRanking(score)]) {
+			case ROYAL_FLUSH -> "royal flush";
+			case STRAIGHT_FLUSH -> String.format("%s high straight flush", getCardName(first));
+			case FOUR_OF_KIND -> String.format("four %ss", getCardName(first));
+			case FULL_HOUSE -> String.format("full house: %ss full of %ss",
+				getCardName(first), getCardName(second));
+			case FLUSH -> String.format("%s high flush", getCardName(first));
+			case STRAIGHT -> String.format("%s high straight", getCardName(first));
+			case THREE_OF_KIND -> String.format("three %ss", getCardName(first));
+			case TWO_PAIR -> String.format("two pair: %ss and %ss",
+				getCardName(first), getCardName(second));
+			case ONE_PAIR -> String.format("pair of %ss", getCardName(first));
+			case HIGH_CARD -> first == 0 ? "no cards" : String.format("%s high", getCardName(first));
+		};
+	}
 
-		return hasAce && has2 && has3 && has4 && has5;
+	/** Reads the rank value (2-14, or 0 when empty) stored in a score slot */
+	private static int rankAt(int score, int slot) {
+		int shift = HandRankTable.CATEGORY_SHIFT - (slot + 1) * HandRankTable.SLOT_BITS;
+		return (score >>> shift) & ((1 << HandRankTable.SLOT_BITS) - 1);
 	}
 
-	private String getCardName(int rank) {
+	private static String getCardName(int rank) {
 		return switch (rank) {
 			case 14 -> "A";
 			case 13 -> "K";
@@ -0,0 +1,416 @@
+/**
+ * Numbers hands up to suit isomorphism. Two hands that only differ by
+ * renaming suits, such as AsKs on a 9h8h2d flop and AcKc on 9d8d2h, play the
+ * same way, so they get the same index. Indices are dense, running from 0 to
+ * {@link #size()} - 1 with every number standing for one class of hands, so
+ * they can address a flat array directly, and {@link #unindex} gives back a
+ * hand of each class.
+ *
+ * A hand is dealt in rounds, such as the hole cards and then the board, and
+ * cards only match between hands when dealt in the same round. Each suit of
+ * a hand is described by its card count in each round (its configuration)
+ * and by which ranks it holds in each round, numbered by the combinatorial
+ * number system. Renaming suits only reorders these descriptions, so the
+ * class of a hand is the multiset of its four suits' descriptions: suits with
+ * the same configuration are numbered together as a multiset, and each
+ * combination of configurations (a shape) takes its own range of indices.
+ */
+package com.mackuntu.poker.Evaluator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.mackuntu.poker.Card.CardSet;
+
+public final class HandIndexer {
+	private static final int RANKS = 13;
+	private static final int SUITS = 4;
+	private static final int RANK_MASK = (1 << RANKS) - 1;
+	private static final int MAX_ROUNDS = 4;
+	private static final int MAX_CARDS = 7;
+	/** Bits per round in a configuration code, and per suit in a shape key */
+	private static final int COUNT_BITS = 3;
+	private static final int CODE_BITS = COUNT_BITS * MAX_ROUNDS;
+	private static final int HOLE_CARDS = 2;
+
+	/** Binomial coefficients of up to 13 ranks */
+	private static final int[][] CHOOSE = new int[RANKS + 1][RANKS + 1];
+
+	static {
+		for (int n = 0; n <= RANKS; n++) {
+			CHOOSE[n][0] = 1;
+			for (int k = 1; k <= n; k++) {
+				CHOOSE[n][k] = CHOOSE[n - 1][k - 1] + (k < n ? CHOOSE[n - 1][k] : 0);
+			}
+		}
+	}
+
+	/** Indexers of hole cards with a board dealt as one round, by board size */
+	private static final HandIndexer[] BY_BOARD = {
+		new HandIndexer(HOLE_CARDS),
+		null,
+		null,
+		new HandIndexer(HOLE_CARDS, 3),
+		new HandIndexer(HOLE_CARDS, 4),
+		new HandIndexer(HOLE_CARDS, 5)
+	};
+
+	private final int[] cardsPerRound;
+	/** Every shape's four configuration codes, highest first, packed and sorted */
+	private final long[] shapeKeys;
+	/** The first index of each shape */
+	private final long[] shapeOffsets;
+	private final long size;
+
+	/**
+	 * Creates an indexer of hands dealt in the given rounds.
+	 * @param cardsPerRound The cards dealt in each round, e.g. 2, 3, 1, 1 for
+	 *        the hole cards, flop, turn and river
+	 * @throws IllegalArgumentException for no rounds, more than 4, an empty
+	 *         round or more than 7 cards in all
+	 */
+	public HandIndexer(int... cardsPerRound) {
+		if (cardsPerRound.length == 0 || cardsPerRound.length > MAX_ROUNDS) {
+			throw new IllegalArgumentException("Need 1 to " + MAX_ROUNDS + " rounds");
+		}
+		int total = 0;
+		for (int cards : cardsPerRound) {
+			if (cards < 1) {
+				throw new IllegalArgumentException("Every round deals at least one card");
+			}
+			total += cards;
+		}
+		if (total > MAX_CARDS) {
+			throw new IllegalArgumentException("At most " + MAX_CARDS + " cards in all");
+		}
+		this.cardsPerRound = cardsPerRound.clone();
+
+		List<Long> keys = new ArrayList<>();
+		collectShapes(0, 0, new int[SUITS], keys);
+		shapeKeys = keys.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+		shapeOffsets = new long[shapeKeys.length];
+		long offset = 0;
+		for (int shape = 0; shape < shapeKeys.length; shape++) {
+			shapeOffsets[shape] = offset;
+			offset += shapeSize(shapeKeys[shape]);
+		}
+		size = offset;
+	}
+
+	/**
+	 * Gets the indexer of hole cards and a board of a given size, with the
+	 * board taken as one round. That suits anything that depends only on the
+	 * cards, such as hand strength or equity, and not on the order they came.
+	 * @param boardCards The board size: 0, 3, 4 or 5
+	 * @return The shared indexer
+	 */
+	public static HandIndexer forBoard(int boardCards) {
+		if (boardCards < 0 || boardCards >= BY_BOARD.length || BY_BOARD[boardCards] == null) {
+			throw new IllegalArgumentException("No street has a board of " + boardCards + " cards");
+		}
+		return BY_BOARD[boardCards];
+	}
+
+	/** Gets the number of classes, one more than the largest index */
+	public long size() {
+		return size;
+	}
+
+	public int getRounds() {
+		return cardsPerRound.length;
+	}
+
+	/**
+	 * Indexes hole cards and a board, for an indexer of two rounds
+	 * (or just the hole cards, with an empty board, for one round).
+	 * @param holeCards The hole cards as a {@link CardSet}
+	 * @param board The board as a {@link CardSet}
+	 * @return The class index
+	 * @throws IllegalArgumentException if the cards do not fit the rounds
+	 */
+	public long index(long holeCards, long board) {
+		if (cardsPerRound.length == 1 && CardSet.isEmpty(board)) {
+			return index(new long[] {holeCards});
+		}
+		return index(new long[] {holeCards, board});
+	}
+
+	/**
+	 * Indexes a hand.
+	 * @param rounds The cards dealt in each round, as {@link CardSet}s
+	 * @return The class index
+	 * @throws IllegalArgumentException if the cards do not fit the rounds or overlap
+	 */
+	public long index(long[] rounds) {
+		checkRounds(rounds);
+		int[] codes = new int[SUITS];
+		long[] indices = new long[SUITS];
+		for (int suit = 0; suit < SUITS; suit++) {
+			int used = 0;
+			long index = 0;
+			long radix = 1;
+			int code = 0;
+			for (int round = 0; round < rounds.length; round++) {
+				int ranks = suitRanks(rounds[round], suit);
+				int count = Integer.bitCount(ranks);
+				code |= count << (COUNT_BITS * round);
+				index += radix * colex(compress(ranks, used));
+				radix *= CHOOSE[RANKS - Integer.bitCount(used)][count];
+				used |= ranks;
+			}
+			codes[suit] = code;
+			indices[suit] = index;
+		}
+		// Sort the suits by configuration, highest first, then by index
+		for (int i = 1; i < SUITS; i++) {
+			int code = codes[i];
+			long index = indices[i];
+			int j = i;
+			while (j > 0 && (codes[j - 1] < code || (codes[j - 1] == code && indices[j - 1] > index))) {
+				codes[j] = codes[j - 1];
+				indices[j] = indices[j - 1];
+				j--;
+			}
+			codes[j] = code;
+			indices[j] = index;
+		}
+		long key = 0;
+		for (int i = 0; i < SUITS; i++) {
+			key = (key << CODE_BITS) | codes[i];
+		}
+		int shape = Arrays.binarySearch(shapeKeys, key);
+		long within = 0;
+		long radix = 1;
+		for (int first = 0; first < SUITS; ) {
+			int end = first + 1;
+			while (end < SUITS && codes[end] == codes[first]) {
+				end++;
+			}
+			int copies = end - first;
+			// Same-configuration suits form a multiset of indices, numbered as a combination
+			long group = 0;
+			for (int k = 1; k <= copies; k++) {
+				group += choose(indices[first + k - 1] + k - 1, k);
+			}
+			within += radix * group;
+			radix *= choose(configSize(codes[first]) + copies - 1, copies);
+			first = end;
+		}
+		return shapeOffsets[shape] + within;
+	}
+
+	/**
+	 * Gets a hand of the class with an index.
+	 * @param index The class index
+	 * @return The cards dealt in each round, as {@link CardSet}s
+	 * @throws IllegalArgumentException if the index is out of range
+	 */
+	public long[] unindex(long index) {
+		if (index < 0 || index >= size) {
+			throw new IllegalArgumentException("Index out of range: " + index);
+		}
+		int shape = Arrays.binarySearch(shapeOffsets, index);
+		if (shape < 0) {
+			shape = -shape - 2;
+		}
+		long within = index - shapeOffsets[shape];
+		int[] codes = codes(shapeKeys[shape]);
+		long[] indices = new long[SUITS];
+		for (int first = 0; first < SUITS; ) {
+			int end = first + 1;
+			while (end < SUITS && codes[end] == codes[first]) {
+				end++;
+			}
+			int copies = end - first;
+			long radix = choose(configSize(codes[first]) + copies - 1, copies);
+			long group = within % radix;
+			within /= radix;
+			for (int k = copies; k >= 1; k--) {
+				long top = largestBelow(group, k);
+				group -= choose(top, k);
+				indices[first + k - 1] = top - (k - 1);
+			}
+			first = end;
+		}
+		long[] rounds = new long[cardsPerRound.length];
+		for (int suit = 0; suit < SUITS; suit++) {
+			long rest = indices[suit];
+			int used = 0;
+			for (int round = 0; round < rounds.length; round++) {
+				int count = (codes[suit] >>> (COUNT_BITS * round)) & ((1 << COUNT_BITS) - 1);
+				int radix = CHOOSE[RANKS - Integer.bitCount(used)][count];
+				int ranks = expand(uncolex((int) (rest % radix), count), used);
+				rest /= radix;
+				rounds[round] |= (long) ranks << (RANKS * suit);
+				used |= ranks;
+			}
+		}
+		return rounds;
+	}
+
+	private void checkRounds(long[] rounds) {
+		if (rounds.length != cardsPerRound.length) {
+			throw new IllegalArgumentException("Expected " + cardsPerRound.length + " rounds of cards");
+		}
+		long seen = CardSet.EMPTY;
+		for (int round = 0; round < rounds.length; round++) {
+			if (CardSet.count(rounds[round]) != cardsPerRound[round]) {
+				throw new IllegalArgumentException("Round " + round + " needs " + cardsPerRound[round] + " cards");
+			}
+			if (CardSet.intersects(seen, rounds[round])) {
+				throw new IllegalArgumentException("A card is dealt twice");
+			}
+			seen |= rounds[round];
+		}
+	}
+
+	/** Adds the keys of every way to share each round's cards out over the suits */
+	private void collectShapes(int round, int suit, int[] codes, List<Long> keys) {
+		if (round == cardsPerRound.length) {
+			int[] sorted = codes.clone();
+			Arrays.sort(sorted);
+			long key = 0;
+			for (int i = SUITS - 1; i >= 0; i--) {
+				key = (key << CODE_BITS) | sorted[i];
+			}
+			keys.add(key);
+			return;
+		}
+		int dealt = 0;
+		for (int i = 0; i < SUITS; i++) {
+			dealt += (codes[i] >>> (COUNT_BITS * round)) & ((1 << COUNT_BITS) - 1);
+		}
+		if (suit == SUITS - 1) {
+			// The last suit takes the rest of the round
+			int count = cardsPerRound[round] - dealt;
+			codes[suit] += count << (COUNT_BITS * round);
+			collectShapes(round + 1, 0, codes, keys);
+			codes[suit] -= count << (COUNT_BITS * round);
+			return;
+		}
+		for (int count = 0; count <= cardsPerRound[round] - dealt; count++) {
+			codes[suit] += count << (COUNT_BITS * round);
+			collectShapes(round, suit + 1, codes, keys);
+			codes[suit] -= count << (COUNT_BITS * round);
+		}
+	}
+
+	private static int[] codes(long key) {
+		int[] codes = new int[SUITS];
+		for (int i = SUITS - 1; i >= 0; i--) {
+			codes[i] = (int) (key & ((1 << CODE_BITS) - 1));
+			key >>>= CODE_BITS;
+		}
+		return codes;
+	}
+
+	/** Gets the number of classes of a shape */
+	private long shapeSize(long key) {
+		int[] codes = codes(key);
+		long count = 1;
+		for (int first = 0; first < SUITS; ) {
+			int end = first + 1;
+			while (end < SUITS && codes[end] == codes[first]) {
+				end++;
+			}
+			int copies = end - first;
+			count *= choose(configSize(codes[first]) + copies - 1, copies);
+			first = end;
+		}
+		return count;
+	}
+
+	/** Gets the number of ways one suit can hold the card counts of a configuration */
+	private long configSize(int code) {
+		long count = 1;
+		int used = 0;
+		for (int round = 0; round < cardsPerRound.length; round++) {
+			int cards = (code >>> (COUNT_BITS * round)) & ((1 << COUNT_BITS) - 1);
+			count *= CHOOSE[RANKS - used][cards];
+			used += cards;
+		}
+		return count;
+	}
+
+	private static int suitRanks(long cards, int suit) {
+		return (int) (cards >>> (RANKS * suit)) & RANK_MASK;
+	}
+
+	/** Renumbers ranks to their position among the ranks not yet used */
+	private static int compress(int ranks, int used) {
+		int compressed = 0;
+		for (int rest = ranks; rest != 0; rest &= rest - 1) {
+			int rank = Integer.numberOfTrailingZeros(rest);
+			compressed |= 1 << (rank - Integer.bitCount(used & ((1 << rank) - 1)));
+		}
+		return compressed;
+	}
+
+	/** Undoes {@link #compress}: puts each position back on the unused rank it numbers */
+	private static int expand(int positions, int used) {
+		int ranks = 0;
+		int position = 0;
+		for (int rank = 0; rank < RANKS && positions >>> position != 0; rank++) {
+			if ((used & (1 << rank)) == 0) {
+				if ((positions & (1 << position)) != 0) {
+					ranks |= 1 << rank;
+				}
+				position++;
+			}
+		}
+		return ranks;
+	}
+
+	/** Numbers a set of positions among all sets of its size (colexicographic order) */
+	private static int colex(int positions) {
+		int index = 0;
+		int k = 1;
+		for (int rest = positions; rest != 0; rest &= rest - 1) {
+			index += CHOOSE[Integer.numberOfTrailingZeros(rest)][k++];
+		}
+		return index;
+	}
+
+	private static int uncolex(int index, int count) {
+		int positions = 0;
+		for (int k = count; k >= 1; k--) {
+			int top = k - 1;
+			while (top + 1 < RANKS && CHOOSE[top + 1][k] <= index) {
+				top++;
+			}
+			index -= CHOOSE[top][k];
+			positions |= 1 << top;
+		}
+		return positions;
+	}
+
+	/** Finds the largest n with C(n, k) no more than a value */
+	private static long largestBelow(long value, int k) {
+		long low = k - 1;
+		long high = k;
+		while (choose(high, k) <= value) {
+			high *= 2;
+		}
+		while (high - low > 1) {
+			long middle = (low + high) >>> 1;
+			if (choose(middle, k) <= value) {
+				low = middle;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private static long choose(long n, int k) {
+		if (n < k) {
+			return 0;
+		}
+		long result = 1;
+		for (int i = 0; i < k; i++) {
+			result = result * (n - i) / (i + 1);
+		}
+		return result;
+	}
+}
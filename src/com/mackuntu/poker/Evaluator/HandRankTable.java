@@ -0,0 +1,373 @@
+/**
+ * Precomputed lookup tables behind {@link HandEvaluator}.
+ * Hands are {@link com.mackuntu.poker.Card.CardSet} longs with one bit per card
+ * index (suit * 13 + rank - 2), the same indexing the Dealer deals with. Flush hands are read from a table
+ * indexed by the 13-bit rank mask of the flush suit; every other hand is read
+ * from a table addressed by a perfect hash of its rank multiset.
+ * The tables are built once and kept in a {@link TableFile}, so later runs
+ * map them in milliseconds and hold them outside the heap.
+ */
+package com.mackuntu.poker.Evaluator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+final class HandRankTable {
+	/** Number of bits used by each rank slot of a packed score */
+	static final int SLOT_BITS = 4;
+	/** Position of the hand category inside a packed score */
+	static final int CATEGORY_SHIFT = 5 * SLOT_BITS;
+
+	private static final int RANKS = 13;
+	private static final int RANK_MASK = (1 << RANKS) - 1;
+	private static final int MAX_CARDS = 7;
+
+	/**
+	 * Per-rank keys (deuce to ace) chosen so that the sum over any multiset of
+	 * up to seven ranks, with at most four of each, is unique. A hand's rank key
+	 * is the plain sum of its cards' keys, so it can be accumulated card by card.
+	 */
+	private static final int[] RANK_KEYS = {
+		1, 5, 24, 112, 521, 2247, 9244, 30823, 103066, 250154, 667453, 1526359, 3453520
+	};
+
+	/** Rank key for each card index */
+	private static final int[] CARD_KEYS = new int[52];
+
+	/** The rank multisets are spread over 2^BUCKET_BITS hash buckets */
+	private static final int BUCKET_BITS = 14;
+	/** RANK_SCORES has 2^TABLE_BITS slots */
+	private static final int TABLE_BITS = 17;
+	private static final int BUCKET_MULTIPLIER = 0x9E3779B1;
+	private static final int SLOT_MULTIPLIER = 0x85EBCA6B;
+
+	/** The file the tables are kept in between runs (see {@link TableFile}) */
+	static final String FILE = "hand-ranks.bin";
+	/** "RANK" */
+	private static final int KIND = 0x52414E4B;
+	/** Change whenever the tables' layout or scores change, so that old files are rebuilt */
+	private static final int VERSION = 1;
+
+	/** Best score for each 13-bit rank mask of a suit holding five or more cards */
+	private static final IntBuffer FLUSH_SCORES;
+	/** Displacement of each hash bucket into RANK_SCORES */
+	private static final IntBuffer DISPLACEMENTS;
+	/** Best non-flush score for each rank multiset, addressed through DISPLACEMENTS */
+	private static final IntBuffer RANK_SCORES;
+
+	private static final int FLUSH_SIZE = 1 << RANKS;
+	private static final int DISPLACEMENT_SIZE = 1 << BUCKET_BITS;
+	private static final int RANK_SIZE = 1 << TABLE_BITS;
+	private static final int TABLE_BYTES = (FLUSH_SIZE + DISPLACEMENT_SIZE + RANK_SIZE) * Integer.BYTES;
+
+	static {
+		for (int card = 0; card < CARD_KEYS.length; card++) {
+			CARD_KEYS[card] = RANK_KEYS[card % RANKS];
+		}
+
+		// The tables are read from a mapped file, built and written on the first run
+		ByteBuffer tables = TableFile.load(TableFile.path(FILE), KIND, VERSION, TABLE_BYTES, HandRankTable::build);
+		FLUSH_SCORES = ints(tables, 0, FLUSH_SIZE);
+		DISPLACEMENTS = ints(tables, FLUSH_SIZE, DISPLACEMENT_SIZE);
+		RANK_SCORES = ints(tables, FLUSH_SIZE + DISPLACEMENT_SIZE, RANK_SIZE);
+	}
+
+	private HandRankTable() {
+	}
+
+	private static IntBuffer ints(ByteBuffer tables, int offset, int length) {
+		return tables.slice(offset * Integer.BYTES, length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+	}
+
+	/**
+	 * Builds the tables: the flush scores, then the displacements and
+	 * the scores of the rank multiset hash, one after another.
+	 * @return The tables as a little-endian buffer
+	 */
+	private static ByteBuffer build() {
+		int[] flushScores = new int[FLUSH_SIZE];
+		for (int mask = 0; mask <= RANK_MASK; mask++) {
+			if (Integer.bitCount(mask) >= 5) {
+				flushScores[mask] = scoreFlush(mask);
+			}
+		}
+
+		// Every rank multiset of at most seven cards, with its key and score
+		int[] keys = new int[76155];
+		int[] scores = new int[keys.length];
+		int count = enumerate(0, MAX_CARDS, 0, new int[RANKS], keys, scores, 0);
+		if (count != keys.length) {
+			throw new IllegalStateException("Unexpected rank multiset count: " + count);
+		}
+
+		// Hash and displace: keys are spread over buckets by one hash, and each
+		// bucket gets the XOR displacement of a second hash that sends all of its
+		// keys to free slots. Larger buckets are placed first, while it is easy.
+		int[] sizes = new int[1 << BUCKET_BITS];
+		for (int key : keys) {
+			sizes[bucketOf(key)]++;
+		}
+		int[][] members = new int[sizes.length][];
+		for (int b = 0; b < sizes.length; b++) {
+			members[b] = new int[sizes[b]];
+			sizes[b] = 0;
+		}
+		for (int key : keys) {
+			int b = bucketOf(key);
+			members[b][sizes[b]++] = key;
+		}
+
+		Integer[] order = new Integer[sizes.length];
+		for (int b = 0; b < order.length; b++) {
+			order[b] = b;
+		}
+		Arrays.sort(order, (a, b) -> Integer.compare(sizes[b], sizes[a]));
+
+		int[] displacements = new int[sizes.length];
+		boolean[] taken = new boolean[1 << TABLE_BITS];
+		for (int b : order) {
+			int displacement = 0;
+			while (!fits(members[b], taken, displacement)) {
+				if (++displacement == taken.length) {
+					throw new IllegalStateException("No displacement found for bucket " + b);
+				}
+			}
+			for (int key : members[b]) {
+				taken[slotOf(key, displacement)] = true;
+			}
+			displacements[b] = displacement;
+		}
+
+		int[] rankScores = new int[RANK_SIZE];
+		for (int i = 0; i < keys.length; i++) {
+			rankScores[slotOf(keys[i], displacements[bucketOf(keys[i])])] = scores[i];
+		}
+
+		ByteBuffer tables = TableFile.allocate(TABLE_BYTES);
+		tables.asIntBuffer().put(flushScores).put(displacements).put(rankScores);
+		return tables;
+	}
+
+	/**
+	 * Scores the best hand that can be made from a set of cards.
+	 * Higher scores are stronger hands; equal scores tie.
+	 * @param cards The cards as a card set
+	 * @return The packed score (category and ranks)
+	 */
+	static int evaluate(long cards) {
+		int spades = (int) cards & RANK_MASK;
+		int hearts = (int) (cards >>> RANKS) & RANK_MASK;
+		int diamonds = (int) (cards >>> (2 * RANKS)) & RANK_MASK;
+		int clubs = (int) (cards >>> (3 * RANKS)) & RANK_MASK;
+
+		if (Long.bitCount(cards) > MAX_CARDS) {
+			return evaluateLarge(spades, hearts, diamonds, clubs);
+		}
+
+		// With seven cards or fewer a flush always beats whatever the other
+		// ranks could make, and at most one suit can hold five cards
+		if (Integer.bitCount(spades) >= 5) return FLUSH_SCORES.get(spades);
+		if (Integer.bitCount(hearts) >= 5) return FLUSH_SCORES.get(hearts);
+		if (Integer.bitCount(diamonds) >= 5) return FLUSH_SCORES.get(diamonds);
+		if (Integer.bitCount(clubs) >= 5) return FLUSH_SCORES.get(clubs);
+
+		int key = 0;
+		for (long remaining = cards; remaining != 0; remaining &= remaining - 1) {
+			key += CARD_KEYS[Long.numberOfTrailingZeros(remaining)];
+		}
+		return rankScore(key);
+	}
+
+	/**
+	 * Gets the key a card adds to the rank key of a hand.
+	 * @param card The card index
+	 * @return The card's rank key
+	 */
+	static int cardKey(int card) {
+		return CARD_KEYS[card];
+	}
+
+	/**
+	 * Looks up the score of a flush.
+	 * @param suitRanks The 13-bit rank mask of a suit holding five to seven cards
+	 * @return The packed score
+	 */
+	static int flushScore(int suitRanks) {
+		return FLUSH_SCORES.get(suitRanks);
+	}
+
+	/**
+	 * Looks up the non-flush score of a rank multiset of at most seven cards.
+	 * @param rankKey Sum of the cards' {@link #CARD_KEYS}
+	 * @return The packed score
+	 */
+	static int rankScore(int rankKey) {
+		return RANK_SCORES.get(slotOf(rankKey, DISPLACEMENTS.get(bucketOf(rankKey))));
+	}
+
+	/**
+	 * Scores sets of more than seven cards, which the tables do not cover.
+	 * Only reached when a hand is built from an oversized card list.
+	 */
+	private static int evaluateLarge(int... suits) {
+		int[] counts = new int[RANKS];
+		int best = 0;
+		for (int suit : suits) {
+			for (int r = 0; r < RANKS; r++) {
+				counts[r] += (suit >>> r) & 1;
+			}
+			if (Integer.bitCount(suit) >= 5) {
+				best = Math.max(best, FLUSH_SCORES.get(suit));
+			}
+		}
+		return Math.max(best, scoreRanks(counts));
+	}
+
+	private static int enumerate(int rank, int remaining, int key, int[] counts,
+			int[] keys, int[] scores, int next) {
+		if (rank == RANKS) {
+			keys[next] = key;
+			scores[next] = scoreRanks(counts);
+			return next + 1;
+		}
+		for (int c = 0; c <= Math.min(4, remaining); c++) {
+			counts[rank] = c;
+			next = enumerate(rank + 1, remaining - c, key + c * RANK_KEYS[rank], counts, keys, scores, next);
+		}
+		counts[rank] = 0;
+		return next;
+	}
+
+	private static int bucketOf(int rankKey) {
+		return (rankKey * BUCKET_MULTIPLIER) >>> (32 - BUCKET_BITS);
+	}
+
+	private static int slotOf(int rankKey, int displacement) {
+		return ((rankKey * SLOT_MULTIPLIER) >>> (32 - TABLE_BITS)) ^ displacement;
+	}
+
+	private static boolean fits(int[] bucket, boolean[] taken, int displacement) {
+		for (int i = 0; i < bucket.length; i++) {
+			int slot = slotOf(bucket[i], displacement);
+			if (taken[slot]) {
+				return false;
+			}
+			// Two keys of the same bucket must not share a slot either
+			for (int j = 0; j < i; j++) {
+				if (slotOf(bucket[j], displacement) == slot) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Scores a hand from its rank counts, ignoring suits.
+	 * Used to build the tables, so it favours clarity over speed.
+	 */
+	private static int scoreRanks(int[] counts) {
+		int present = 0;
+		int pairs = 0;
+		int trips = 0;
+		int quads = 0;
+		for (int r = 0; r < RANKS; r++) {
+			if (counts[r] > 0) present |= 1 << r;
+			if (counts[r] == 2) pairs |= 1 << r;
+			if (counts[r] == 3) trips |= 1 << r;
+			if (counts[r] == 4) quads |= 1 << r;
+		}
+
+		if (quads != 0) {
+			int quad = highest(quads);
+			return finish(top(start(HandEvaluator.HandRank.FOUR_OF_KIND, quad), present & ~(1 << quad), 1), 2);
+		}
+
+		if (trips != 0) {
+			int trip = highest(trips);
+			int rest = (trips & ~(1 << trip)) | pairs;
+			if (rest != 0) {
+				return finish(top(start(HandEvaluator.HandRank.FULL_HOUSE, trip), rest, 1), 2);
+			}
+		}
+
+		int straight = straightHigh(present);
+		if (straight >= 0) {
+			return finish(start(HandEvaluator.HandRank.STRAIGHT, straight), 1);
+		}
+
+		if (trips != 0) {
+			int trip = highest(trips);
+			return finish(top(start(HandEvaluator.HandRank.THREE_OF_KIND, trip), present & ~(1 << trip), 2), 3);
+		}
+
+		if (Integer.bitCount(pairs) >= 2) {
+			int high = highest(pairs);
+			int low = highest(pairs & ~(1 << high));
+			int score = top(start(HandEvaluator.HandRank.TWO_PAIR, high), 1 << low, 1);
+			return finish(top(score, present & ~(1 << high) & ~(1 << low), 1), 3);
+		}
+
+		if (pairs != 0) {
+			int pair = highest(pairs);
+			return finish(top(start(HandEvaluator.HandRank.ONE_PAIR, pair), present & ~(1 << pair), 3), 4);
+		}
+
+		return finish(top(HandEvaluator.HandRank.HIGH_CARD.value, present, 5), 5);
+	}
+
+	private static int scoreFlush(int suitMask) {
+		int straight = straightHigh(suitMask);
+		if (straight == RANKS - 1) {
+			return finish(start(HandEvaluator.HandRank.ROYAL_FLUSH, straight), 1);
+		}
+		if (straight >= 0) {
+			return finish(start(HandEvaluator.HandRank.STRAIGHT_FLUSH, straight), 1);
+		}
+		return finish(top(HandEvaluator.HandRank.FLUSH.value, suitMask, 5), 5);
+	}
+
+	/**
+	 * Finds the highest straight in a rank mask.
+	 * @return The rank index of the straight's top card, or -1 if there is none
+	 */
+	private static int straightHigh(int mask) {
+		for (int high = RANKS - 1; high >= 4; high--) {
+			int run = 0x1F << (high - 4);
+			if ((mask & run) == run) {
+				return high;
+			}
+		}
+		// Ace-low straight (A-2-3-4-5) tops out at the five
+		int wheel = (1 << (RANKS - 1)) | 0xF;
+		return (mask & wheel) == wheel ? 3 : -1;
+	}
+
+	private static int highest(int mask) {
+		return 31 - Integer.numberOfLeadingZeros(mask);
+	}
+
+	private static int start(HandEvaluator.HandRank category, int rank) {
+		return (category.value << SLOT_BITS) | (rank + 2);
+	}
+
+	/** Appends the top n ranks of a mask, padding with empty slots when it runs out */
+	private static int top(int score, int mask, int n) {
+		for (int i = 0; i < n; i++) {
+			score <<= SLOT_BITS;
+			if (mask != 0) {
+				int rank = highest(mask);
+				score |= rank + 2;
+				mask &= ~(1 << rank);
+			}
+		}
+		return score;
+	}
+
+	/** Left-aligns a score holding the given number of rank slots */
+	private static int finish(int score, int slots) {
+		return score << ((5 - slots) * SLOT_BITS);
+	}
+}
@@ -0,0 +1,194 @@
+/**
+ * A hand that grows card by card, as hole cards and then the flop, turn and
+ * river arrive. Alongside the cards it carries what scoring needs: the sum
+ * of the cards' rank keys and the number of cards in each suit. Adding or
+ * removing a card updates both in O(1), and the score is then read straight
+ * from the flush or rank table, so strength can be asked for after every
+ * street without going over the cards again.
+ *
+ * Like {@link HandEvaluator}, a state belongs to one thread at a time.
+ */
+package com.mackuntu.poker.Evaluator;
+
+import com.mackuntu.poker.Card.Card;
+import com.mackuntu.poker.Card.CardSet;
+
+public final class HandState {
+	private static final int RANKS = 13;
+	private static final int RANK_MASK = (1 << RANKS) - 1;
+	private static final int MAX_CARDS = 7;
+	/** Bits per suit in the packed suit counts */
+	private static final int COUNT_BITS = 4;
+	/** Added to the suit counts, carries a count of five or more into its top bit */
+	private static final int FLUSH_BIAS = 0x3333;
+	private static final int FLUSH_FLAGS = 0x8888;
+
+	/** The cards as a {@link CardSet} */
+	private long cards;
+	/** Sum of the cards' rank keys, which addresses the rank table */
+	private int rankKey;
+	/** Cards held in each suit, four bits per suit */
+	private int suitCounts;
+
+	/**
+	 * Creates an empty hand.
+	 */
+	public HandState() {
+	}
+
+	/**
+	 * Creates a hand holding a set of cards.
+	 * @param cards The cards as a {@link CardSet}
+	 */
+	public HandState(long cards) {
+		addAll(cards);
+	}
+
+	/**
+	 * Adds a card; a card already held is ignored.
+	 * @param card The card index (suit * 13 + rank - 2)
+	 */
+	public void add(int card) {
+		if (CardSet.contains(cards, card)) {
+			return;
+		}
+		cards = CardSet.add(cards, card);
+		rankKey += HandRankTable.cardKey(card);
+		suitCounts += suitCount(card);
+	}
+
+	public void add(Card card) {
+		add(card.getIndex());
+	}
+
+	/**
+	 * Adds every card of a set.
+	 * @param cards The cards as a {@link CardSet}
+	 */
+	public void addAll(long cards) {
+		for (long rest = cards; rest != 0; rest &= rest - 1) {
+			add(Long.numberOfTrailingZeros(rest));
+		}
+	}
+
+	/**
+	 * Removes a card; a card not held is ignored.
+	 * @param card The card index
+	 */
+	public void remove(int card) {
+		if (!CardSet.contains(cards, card)) {
+			return;
+		}
+		cards &= ~(1L << card);
+		rankKey -= HandRankTable.cardKey(card);
+		suitCounts -= suitCount(card);
+	}
+
+	public void remove(Card card) {
+		remove(card.getIndex());
+	}
+
+	/** Empties the hand, for a new deal */
+	public void clear() {
+		cards = CardSet.EMPTY;
+		rankKey = 0;
+		suitCounts = 0;
+	}
+
+	/**
+	 * Makes this hand hold the same cards as another.
+	 * @param other The hand to copy
+	 */
+	public void set(HandState other) {
+		cards = other.cards;
+		rankKey = other.rankKey;
+		suitCounts = other.suitCounts;
+	}
+
+	/** Gets the cards as a {@link CardSet} */
+	public long getCards() {
+		return cards;
+	}
+
+	public int size() {
+		return CardSet.count(cards);
+	}
+
+	/**
+	 * Gets the score of the best hand the cards make.
+	 * @return The score, as {@link HandEvaluator#evaluate(long)} gives it
+	 */
+	public int getScore() {
+		return score(cards, rankKey, suitCounts);
+	}
+
+	/**
+	 * Scores this hand together with some more cards, without adding them.
+	 * With the board as the hand, this scores any player's hole cards on it.
+	 * @param more The extra cards as a {@link CardSet}; cards already held count once
+	 * @return The score of the combined hand
+	 */
+	public int scoreWith(long more) {
+		long combined = cards;
+		int key = rankKey;
+		int counts = suitCounts;
+		for (long rest = CardSet.difference(more, cards); rest != 0; rest &= rest - 1) {
+			int card = Long.numberOfTrailingZeros(rest);
+			combined |= 1L << card;
+			key += HandRankTable.cardKey(card);
+			counts += suitCount(card);
+		}
+		return score(combined, key, counts);
+	}
+
+	/** Gets the hand category, 0 for high card up to 9 for royal flush */
+	public int getRanking() {
+		return HandEvaluator.getRanking(getScore());
+	}
+
+	/** Describes the best hand in words, e.g. "two pair: As and 6s" */
+	public String describe() {
+		return HandEvaluator.describe(getScore());
+	}
+
+	/** Gets the sum of the cards' rank keys, for {@link #score(long, int, int)} */
+	int getRankKey() {
+		return rankKey;
+	}
+
+	/** Gets the packed suit counts, for {@link #score(long, int, int)} */
+	int getSuitCounts() {
+		return suitCounts;
+	}
+
+	/** Gets what a card adds to the packed suit counts */
+	static int suitCount(int card) {
+		return 1 << (COUNT_BITS * (card / RANKS));
+	}
+
+	/**
+	 * Scores cards from their rank key sum and suit counts, so a caller
+	 * scoring many hands on one board can add up each hand's part once.
+	 * @param cards The cards as a {@link CardSet}
+	 * @param rankKey The sum of the cards' {@link HandRankTable#cardKey} values
+	 * @param suitCounts The sum of the cards' {@link #suitCount} values
+	 * @return The score
+	 */
+	static int score(long cards, int rankKey, int suitCounts) {
+		if (Long.bitCount(cards) > MAX_CARDS) {
+			return HandEvaluator.evaluate(cards);
+		}
+		// With seven cards or fewer at most one suit can hold five
+		int flush = (suitCounts + FLUSH_BIAS) & FLUSH_FLAGS;
+		if (flush != 0) {
+			int suit = Integer.numberOfTrailingZeros(flush) / COUNT_BITS;
+			return HandRankTable.flushScore((int) (cards >>> (RANKS * suit)) & RANK_MASK);
+		}
+		return HandRankTable.rankScore(rankKey);
+	}
+
+	@Override
+	public String toString() {
+		return CardSet.toString(cards);
+	}
+}
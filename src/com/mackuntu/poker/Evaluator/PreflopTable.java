@@ -0,0 +1,659 @@
+/**
+ * Preflop strength of the 169 distinct starting hands: every pair, and every
+ * two ranks either suited or offsuit. Suits only matter preflop in whether
+ * the two cards share one, so any two hole cards fall in one of these classes.
+ *
+ * The table holds each class's equity against 1 to {@link #MAX_OPPONENTS}
+ * random hands, its equity heads-up against every other class, and its rank
+ * by heads-up equity, so a strategy can look preflop strength up instead of
+ * running an equity calculation. The matchups are exact: every hand meets
+ * every other on every board, which is affordable because boards that differ
+ * only by suits are played once ({@link HandIndexer}) and each board sorts
+ * all hands by score once instead of playing them off in pairs. Equity
+ * against one random hand is the matchups weighted by how many hands of each
+ * class are live, so it and the ranks are exact too; against more opponents
+ * it is sampled. The figures take about a minute to work out, so they are
+ * kept in a {@link TableFile} that later runs map: {@link #main} writes the
+ * file ahead of time, and {@link #get()} computes it if it is missing.
+ * Code with no minute to spare, such as a strategy deciding, uses
+ * {@link #find()}, which only ever maps the file.
+ *
+ * Class numbers follow the usual 13x13 grid with aces first: row and column
+ * are the two ranks, pairs lie on the diagonal, suited hands above it
+ * (row of the higher rank) and offsuit hands below it.
+ */
+package com.mackuntu.poker.Evaluator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import com.mackuntu.poker.Card.CardSet;
+import com.mackuntu.poker.Dealer.RandomStreams;
+
+public final class PreflopTable {
+	public static final int HAND_CLASSES = 169;
+	/** The most random opponents equity is given against */
+	public static final int MAX_OPPONENTS = 11;
+	/** Runouts sampled per multiway figure by {@link #get()} when there is no cached table */
+	public static final int DEFAULT_SAMPLES = 100_000;
+	/** Where {@link #get()} caches the table, unless the poker.tables property names another directory */
+	public static final String DEFAULT_FILE = "preflop.bin";
+
+	private static final int RANKS = 13;
+	private static final int DECK_SIZE = 52;
+	private static final int BOARD_CARDS = 5;
+	private static final int HANDS = DECK_SIZE * (DECK_SIZE - 1) / 2;
+	/** Boards left once two hands are dealt: C(48, 5) */
+	private static final long BOARDS_PER_MATCHUP = 1_712_304;
+	/** Board classes a task plays through without splitting */
+	private static final int BOARD_CHUNK = 2048;
+	private static final String RANK_NAMES = "23456789TJQKA";
+	/** "PREF" */
+	private static final int KIND = 0x50524546;
+	/** Change whenever the table's layout or meaning changes, so that old files are rebuilt */
+	private static final int VERSION = 4;
+	private static final long DEFAULT_SEED = 169;
+	/** The samples, then the equity and matchup figures */
+	private static final int PAYLOAD_BYTES =
+		Integer.BYTES + (HAND_CLASSES * MAX_OPPONENTS + HAND_CLASSES * HAND_CLASSES) * Float.BYTES;
+
+	/** Heads-up equity of every class against every other, once worked out; see {@link #exactMatchups} */
+	private static float[] exactMatchups;
+	/** The table at {@link #defaultPath()} once mapped or computed; see {@link #get()} and {@link #find()} */
+	private static volatile PreflopTable shared;
+	/** Whether {@link #find()} has looked for the file, so a missing file is looked for once */
+	private static volatile boolean searched;
+	private static final Object SHARED_LOCK = new Object();
+
+	/** The table as stored: the samples, then the equity and matchup figures */
+	private final ByteBuffer payload;
+	private final int samples;
+	/** Equity by class and number of opponents, at class * MAX_OPPONENTS + opponents - 1 */
+	private final FloatBuffer equity;
+	/** Heads-up equity of one class against another, at class * HAND_CLASSES + opponent class */
+	private final FloatBuffer matchups;
+	/** Rank of each class by heads-up equity, 1 for the strongest */
+	private final int[] ranks;
+
+	private PreflopTable(ByteBuffer payload) {
+		this.payload = payload;
+		this.samples = payload.getInt(0);
+		int equityBytes = HAND_CLASSES * MAX_OPPONENTS * Float.BYTES;
+		this.equity = payload.slice(Integer.BYTES, equityBytes).order(payload.order()).asFloatBuffer();
+		this.matchups = payload.slice(Integer.BYTES + equityBytes, HAND_CLASSES * HAND_CLASSES * Float.BYTES)
+			.order(payload.order()).asFloatBuffer();
+		Integer[] order = new Integer[HAND_CLASSES];
+		for (int i = 0; i < HAND_CLASSES; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Float.compare(equity.get(b * MAX_OPPONENTS), equity.get(a * MAX_OPPONENTS)));
+		ranks = new int[HAND_CLASSES];
+		for (int i = 0; i < HAND_CLASSES; i++) {
+			ranks[order[i]] = i + 1;
+		}
+	}
+
+	/**
+	 * Gets the shared table, mapping it from its file, or computing it and
+	 * writing the file if the file is missing, stale or damaged, which takes
+	 * about a minute.
+	 * @return The table
+	 */
+	public static PreflopTable get() {
+		PreflopTable table = shared;
+		if (table == null) {
+			synchronized (SHARED_LOCK) {
+				if (shared == null) {
+					shared = open(defaultPath(), DEFAULT_SAMPLES, Runtime.getRuntime().availableProcessors(), DEFAULT_SEED);
+				}
+				table = shared;
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Gets the shared table if it is already at hand: computed by {@link #get()}
+	 * or written to {@link #defaultPath()} by {@link #main}. Never computes it,
+	 * and only looks for the file once, so it is cheap enough to call per decision.
+	 * @return The table, or null if there is none or the file is stale or damaged
+	 */
+	public static PreflopTable find() {
+		PreflopTable table = shared;
+		if (table == null && !searched) {
+			synchronized (SHARED_LOCK) {
+				if (shared == null && !searched) {
+					try {
+						shared = load(defaultPath());
+					} catch (IOException missing) {
+						// Left to the callers' fallback; get() or main builds it
+					}
+					searched = true;
+				}
+				table = shared;
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Maps a table file, first computing the table and writing the file if
+	 * it is missing, stale or damaged. If the file cannot be written the
+	 * table computed is used from memory.
+	 * @param path The file
+	 * @param samples Runouts per multiway figure, should the table be computed
+	 * @param threads The number of threads to compute it on
+	 * @param seed The seed to compute it from
+	 * @return The table
+	 */
+	public static PreflopTable open(Path path, int samples, int threads, long seed) {
+		return new PreflopTable(TableFile.load(path, KIND, VERSION, PAYLOAD_BYTES,
+			() -> compute(samples, threads, seed).payload));
+	}
+
+	/**
+	 * Gets the file {@link #get()} keeps the table in.
+	 * @return The path
+	 */
+	public static Path defaultPath() {
+		return TableFile.path(DEFAULT_FILE);
+	}
+
+	/**
+	 * Works the table out: the heads-up figures exactly, the rest by sampling runouts.
+	 * @param samples Runouts per class and number of opponents, from two up
+	 * @param threads The number of threads to spread the work over
+	 * @param seed The seed the sampled figures' random streams are derived from
+	 * @return The table
+	 */
+	public static PreflopTable compute(int samples, int threads, long seed) {
+		if (samples < 1) {
+			throw new IllegalArgumentException("samples must be at least 1");
+		}
+		float[] equity = new float[HAND_CLASSES * MAX_OPPONENTS];
+		float[] matchups;
+		if (threads == 1) {
+			// Forking outside a pool of our own would run on the common pool, so nothing is forked
+			for (int handClass = 0; handClass < HAND_CLASSES; handClass++) {
+				Classes.sample(handClass, samples, seed, equity);
+			}
+			matchups = exactMatchups(null);
+		} else {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				pool.invoke(new Classes(0, HAND_CLASSES, samples, seed, equity));
+				matchups = exactMatchups(pool);
+			} finally {
+				pool.shutdown();
+			}
+		}
+		headsUp(equity, matchups);
+		ByteBuffer payload = TableFile.allocate(PAYLOAD_BYTES);
+		payload.putInt(0, samples);
+		payload.position(Integer.BYTES);
+		payload.asFloatBuffer().put(equity).put(matchups);
+		return new PreflopTable(payload.position(0));
+	}
+
+	/**
+	 * Gets the exact matchups, working them out on the first call. They
+	 * depend on nothing {@link #compute} is given, so a run needs them once.
+	 * @param pool The pool to work them out on, or null for this thread
+	 */
+	private static synchronized float[] exactMatchups(ForkJoinPool pool) {
+		if (exactMatchups == null) {
+			Showdowns showdowns = new Showdowns();
+			int boards = showdowns.weights.length;
+			float[] matchups = new float[HAND_CLASSES * HAND_CLASSES];
+			matchups(pool == null ? Boards.play(showdowns, 0, boards)
+				: pool.invoke(new Boards(showdowns, 0, boards)), matchups);
+			exactMatchups = matchups;
+		}
+		return exactMatchups;
+	}
+
+	/** Samples the multiway figures of a range of classes, splitting the range; only run in a pool */
+	private static final class Classes extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final int samples;
+		private final long seed;
+		private final float[] equity;
+
+		Classes(int from, int to, int samples, long seed, float[] equity) {
+			this.from = from;
+			this.to = to;
+			this.samples = samples;
+			this.seed = seed;
+			this.equity = equity;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Classes(from, middle, samples, seed, equity),
+					new Classes(middle, to, samples, seed, equity));
+				return;
+			}
+			sample(from, samples, seed, equity);
+		}
+
+		/** Samples the multiway figures of one class */
+		static void sample(int handClass, int samples, long seed, float[] equity) {
+			long hand = representative(handClass);
+			EquityCalculator calculator = new EquityCalculator();
+			// Against one opponent the equity comes from the matchups, see headsUp
+			for (int opponents = 2; opponents <= MAX_OPPONENTS; opponents++) {
+				int cell = handClass * MAX_OPPONENTS + opponents - 1;
+				long cellSeed = RandomStreams.forStream(seed, cell).nextLong();
+				Equity result = calculator.estimate(hand, CardSet.EMPTY, CardSet.EMPTY, opponents, samples, cellSeed);
+				equity[cell] = (float) result.getEquity();
+			}
+		}
+	}
+
+	/**
+	 * Every hand of two hole cards with its part of the rank key and suit
+	 * counts added up, and every board up to a change of suits with the
+	 * number of boards it stands for.
+	 */
+	private static final class Showdowns {
+		final long[] hands = new long[HANDS];
+		final int[] keys = new int[HANDS];
+		final int[] counts = new int[HANDS];
+		final int[] classes = new int[HANDS];
+		final HandIndexer indexer = new HandIndexer(BOARD_CARDS);
+		final int[] weights = new int[(int) indexer.size()];
+
+		Showdowns() {
+			int hand = 0;
+			for (int a = 0; a < DECK_SIZE; a++) {
+				for (int b = a + 1; b < DECK_SIZE; b++, hand++) {
+					hands[hand] = (1L << a) | (1L << b);
+					keys[hand] = HandRankTable.cardKey(a) + HandRankTable.cardKey(b);
+					counts[hand] = HandState.suitCount(a) + HandState.suitCount(b);
+					classes[hand] = classOf(hands[hand]);
+				}
+			}
+			long[] board = new long[1];
+			for (int a = 0; a < DECK_SIZE; a++) {
+				for (int b = a + 1; b < DECK_SIZE; b++) {
+					for (int c = b + 1; c < DECK_SIZE; c++) {
+						for (int d = c + 1; d < DECK_SIZE; d++) {
+							for (int e = d + 1; e < DECK_SIZE; e++) {
+								board[0] = (1L << a) | (1L << b) | (1L << c) | (1L << d) | (1L << e);
+								weights[(int) indexer.index(board)]++;
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Plays every hand against every other on a range of board classes,
+	 * splitting the range. Gives the half-pots each class wins against each
+	 * class, at class * HAND_CLASSES + opponent class, summed over every
+	 * pair of hands and board. Only run in a pool; see {@link #play} otherwise.
+	 */
+	private static final class Boards extends RecursiveTask<long[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final Showdowns showdowns;
+		private final int from;
+		private final int to;
+
+		Boards(Showdowns showdowns, int from, int to) {
+			this.showdowns = showdowns;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected long[] compute() {
+			if (to - from > BOARD_CHUNK) {
+				int middle = (from + to) >>> 1;
+				Boards right = new Boards(showdowns, middle, to);
+				right.fork();
+				long[] halves = new Boards(showdowns, from, middle).compute();
+				long[] more = right.join();
+				for (int i = 0; i < halves.length; i++) {
+					halves[i] += more[i];
+				}
+				return halves;
+			}
+			return play(showdowns, from, to);
+		}
+
+		/** Plays a range of board classes on this thread, without splitting it */
+		static long[] play(Showdowns showdowns, int from, int to) {
+			long[] halves = new long[HAND_CLASSES * HAND_CLASSES];
+			Sweep sweep = new Sweep(showdowns, halves);
+			HandState state = new HandState();
+			for (int index = from; index < to; index++) {
+				long cards = showdowns.indexer.unindex(index)[0];
+				state.clear();
+				state.addAll(cards);
+				sweep.play(cards, state.getRankKey(), state.getSuitCounts(), showdowns.weights[index]);
+			}
+			return halves;
+		}
+
+		/** Plays boards one at a time into a task's half-pots, with room to sort on */
+		private static final class Sweep {
+			private final Showdowns showdowns;
+			private final long[] halves;
+			private final long[] order = new long[HANDS];
+			private final int[] below = new int[HAND_CLASSES];
+			private final int[] tied = new int[HAND_CLASSES];
+			private final long[] beaten = new long[HAND_CLASSES];
+			private final int[] groupClasses = new int[HAND_CLASSES];
+			/** The live hands holding each card, in score order: their scores and classes */
+			private final int[] sharing = new int[DECK_SIZE];
+			private final int[] sharingScores = new int[DECK_SIZE * (DECK_SIZE - 1)];
+			private final int[] sharingClasses = new int[DECK_SIZE * (DECK_SIZE - 1)];
+
+			Sweep(Showdowns showdowns, long[] halves) {
+				this.showdowns = showdowns;
+				this.halves = halves;
+			}
+
+			/**
+			 * Plays one board. Hands are sorted by score, and each takes, from
+			 * every class, two half-pots per hand scoring below it and one
+			 * per hand tied with it. Hands that share a card cannot meet, so
+			 * what they took from each other is then taken back, pair by
+			 * pair, from the hands holding each card.
+			 */
+			void play(long board, int key, int counts, long weight) {
+				int live = 0;
+				for (int hand = 0; hand < HANDS; hand++) {
+					if (CardSet.intersects(board, showdowns.hands[hand])) {
+						continue;
+					}
+					int score = HandState.score(board | showdowns.hands[hand],
+						key + showdowns.keys[hand], counts + showdowns.counts[hand]);
+					order[live++] = ((long) score << Integer.SIZE) | hand;
+				}
+				Arrays.sort(order, 0, live);
+
+				Arrays.fill(below, 0);
+				Arrays.fill(sharing, 0);
+				for (int first = 0; first < live; ) {
+					int score = (int) (order[first] >>> Integer.SIZE);
+					int last = first;
+					int classes = 0;
+					for (; last < live && (int) (order[last] >>> Integer.SIZE) == score; last++) {
+						int hand = (int) order[last];
+						int handClass = showdowns.classes[hand];
+						if (tied[handClass]++ == 0) {
+							groupClasses[classes++] = handClass;
+						}
+						long cards = showdowns.hands[hand];
+						share(CardSet.firstCard(cards), score, handClass);
+						share(CardSet.lastCard(cards), score, handClass);
+					}
+					// Every hand of a class in the group takes the same
+					for (int other = 0; other < HAND_CLASSES; other++) {
+						beaten[other] = weight * (2 * below[other] + tied[other]);
+					}
+					for (int i = 0; i < classes; i++) {
+						int handClass = groupClasses[i];
+						int row = handClass * HAND_CLASSES;
+						long hands = tied[handClass];
+						for (int other = 0; other < HAND_CLASSES; other++) {
+							halves[row + other] += hands * beaten[other];
+						}
+						// Each hand tied with itself
+						halves[row + handClass] -= hands * weight;
+					}
+					for (int i = 0; i < classes; i++) {
+						below[groupClasses[i]] += tied[groupClasses[i]];
+						tied[groupClasses[i]] = 0;
+					}
+					first = last;
+				}
+
+				// Two hands share at most one card, so each pair is met once
+				for (int card = 0; card < DECK_SIZE; card++) {
+					int base = card * (DECK_SIZE - 1);
+					// The hands from ties on score the same as the hand at j
+					int ties = base;
+					for (int j = base + 1; j < base + sharing[card]; j++) {
+						if (sharingScores[j] != sharingScores[j - 1]) {
+							ties = j;
+						}
+						int handClass = sharingClasses[j];
+						int row = handClass * HAND_CLASSES;
+						for (int i = base; i < ties; i++) {
+							halves[row + sharingClasses[i]] -= 2 * weight;
+						}
+						for (int i = ties; i < j; i++) {
+							halves[row + sharingClasses[i]] -= weight;
+							halves[sharingClasses[i] * HAND_CLASSES + handClass] -= weight;
+						}
+					}
+				}
+			}
+
+			private void share(int card, int score, int handClass) {
+				int slot = card * (DECK_SIZE - 1) + sharing[card]++;
+				sharingScores[slot] = score;
+				sharingClasses[slot] = handClass;
+			}
+		}
+	}
+
+	/**
+	 * Turns the half-pots each class wins against each class into shares,
+	 * out of every pair of hands not sharing a card and every board left.
+	 */
+	private static void matchups(long[] halves, float[] matchups) {
+		long[] pairs = new long[HAND_CLASSES * HAND_CLASSES];
+		for (int a = 0; a < DECK_SIZE; a++) {
+			for (int b = a + 1; b < DECK_SIZE; b++) {
+				long hand = (1L << a) | (1L << b);
+				int row = classOf(hand) * HAND_CLASSES;
+				long rest = CardSet.difference(CardSet.FULL_DECK, hand);
+				for (long first = rest; first != 0; first &= first - 1) {
+					for (long second = first & (first - 1); second != 0; second &= second - 1) {
+						pairs[row + classOf((first & -first) | (second & -second))]++;
+					}
+				}
+			}
+		}
+		for (int cell = 0; cell < matchups.length; cell++) {
+			matchups[cell] = (float) (halves[cell] / (2.0 * pairs[cell] * BOARDS_PER_MATCHUP));
+		}
+	}
+
+	/**
+	 * Fills in each class's equity against one random hand: its matchups,
+	 * weighted by the hands of each class that do not share a card with it.
+	 */
+	private static void headsUp(float[] equity, float[] matchups) {
+		for (int handClass = 0; handClass < HAND_CLASSES; handClass++) {
+			long hand = representative(handClass);
+			int[] live = new int[HAND_CLASSES];
+			for (int a = 0; a < DECK_SIZE; a++) {
+				for (int b = a + 1; b < DECK_SIZE; b++) {
+					long opponent = (1L << a) | (1L << b);
+					if (!CardSet.intersects(hand, opponent)) {
+						live[classOf(opponent)]++;
+					}
+				}
+			}
+			double share = 0;
+			int hands = 0;
+			for (int other = 0; other < HAND_CLASSES; other++) {
+				share += (double) live[other] * matchups[handClass * HAND_CLASSES + other];
+				hands += live[other];
+			}
+			equity[handClass * MAX_OPPONENTS] = (float) (share / hands);
+		}
+	}
+
+	/**
+	 * Gets the class of two hole cards.
+	 * @param holeCards The hole cards as a {@link CardSet}
+	 * @return The class number (0 to 168)
+	 * @throws IllegalArgumentException if there are not exactly two cards
+	 */
+	public static int classOf(long holeCards) {
+		if (CardSet.count(holeCards) != 2) {
+			throw new IllegalArgumentException("Need exactly two hole cards");
+		}
+		int first = CardSet.firstCard(holeCards);
+		int second = CardSet.lastCard(holeCards);
+		int rank1 = CardSet.rankOf(first);
+		int rank2 = CardSet.rankOf(second);
+		return classOf(Math.max(rank1, rank2), Math.min(rank1, rank2),
+			CardSet.suitOf(first) == CardSet.suitOf(second));
+	}
+
+	/**
+	 * Gets the class of a starting hand described by its ranks.
+	 * @param highRank The higher rank (2-14)
+	 * @param lowRank The lower rank (2-14), equal to the higher for a pair
+	 * @param suited Whether the cards share a suit; ignored for a pair
+	 * @return The class number (0 to 168)
+	 */
+	public static int classOf(int highRank, int lowRank, boolean suited) {
+		int high = 14 - highRank;
+		int low = 14 - lowRank;
+		return suited || high == low ? high * RANKS + low : low * RANKS + high;
+	}
+
+	/**
+	 * Names a class in the usual shorthand, e.g. "AKs", "T9o" or "77".
+	 * @param handClass The class number
+	 * @return The name
+	 */
+	public static String describe(int handClass) {
+		int row = handClass / RANKS;
+		int column = handClass % RANKS;
+		char high = RANK_NAMES.charAt(12 - Math.min(row, column));
+		char low = RANK_NAMES.charAt(12 - Math.max(row, column));
+		if (row == column) {
+			return "" + high + low;
+		}
+		return "" + high + low + (row < column ? 's' : 'o');
+	}
+
+	/**
+	 * Gets how many hands of two hole cards fall in a class:
+	 * 6 for a pair, 4 for suited and 12 for offsuit hands.
+	 * @param handClass The class number
+	 * @return The number of hands
+	 */
+	public static int combos(int handClass) {
+		int row = handClass / RANKS;
+		int column = handClass % RANKS;
+		return row == column ? 6 : row < column ? 4 : 12;
+	}
+
+	/**
+	 * Gets one hand of a class, the first in suit order.
+	 * @param handClass The class number
+	 * @return The hole cards as a {@link CardSet}
+	 */
+	public static long representative(int handClass) {
+		int row = handClass / RANKS;
+		int column = handClass % RANKS;
+		int high = 14 - Math.min(row, column);
+		int low = 14 - Math.max(row, column);
+		int lowSuit = row < column ? 0 : 1;
+		return (1L << CardSet.index(high, 0)) | (1L << CardSet.index(low, lowSuit));
+	}
+
+	/** Gets the runouts sampled per multiway figure when the table was worked out */
+	public int getSamples() {
+		return samples;
+	}
+
+	/**
+	 * Gets a class's equity against a number of random hands.
+	 * @param handClass The class number
+	 * @param opponents The number of opponents (1 to {@link #MAX_OPPONENTS})
+	 * @return The expected share of the pot
+	 */
+	public float getEquity(int handClass, int opponents) {
+		if (opponents < 1 || opponents > MAX_OPPONENTS) {
+			throw new IllegalArgumentException("opponents must be between 1 and " + MAX_OPPONENTS);
+		}
+		return equity.get(handClass * MAX_OPPONENTS + opponents - 1);
+	}
+
+	/**
+	 * Gets the equity of two hole cards against a number of random hands.
+	 * @param holeCards The hole cards as a {@link CardSet}
+	 * @param opponents The number of opponents (1 to {@link #MAX_OPPONENTS})
+	 * @return The expected share of the pot
+	 */
+	public float getEquity(long holeCards, int opponents) {
+		return getEquity(classOf(holeCards), opponents);
+	}
+
+	/**
+	 * Gets a class's heads-up equity against another class.
+	 * @param handClass The class number
+	 * @param opponentClass The opponent's class number
+	 * @return The expected share of the pot
+	 */
+	public float getMatchup(int handClass, int opponentClass) {
+		return matchups.get(handClass * HAND_CLASSES + opponentClass);
+	}
+
+	/**
+	 * Gets a class's rank by heads-up equity against a random hand.
+	 * @param handClass The class number
+	 * @return The rank, 1 for the strongest class up to 169
+	 */
+	public int getRank(int handClass) {
+		return ranks[handClass];
+	}
+
+	/**
+	 * Writes the table to a file, creating its directory if needed.
+	 * @param path The file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(Path path) throws IOException {
+		TableFile.write(path, KIND, VERSION, payload);
+	}
+
+	/**
+	 * Maps a table written by {@link #save}.
+	 * @param path The file
+	 * @return The table
+	 * @throws IOException if the file cannot be read, or is stale or damaged
+	 */
+	public static PreflopTable load(Path path) throws IOException {
+		return new PreflopTable(TableFile.open(path, KIND, VERSION, PAYLOAD_BYTES));
+	}
+
+	/**
+	 * Works the table out and writes it, so that later runs start with it.
+	 * Arguments: the file (default {@link #defaultPath()}) and the samples per multiway figure.
+	 */
+	public static void main(String[] args) throws IOException {
+		Path path = args.length > 0 ? Paths.get(args[0]) : defaultPath();
+		int samples = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SAMPLES;
+		long start = System.nanoTime();
+		PreflopTable table = compute(samples, Runtime.getRuntime().availableProcessors(), DEFAULT_SEED);
+		table.save(path);
+		System.out.printf("Wrote %s (%d samples per multiway figure) in %.1f s%n",
+			path, samples, (System.nanoTime() - start) / 1e9);
+	}
+}
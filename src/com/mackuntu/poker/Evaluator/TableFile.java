@@ -0,0 +1,178 @@
+package com.mackuntu.poker.Evaluator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Binary files holding precomputed lookup tables, so a JVM can open a table
+ * in milliseconds instead of building it. A file is mapped read-only with
+ * {@link FileChannel#map}, so its contents stay outside the heap and every
+ * process reading it shares the same pages of the operating system's cache.
+ *
+ * A file starts with a fixed header: a magic number, the format version, the
+ * kind of table, the table's own version, the payload length and a CRC32 of
+ * the payload. A file whose header, size or checksum does not match what
+ * the reader expects is stale or damaged, and {@link #load} builds and writes
+ * the table again. Files are written to a temporary file first and then moved
+ * into place, so another process never maps one half written, and are made
+ * readable by everyone so other users' processes can map them too.
+ * Everything is little-endian.
+ *
+ * Files are kept in the same directory wherever the JVM was started from:
+ * the poker.tables system property, or else "poker" in the user's cache
+ * directory ($XDG_CACHE_HOME, or .cache in the home directory).
+ */
+final class TableFile {
+	/** "PKTB" */
+	private static final int MAGIC = 0x504B5442;
+	private static final int FORMAT = 1;
+	static final int HEADER_BYTES = 32;
+
+	private TableFile() {
+	}
+
+	/**
+	 * Gets the path of a table file in the table directory: the poker.tables
+	 * system property, or else "poker" in the user's cache directory.
+	 * @param name The file name
+	 * @return The path
+	 */
+	static Path path(String name) {
+		String directory = System.getProperty("poker.tables");
+		if (directory != null) {
+			return Paths.get(directory, name);
+		}
+		String cache = System.getenv("XDG_CACHE_HOME");
+		Path cacheDirectory = cache != null && !cache.isEmpty()
+			? Paths.get(cache) : Paths.get(System.getProperty("user.home"), ".cache");
+		return cacheDirectory.resolve("poker").resolve(name);
+	}
+
+	/**
+	 * Creates an empty payload to fill in and pass to {@link #write}.
+	 * @param bytes The payload size
+	 * @return A little-endian buffer
+	 */
+	static ByteBuffer allocate(int bytes) {
+		return ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Maps a table file and checks it.
+	 * @param path The file
+	 * @param kind The kind of table expected
+	 * @param version The table version expected
+	 * @param bytes The payload size expected, so a layout changed without a new version is caught
+	 * @return The payload, read-only and little-endian
+	 * @throws IOException if the file cannot be read, or is not the expected table or is damaged
+	 */
+	static ByteBuffer open(Path path, int kind, int version, long bytes) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_BYTES) {
+				throw new IOException("Not a table file: " + path);
+			}
+			ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+			if (file.getInt(0) != MAGIC || file.getInt(4) != FORMAT) {
+				throw new IOException("Not a table file of format " + FORMAT + ": " + path);
+			}
+			if (file.getInt(8) != kind || file.getInt(12) != version) {
+				throw new IOException("Stale table file: " + path);
+			}
+			long length = file.getLong(16);
+			if (length != size - HEADER_BYTES) {
+				throw new IOException("Truncated table file: " + path);
+			}
+			if (length != bytes) {
+				throw new IOException("Stale table file of " + length + " bytes, expected " + bytes + ": " + path);
+			}
+			ByteBuffer payload = file.position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN);
+			if (checksum(payload) != file.getInt(24)) {
+				throw new IOException("Damaged table file: " + path);
+			}
+			return payload;
+		}
+	}
+
+	/**
+	 * Writes a table file, replacing any file already there.
+	 * @param path The file
+	 * @param kind The kind of table
+	 * @param version The table version
+	 * @param payload The table, from position 0 to its limit
+	 * @throws IOException if the file cannot be written
+	 */
+	static void write(Path path, int kind, int version, ByteBuffer payload) throws IOException {
+		Path directory = path.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		ByteBuffer body = payload.duplicate().position(0);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC).putInt(FORMAT).putInt(kind).putInt(version)
+			.putLong(body.remaining()).putInt(checksum(body)).putInt(0).flip();
+		Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+				while (header.hasRemaining()) {
+					channel.write(header);
+				}
+				while (body.hasRemaining()) {
+					channel.write(body);
+				}
+			}
+			// Temporary files are private to their owner, which would keep other users from sharing the table
+			if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+				Files.setPosixFilePermissions(temporary, PosixFilePermissions.fromString("rw-r--r--"));
+			}
+			Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Opens a table file, building and writing the table first if the file
+	 * is missing, stale or damaged. If it cannot be written the failure is
+	 * reported on stderr, the table built is used from memory, and the next
+	 * run tries again.
+	 * @param path The file
+	 * @param kind The kind of table
+	 * @param version The table version
+	 * @param bytes The payload size
+	 * @param build Builds the payload
+	 * @return The payload, little-endian
+	 * @throws IllegalStateException if the payload built is not the size given
+	 */
+	static ByteBuffer load(Path path, int kind, int version, long bytes, Supplier<ByteBuffer> build) {
+		try {
+			return open(path, kind, version, bytes);
+		} catch (IOException stale) {
+			ByteBuffer payload = build.get();
+			if (payload.limit() != bytes) {
+				throw new IllegalStateException("Built " + payload.limit() + " bytes of table, expected " + bytes);
+			}
+			try {
+				write(path, kind, version, payload);
+				return open(path, kind, version, bytes);
+			} catch (IOException failed) {
+				System.err.println("Could not write table file " + path + ", so it will be built again next run: " + failed);
+				return payload.duplicate().position(0).order(ByteOrder.LITTLE_ENDIAN);
+			}
+		}
+	}
+
+	private static int checksum(ByteBuffer payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload.duplicate());
+		return (int) crc.getValue();
+	}
+}
@@ -1,104 +1,114 @@
 package com.mackuntu.poker.Player;
 
-import com.mackuntu.poker.Action.Action;
-import com.mackuntu.poker.Card.Card;
-import com.mackuntu.poker.Evaluator.HandEvaluator;
-import java.util.ArrayList;
-import java.util.List;
+import com.mackuntu.poker.Card.CardSet;
+import com.mackuntu.poker.Dealer.RandomStreams;
+import java.util.random.RandomGenerator;
 
 public class AggressiveStrategy implements PlayerStrategy {
+    /**
+     * Preflop strength, as a multiple of an even share of the pot, that makes
+     * a premium hand: six-handed about 88+, suited cards from T9s up and
+     * offsuit ones from QJo up
+     */
+    private static final float PREMIUM_STRENGTH = 1.3f;
+
+    private final RandomGenerator random;
+
+    public AggressiveStrategy() {
+        this(RandomStreams.create());
+    }
+
+    /**
+     * @param random The generator behind the strategy's bluffs
+     */
+    public AggressiveStrategy(RandomGenerator random) {
+        this.random = random;
+    }
+
     @Override
-    public Action decideAction(GameContext context) {
-        // Convert List to ArrayList for HandEvaluator
-        ArrayList<Card> allCards = new ArrayList<>(context.getHoleCards());
-        allCards.addAll(context.getCommunityCards());
-        
-        HandEvaluator eval = new HandEvaluator(allCards);
-        int handStrength = eval.getRanking();
+    public long decideAction(GameContext context) {
+        int handStrength = context.getHandRanking();
         
         // More aggressive pre-flop play
-        if (context.getCommunityCards().isEmpty()) {
+        if (CardSet.isEmpty(context.getCommunityCardSet())) {
             return handlePreFlop(context, handStrength);
         }
         
         return handlePostFlop(context, handStrength);
     }
     
-    private Action handlePreFlop(GameContext context, int handStrength) {
+    private long handlePreFlop(GameContext context, int handStrength) {
         int toCall = context.getCurrentBet() - context.getCommitted();
         
         // Always raise with strong hands
-        if (handStrength >= 3 || isPremiumStartingHand(context.getHoleCards())) {
-            Action raise = Action.RAISE;
-            raise.setAmount(Math.min(context.getPlayerMoney(), 
-                context.getCurrentBet() * 3));  // 3x raise
-            return raise;
+        if (handStrength >= 3 || isPremiumStartingHand(context)) {
+            return context.raiseTo(context.getCurrentBet() * 3);  // 3x raise
         }
         
         // Call with medium strength hands
         if (handStrength >= 1 && toCall <= context.getPlayerMoney() / 3) {
-            return Action.CALL;
+            return context.call();
         }
         
         // 50% chance to raise with any hand in late position
-        if (isLatePosition(context.getPosition()) && Math.random() > 0.5) {
-            Action raise = Action.RAISE;
-            raise.setAmount(Math.min(context.getPlayerMoney(), 
-                context.getCurrentBet() * 2));  // 2x raise
-            return raise;
+        if (isLatePosition(context.getPosition()) && random.nextDouble() > 0.5) {
+            return context.raiseTo(context.getCurrentBet() * 2);  // 2x raise
         }
         
         // Check if possible, otherwise fold
-        return toCall == 0 ? Action.CHECK : Action.FOLD;
+        return context.checkOrFold();
     }
     
-    private Action handlePostFlop(GameContext context, int handStrength) {
+    private long handlePostFlop(GameContext context, int handStrength) {
         int toCall = context.getCurrentBet() - context.getCommitted();
         
         // Always raise with strong hands
         if (handStrength >= 4) {
-            Action raise = Action.RAISE;
-            raise.setAmount(Math.min(context.getPlayerMoney(), 
-                context.getPotSize()));  // Pot-sized bet
-            return raise;
+            return context.raiseTo(context.getPotSize());  // Pot-sized bet
         }
         
         // Call with medium strength hands
         if (handStrength >= 2 && toCall <= context.getPlayerMoney() / 2) {
-            return Action.CALL;
+            return context.call();
         }
         
         // 30% chance to bluff raise
-        if (Math.random() > 0.7) {
-            Action raise = Action.RAISE;
-            raise.setAmount(Math.min(context.getPlayerMoney(), 
-                context.getPotSize() / 2));  // Half pot bet
-            return raise;
+        if (random.nextDouble() > 0.7) {
+            return context.raiseTo(context.getPotSize() / 2);  // Half pot bet
         }
         
         // Check if possible, otherwise fold
-        return toCall == 0 ? Action.CHECK : Action.FOLD;
+        return context.checkOrFold();
     }
     
-    private boolean isPremiumStartingHand(List<Card> cards) {
-        if (cards.size() != 2) return false;
-        Card c1 = cards.get(0);
-        Card c2 = cards.get(1);
+    private boolean isPremiumStartingHand(GameContext context) {
+        // More hands are premium than for the basic strategy
+        long cards = context.getHoleCardSet();
+        if (CardSet.count(cards) != 2) return false;
+        float strength = context.getPreflopStrength();
+        return Float.isNaN(strength) ? isPremiumByRank(cards) : strength >= PREMIUM_STRENGTH;
+    }
+
+    /** Judges a starting hand by its ranks alone, for when there is no preflop table */
+    private boolean isPremiumByRank(long cards) {
+        int first = CardSet.firstCard(cards);
+        int second = CardSet.lastCard(cards);
+        int rank1 = CardSet.rankOf(first);
+        int rank2 = CardSet.rankOf(second);
         
-        // More hands considered premium in aggressive strategy
         // Pocket pairs
-        if (c1.getNum() == c2.getNum()) {
-            return c1.getNum() >= 8;  // 88 or better
+        if (rank1 == rank2) {
+            return rank1 >= 8;  // 88 or better
         }
         
         // Suited cards
-        if (c1.getSuite() == c2.getSuite()) {
-            return c1.getNum() >= 10 && c2.getNum() >= 10;  // Any suited 10+ cards
+        if (CardSet.suitOf(first) == CardSet.suitOf(second)) {
+            return rank1 >= 10 && rank2 >= 10;  // Any suited 10+ cards
         }
         
         // High cards
-        return (c1.getNum() >= 12 && c2.getNum() >= 11) ||  // AK, AQ, AJ, KQ
-               (c1.getNum() >= 11 && c2.getNum() >= 12);    // Same in reverse order
+        return (rank1 >= 12 && rank2 >= 11) ||  // AK, AQ, AJ, KQ, KJ, QJ
+               (rank1 >= 11 && rank2 >= 12);    // Same in reverse order
     }
     
     private boolean isLatePosition(int position) {
@@ -1,28 +1,38 @@
 package com.mackuntu.poker.Player;
 
-import com.mackuntu.poker.Action.Action;
-import com.mackuntu.poker.Card.Card;
-import com.mackuntu.poker.Evaluator.HandEvaluator;
-import java.util.Random;
-import java.util.List;
-import java.util.ArrayList;
+import com.mackuntu.poker.Action.Decision;
+import com.mackuntu.poker.Card.CardSet;
+import com.mackuntu.poker.Dealer.RandomStreams;
+import java.util.random.RandomGenerator;
 
 public class BasicPokerStrategy implements PlayerStrategy {
-    private final Random random = new Random();
+    /**
+     * Preflop strength, as a multiple of an even share of the pot, that makes
+     * a premium hand: six-handed about TT+, AJs+, KJs+, QJs, AQo+ and KQo
+     */
+    private static final float PREMIUM_STRENGTH = 1.5f;
+
+    private final RandomGenerator random;
+
+    public BasicPokerStrategy() {
+        this(RandomStreams.create());
+    }
+
+    /**
+     * @param random The generator behind the strategy's random choices
+     */
+    public BasicPokerStrategy(RandomGenerator random) {
+        this.random = random;
+    }
     
     @Override
-    public Action decideAction(GameContext context) {
-        // Convert List to ArrayList for HandEvaluator
-        ArrayList<Card> allCards = new ArrayList<>(context.getHoleCards());
-        allCards.addAll(context.getCommunityCards());
-        
-        HandEvaluator eval = new HandEvaluator(allCards);
-        int handStrength = eval.getRanking();
+    public long decideAction(GameContext context) {
+        int handStrength = context.getHandRanking();
         double potOdds = calculatePotOdds(context);
         
         // Adjust hand strength for pre-flop
-        if (context.getCommunityCards().isEmpty()) {
-            if (isPremiumStartingHand(context.getHoleCards())) {
+        if (CardSet.isEmpty(context.getCommunityCardSet())) {
+            if (isPremiumStartingHand(context)) {
                 handStrength += 2;
             }
             if (isLatePosition(context.getPosition())) {
@@ -41,24 +51,33 @@ public class BasicPokerStrategy implements PlayerStrategy {
         return decideNormalAction(context, handStrength, potOdds, maxBet);
     }
     
-    private boolean isPremiumStartingHand(List<Card> cards) {
-        if (cards.size() != 2) return false;
-        Card c1 = cards.get(0);
-        Card c2 = cards.get(1);
+    private boolean isPremiumStartingHand(GameContext context) {
+        long cards = context.getHoleCardSet();
+        if (CardSet.count(cards) != 2) return false;
+        float strength = context.getPreflopStrength();
+        return Float.isNaN(strength) ? isPremiumByRank(cards) : strength >= PREMIUM_STRENGTH;
+    }
+
+    /** Judges a starting hand by its ranks alone, for when there is no preflop table */
+    private boolean isPremiumByRank(long cards) {
+        int first = CardSet.firstCard(cards);
+        int second = CardSet.lastCard(cards);
+        int rank1 = CardSet.rankOf(first);
+        int rank2 = CardSet.rankOf(second);
         
         // Pocket pairs
-        if (c1.getNum() == c2.getNum()) {
-            return c1.getNum() >= 10;  // JJ or better
+        if (rank1 == rank2) {
+            return rank1 >= 10;  // TT or better
         }
         
         // Suited high cards
-        if (c1.getSuite() == c2.getSuite()) {
-            return c1.getNum() >= 11 && c2.getNum() >= 11;  // QK suited or better
+        if (CardSet.suitOf(first) == CardSet.suitOf(second)) {
+            return rank1 >= 11 && rank2 >= 11;  // QJ suited or better
         }
         
         // High cards
-        return (c1.getNum() >= 13 && c2.getNum() >= 12) ||  // AK, AQ
-               (c1.getNum() >= 12 && c2.getNum() >= 13);    // AK, AQ (reverse order)
+        return (rank1 >= 13 && rank2 >= 12) ||  // AK, AQ, KQ
+               (rank1 >= 12 && rank2 >= 13);    // Same in reverse order
     }
     
     private boolean isLatePosition(int position) {
@@ -88,68 +107,60 @@ public class BasicPokerStrategy implements PlayerStrategy {
         return random.nextDouble() < Math.min(0.3, Math.max(0.05, baseProb));
     }
     
-    private Action decideBluffAction(GameContext context, int maxBet) {
+    private long decideBluffAction(GameContext context, int maxBet) {
         int toCall = context.getCurrentBet() - context.getCommitted();
         
         if (isLatePosition(context.getPosition()) && toCall <= context.getPlayerMoney()/4) {
-            Action raise = Action.RAISE;
-            raise.setAmount(Math.min(context.getPlayerMoney()/3, maxBet));
-            return raise;
+            return context.raiseTo(Math.min(context.getPlayerMoney()/3, maxBet));
         } else if (toCall == 0) {
-            return Action.CHECK;
+            return context.checkOrFold();
         } else if (toCall <= context.getPlayerMoney()/5) {
-            return Action.CALL;
+            return context.call();
         } else {
-            return Action.FOLD;
+            return Decision.FOLD;
         }
     }
     
-    private Action decideNormalAction(GameContext context, int handStrength, double potOdds, int maxBet) {
+    private long decideNormalAction(GameContext context, int handStrength, double potOdds, int maxBet) {
         int toCall = context.getCurrentBet() - context.getCommitted();
         
         if (handStrength >= 7) {  // Very strong hands
-            Action raise = Action.RAISE;
-            raise.setAmount(Math.min(context.getPlayerMoney(), maxBet));
-            return raise;
+            return context.raiseTo(Math.min(context.getPlayerMoney(), maxBet));
         }
         else if (handStrength >= 5) {  // Strong hands
             if (toCall > context.getPlayerMoney()/2) {
-                return Action.CALL;
+                return context.call();
             } else {
-                Action raise = Action.RAISE;
-                raise.setAmount(Math.min(context.getPlayerMoney()/2, maxBet));
-                return raise;
+                return context.raiseTo(Math.min(context.getPlayerMoney()/2, maxBet));
             }
         }
         else if (handStrength >= 3) {  // Medium hands
             if (toCall > context.getPlayerMoney()/3) {
-                return Action.FOLD;
+                return Decision.FOLD;
             } else if (potOdds < 0.2) {
-                return Action.CALL;
+                return context.call();
             } else {
-                Action raise = Action.RAISE;
-                raise.setAmount(Math.min(context.getPlayerMoney()/4, maxBet));
-                return raise;
+                return context.raiseTo(Math.min(context.getPlayerMoney()/4, maxBet));
             }
         }
         else if (handStrength >= 1) {  // Weak hands
             if (toCall > context.getPlayerMoney()/4) {
-                return Action.FOLD;
+                return Decision.FOLD;
             } else if (toCall == 0) {
-                return Action.CHECK;
+                return context.checkOrFold();
             } else if (potOdds < 0.15) {
-                return Action.CALL;
+                return context.call();
             } else {
-                return Action.FOLD;
+                return Decision.FOLD;
             }
         }
         else {  // Very weak hands
             if (toCall == 0) {
-                return Action.CHECK;
+                return context.checkOrFold();
             } else if (potOdds < 0.1 && isLatePosition(context.getPosition())) {
-                return Action.CALL;
+                return context.call();
             } else {
-                return Action.FOLD;
+                return Decision.FOLD;
             }
         }
     }
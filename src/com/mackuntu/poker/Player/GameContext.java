@@ -1,89 +1,263 @@
 package com.mackuntu.poker.Player;
 
+import com.mackuntu.poker.Action.Action;
+import com.mackuntu.poker.Action.Decision;
+import com.mackuntu.poker.Action.LegalActions;
 import com.mackuntu.poker.Card.Card;
+import com.mackuntu.poker.Card.CardSet;
+import com.mackuntu.poker.Evaluator.HandEvaluator;
+import com.mackuntu.poker.Evaluator.HandState;
+import com.mackuntu.poker.Evaluator.PreflopTable;
+import com.mackuntu.poker.game.GameState;
 import java.util.List;
-import java.util.ArrayList;
 
 /**
- * Immutable context object containing all information needed for decision making
+ * What a strategy sees when deciding: its own cards and seat, the actions the
+ * betting rules allow, and through a {@link TableView} every stack and bet at
+ * the table. Each player keeps one context that the game refreshes before each
+ * decision, so deciding allocates nothing; strategies should not keep it past
+ * {@link PlayerStrategy#decideAction}. A context made with the {@link Builder}
+ * stands alone and sees only the player's own seat.
+ * Cards are held as {@link CardSet} longs; the list getters build a new list per call.
  */
 public class GameContext {
-    private final List<Card> holeCards;
-    private final List<Card> communityCards;
-    private final int currentBet;
-    private final int playerMoney;
-    private final int committed;
-    private final int position;
-    private final int potSize;
-    
+    private final TableView table;
+    private final int seat;
+    private long holeCards;
+    private int position;
+    private int legalActions;
+    private int minRaise;
+    private int maxRaise;
+
+    private GameContext(TableView table, int seat) {
+        this.table = table;
+        this.seat = seat;
+    }
+
+    /**
+     * Creates the reusable context of a seat, read through a view of its table.
+     * Whoever creates it calls {@link #update} before each decision.
+     */
+    public static GameContext forSeat(TableView table, int seat) {
+        return new GameContext(table, seat);
+    }
+
     private GameContext(Builder builder) {
-        this.holeCards = List.copyOf(builder.holeCards);
-        this.communityCards = List.copyOf(builder.communityCards);
-        this.currentBet = builder.currentBet;
-        this.playerMoney = builder.playerMoney;
-        this.committed = builder.committed;
-        this.position = builder.position;
-        this.potSize = builder.potSize;
+        this(new OwnSeat(builder), 0);
+        update(builder.holeCards, builder.position, builder.legalActions, builder.minRaise);
     }
-    
+
+    /**
+     * Refreshes the player's own part of the context for a new decision.
+     * Only the game that owns the context calls this.
+     * @param legalActions A {@link LegalActions} mask, or -1 to work it out from the stack and bet
+     * @param minRaise The smallest total bet a raise can make, or -1 for double the bet
+     */
+    public void update(long holeCards, int position, int legalActions, int minRaise) {
+        this.holeCards = holeCards;
+        this.position = position;
+        int currentBet = getCurrentBet();
+        // Without rules from the game, a raise must at least double the bet
+        int minimumRaise = minRaise < 0 ? currentBet : minRaise - currentBet;
+        this.legalActions = legalActions < 0
+            ? LegalActions.compute(currentBet, getCommitted(), getPlayerMoney(), minimumRaise)
+            : legalActions;
+        this.minRaise = LegalActions.minRaiseTo(currentBet, minimumRaise);
+        this.maxRaise = LegalActions.maxRaiseTo(getCommitted(), getPlayerMoney());
+    }
+
+    TableView getTable() { return table; }
+
     // Getters
-    public List<Card> getHoleCards() { return holeCards; }
-    public List<Card> getCommunityCards() { return communityCards; }
-    public int getCurrentBet() { return currentBet; }
-    public int getPlayerMoney() { return playerMoney; }
-    public int getCommitted() { return committed; }
+    public List<Card> getHoleCards() { return CardSet.toList(holeCards); }
+    public List<Card> getCommunityCards() { return CardSet.toList(getCommunityCardSet()); }
+    public long getHoleCardSet() { return holeCards; }
+    public long getCommunityCardSet() { return table.getCommunityCardSet(); }
+    /**
+     * Gets the strength of the player's hand on the board dealt so far, as
+     * {@link HandEvaluator#evaluate(long)} scores it. The table scores the hole
+     * cards on its own board, so nothing is re-evaluated from scratch.
+     */
+    public int getHandScore() { return table.scoreHand(holeCards); }
+    /** Gets the category of the player's current hand, as {@link HandEvaluator#getRanking(int)} gives it */
+    public int getHandRanking() { return HandEvaluator.getRanking(getHandScore()); }
+    /**
+     * Gets the preflop strength of the hole cards, looked up in {@link PreflopTable}:
+     * their equity against the other players still able to bet, as a multiple
+     * of an even share of the pot, so 1 is an average hand however many are in.
+     * The table is never built here; see {@link PreflopTable#find()}.
+     * @return The strength, or NaN if no preflop table has been built
+     */
+    public float getPreflopStrength() {
+        PreflopTable preflop = PreflopTable.find();
+        if (preflop == null) {
+            return Float.NaN;
+        }
+        int opponents = Math.max(1, Math.min(PreflopTable.MAX_OPPONENTS, getActivePlayerCount() - 1));
+        return preflop.getEquity(holeCards, opponents) * (opponents + 1);
+    }
+    public int getCurrentBet() { return table.getCurrentBet(); }
+    public int getPlayerMoney() { return table.getStack(seat); }
+    public int getCommitted() { return table.getCommitted(seat); }
     public int getPosition() { return position; }
-    public int getPotSize() { return potSize; }
-    
+    public int getPotSize() { return table.getPot(); }
+    /** Gets the legal actions as a {@link LegalActions} mask */
+    public int getLegalActions() { return legalActions; }
+    public boolean isLegal(Action action) { return LegalActions.contains(legalActions, action); }
+    /** Gets the smallest total bet a raise can make */
+    public int getMinRaise() { return minRaise; }
+    /** Gets the largest total bet a raise can make: the whole stack */
+    public int getMaxRaise() { return maxRaise; }
+
+    // The rest of the table
+    /** Gets the player's seat, 0 for a context made with the {@link Builder} */
+    public int getSeat() { return seat; }
+    public int getSeatCount() { return table.getSeatCount(); }
+    /** Gets the chips a seat has left behind */
+    public int getStack(int seat) { return table.getStack(seat); }
+    /** Gets the chips a seat has put in on this street */
+    public int getCommitted(int seat) { return table.getCommitted(seat); }
+    /** Gets the number of players still able to bet, this one included */
+    public int getActivePlayerCount() { return table.getActivePlayerCount(); }
+    public GameState getStreet() { return table.getStreet(); }
+
+    /**
+     * Raises to an amount, moved inside the raise bounds. If raising is not
+     * legal, calls instead, then checks, then folds.
+     * @param amount The total bet wanted
+     * @return A legal {@link Decision}
+     */
+    public long raiseTo(int amount) {
+        if (!isLegal(Action.RAISE)) {
+            return call();
+        }
+        return Decision.raiseTo(Math.max(minRaise, Math.min(maxRaise, amount)));
+    }
+
+    /**
+     * Calls if there is a bet, all-in for less if the stack is short of it,
+     * otherwise checks if that is legal, otherwise folds.
+     * @return A legal {@link Decision}
+     */
+    public long call() {
+        return isLegal(Action.CALL) ? Decision.CALL : checkOrFold();
+    }
+
+    /**
+     * Checks if that is legal, otherwise folds.
+     * @return A legal {@link Decision}
+     */
+    public long checkOrFold() {
+        return isLegal(Action.CHECK) ? Decision.CHECK : Decision.FOLD;
+    }
+
     public static class Builder {
-        private List<Card> holeCards = new ArrayList<>();
-        private List<Card> communityCards = new ArrayList<>();
+        private long holeCards = CardSet.EMPTY;
+        private long communityCards = CardSet.EMPTY;
         private int currentBet;
         private int playerMoney;
         private int committed;
         private int position;
         private int potSize;
-        
+        private int legalActions = -1;
+        private int minRaise = -1;
+
         public Builder holeCards(List<Card> holeCards) {
+            this.holeCards = CardSet.of(holeCards);
+            return this;
+        }
+
+        public Builder holeCards(long holeCards) {
             this.holeCards = holeCards;
             return this;
         }
-        
+
         public Builder communityCards(List<Card> communityCards) {
+            this.communityCards = CardSet.of(communityCards);
+            return this;
+        }
+
+        public Builder communityCards(long communityCards) {
             this.communityCards = communityCards;
             return this;
         }
-        
+
         public Builder currentBet(int currentBet) {
             this.currentBet = currentBet;
             return this;
         }
-        
+
         public Builder playerMoney(int playerMoney) {
             this.playerMoney = playerMoney;
             return this;
         }
-        
+
         public Builder committed(int committed) {
             this.committed = committed;
             return this;
         }
-        
+
         public Builder position(int position) {
-            if (position < 0 || position > 5) {
-                throw new IllegalArgumentException("Position must be between 0 and 5");
+            if (position < 0) {
+                throw new IllegalArgumentException("Position must not be negative");
             }
             this.position = position;
             return this;
         }
-        
+
         public Builder potSize(int potSize) {
             this.potSize = potSize;
             return this;
         }
-        
+
+        /**
+         * Sets the legal actions worked out by the game's betting rules.
+         * Without this they are worked out from the bet, stack and commitment.
+         * @param legalActions A {@link LegalActions} mask
+         * @param minRaise The smallest total bet a raise can make
+         */
+        public Builder legalActions(int legalActions, int minRaise) {
+            this.legalActions = legalActions;
+            this.minRaise = minRaise;
+            return this;
+        }
+
         public GameContext build() {
             return new GameContext(this);
         }
     }
-} 
\ No newline at end of file
+
+    /** The table seen by a context made with the {@link Builder}: only the player's seat */
+    private static final class OwnSeat implements TableView {
+        private final long communityCards;
+        private final HandState board;
+        private final int currentBet;
+        private final int playerMoney;
+        private final int committed;
+        private final int potSize;
+
+        OwnSeat(Builder builder) {
+            this.communityCards = builder.communityCards;
+            this.board = new HandState(builder.communityCards);
+            this.currentBet = builder.currentBet;
+            this.playerMoney = builder.playerMoney;
+            this.committed = builder.committed;
+            this.potSize = builder.potSize;
+        }
+
+        @Override public int getSeatCount() { return 1; }
+        @Override public int getStack(int seat) { return playerMoney; }
+        @Override public int getCommitted(int seat) { return committed; }
+        @Override public int getActivePlayerCount() { return 1; }
+        @Override public long getCommunityCardSet() { return communityCards; }
+        @Override public int scoreHand(long holeCards) { return board.scoreWith(holeCards); }
+        @Override public int getCurrentBet() { return currentBet; }
+        @Override public int getPot() { return potSize; }
+
+        @Override
+        public GameState getStreet() {
+            int cards = CardSet.count(communityCards);
+            return cards < 3 ? GameState.START : cards == 3 ? GameState.FLOP : cards == 4 ? GameState.TURN : GameState.RIVER;
+        }
+    }
+}
@@ -6,8 +6,10 @@ package com.mackuntu.poker.Player;
 
 import java.util.ArrayList;
 
-import com.mackuntu.poker.Action.Action;
+import com.mackuntu.poker.Action.Decision;
 import com.mackuntu.poker.Card.Card;
+import com.mackuntu.poker.Card.CardSet;
+import com.mackuntu.poker.Evaluator.Board;
 
 public class Player {
 	private final String name;
@@ -15,32 +17,63 @@ public class Player {
 	private PlayerState state;
 	private int money;
 	private ArrayList<Card> cards;
+	private long cardSet;  // Hole cards as a CardSet, kept in step with the list
 	private int committed;  // Total amount committed to current hand
 	private String lastAction;
-	private int position;  // Table position (0-5 in 6-max)
+	private int position;  // Table position
+	private GameContext context;  // Refreshed for each decision at a live table
 	
 	public Player(String name, PlayerStrategy strategy) {
 		this.name = name;
 		this.strategy = strategy;
 		this.money = 0;
 		this.cards = new ArrayList<>();
+		this.cardSet = CardSet.EMPTY;
 		this.state = PlayerState.ACTIVE;
 		this.committed = 0;
 	}
 	
-	public Action getAction(int currentBet, ArrayList<Card> communityCards, int potSize) {
-		if (!canAct()) return null;
+	public long getAction(int currentBet, ArrayList<Card> communityCards, int potSize) {
+		return getAction(currentBet, CardSet.of(communityCards), potSize);
+	}
+	
+	/**
+	 * Asks the player's strategy for an action.
+	 * @param currentBet The bet to match on this street
+	 * @param communityCards The board as a CardSet
+	 * @param potSize The current pot
+	 * @return The chosen {@link Decision}, or {@link Decision#NONE} if the player cannot act
+	 */
+	public long getAction(int currentBet, long communityCards, int potSize) {
+		if (!canAct()) return Decision.NONE;
 		
-		GameContext context = new GameContext.Builder()
-			.holeCards(cards)
+		return strategy.decideAction(new GameContext.Builder()
+			.holeCards(cardSet)
 			.communityCards(communityCards)
 			.currentBet(currentBet)
 			.playerMoney(money)
 			.committed(committed)
 			.position(position)
 			.potSize(potSize)
-			.build();
+			.build());
+	}
+	
+	/**
+	 * Asks the player's strategy for an action at a live table. The player's
+	 * context is kept and refreshed for each decision rather than rebuilt.
+	 * @param table The table, read as the strategy decides
+	 * @param seat The player's seat at the table
+	 * @param legalActions The legal actions as a {@link com.mackuntu.poker.Action.LegalActions} mask
+	 * @param minRaise The smallest total bet a raise can make
+	 * @return The chosen {@link Decision}, or {@link Decision#NONE} if the player cannot act
+	 */
+	public long getAction(TableView table, int seat, int legalActions, int minRaise) {
+		if (!canAct()) return Decision.NONE;
 		
+		if (context == null || context.getTable() != table || context.getSeat() != seat) {
+			context = GameContext.forSeat(table, seat);
+		}
+		context.update(cardSet, position, legalActions, minRaise);
 		return strategy.decideAction(context);
 	}
 	
@@ -84,6 +117,7 @@ public class Player {
 	public void fold() {
 		state = PlayerState.FOLDED;
 		cards = new ArrayList<>();
+		cardSet = CardSet.EMPTY;
 		lastAction = "FOLD";
 	}
 	
@@ -93,6 +127,7 @@ public class Player {
 	 */
 	public void reInit() {
 		cards = new ArrayList<>();
+		cardSet = CardSet.EMPTY;
 		state = money > 0 ? PlayerState.ACTIVE : PlayerState.OUT_OF_MONEY;
 		committed = 0;
 		lastAction = null;
@@ -100,6 +135,7 @@ public class Player {
 	
 	public void addCard(Card card) {
 		cards.add(card);
+		cardSet = CardSet.add(cardSet, card);
 	}
 	
 	/**
@@ -125,6 +161,9 @@ public class Player {
 		this.state = money > 0 ? PlayerState.ACTIVE : PlayerState.OUT_OF_MONEY;
 	}
 	public ArrayList<Card> getCards() { return new ArrayList<>(cards); }
+	public long getCardSet() { return cardSet; }
+	/** Gets the score of the best hand the player's hole cards make on a board */
+	public int getHandScore(Board board) { return board.scoreWith(cardSet); }
 	public int getCommitted() { return committed; }
 	public void clearCommitted() { committed = 0; }
 	public String getLastAction() { return lastAction; }
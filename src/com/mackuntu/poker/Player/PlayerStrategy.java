@@ -1,12 +1,12 @@
 package com.mackuntu.poker.Player;
 
-import com.mackuntu.poker.Action.Action;
+import com.mackuntu.poker.Action.Decision;
 
 public interface PlayerStrategy {
     /**
      * Determines the next action for a player based on game state.
      * @param gameState Current state of the game needed for decision making
-     * @return The chosen action
+     * @return The chosen action, packed as a {@link Decision}
      */
-    Action decideAction(GameContext gameState);
+    long decideAction(GameContext gameState);
 } 
\ No newline at end of file
@@ -1,13 +1,26 @@
 package com.mackuntu.poker.Player;
 
 import com.mackuntu.poker.Action.Action;
-import java.util.Random;
+import com.mackuntu.poker.Action.Decision;
+import com.mackuntu.poker.Dealer.RandomStreams;
+import java.util.random.RandomGenerator;
 
 public class RandomPlayerStrategy implements PlayerStrategy {
-    private final Random random = new Random();
+    private final RandomGenerator random;
+
+    public RandomPlayerStrategy() {
+        this(RandomStreams.create());
+    }
+
+    /**
+     * @param random The generator behind the strategy's random choices
+     */
+    public RandomPlayerStrategy(RandomGenerator random) {
+        this.random = random;
+    }
     
     @Override
-    public Action decideAction(GameContext context) {
+    public long decideAction(GameContext context) {
         int toCall = context.getCurrentBet() - context.getCommitted();
         
         // If there's a bet to call
@@ -15,33 +28,22 @@ public class RandomPlayerStrategy implements PlayerStrategy {
             // 40% chance to call, 20% chance to raise, 40% to fold
             double rand = random.nextDouble();
             
-            if (rand < 0.4 && toCall <= context.getPlayerMoney()) {
-                return Action.CALL;
-            } else if (rand < 0.6 && context.getPlayerMoney() > toCall * 2) {
-                Action raise = Action.RAISE;
+            if (rand < 0.4 && context.isLegal(Action.CALL)) {
+                return Decision.CALL;
+            } else if (rand < 0.6 && context.isLegal(Action.RAISE)) {
                 // Raise between 2x and 3x the current bet
-                int raiseAmount = context.getCurrentBet() * 2 + 
-                    random.nextInt(context.getCurrentBet());
-                raiseAmount = Math.min(raiseAmount, context.getPlayerMoney());
-                raise.setAmount(raiseAmount);
-                return raise;
+                return context.raiseTo(context.getCurrentBet() * 2 + random.nextInt(context.getCurrentBet()));
             } else {
-                return Action.FOLD;
+                return Decision.FOLD;
             }
         }
         
         // No bet to call - can check or raise
-        if (random.nextDouble() < 0.3) {
-            Action raise = Action.RAISE;
+        if (random.nextDouble() < 0.3 && context.isLegal(Action.RAISE)) {
             // Random raise between 2x and 4x the big blind
-            int raiseAmount = Math.min(
-                context.getPlayerMoney(),
-                context.getCurrentBet() + (random.nextInt(3) + 2) * context.getCurrentBet()
-            );
-            raise.setAmount(raiseAmount);
-            return raise;
+            return context.raiseTo(context.getCurrentBet() + (random.nextInt(3) + 2) * context.getCurrentBet());
         } else {
-            return Action.CHECK;
+            return context.checkOrFold();
         }
     }
 } 
\ No newline at end of file
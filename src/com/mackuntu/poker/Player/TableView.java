@@ -0,0 +1,40 @@
+package com.mackuntu.poker.Player;
+
+import com.mackuntu.poker.game.GameState;
+
+/**
+ * A read-only view of the table a player sits at, answered from the live
+ * game state. A {@link GameContext} reads through it, so strategies can see
+ * every seat without anything being copied for the decision.
+ */
+public interface TableView {
+    /** Gets the number of seats at the table */
+    int getSeatCount();
+
+    /** Gets the chips a seat has left behind */
+    int getStack(int seat);
+
+    /** Gets the chips a seat has put in on this street */
+    int getCommitted(int seat);
+
+    /** Gets the number of players still able to bet */
+    int getActivePlayerCount();
+
+    /** Gets the community cards as a {@link com.mackuntu.poker.Card.CardSet} */
+    long getCommunityCardSet();
+
+    /**
+     * Scores hole cards on the community cards dealt so far, as
+     * {@link com.mackuntu.poker.Evaluator.HandEvaluator#evaluate(long)} would
+     * score the two together.
+     */
+    int scoreHand(long holeCards);
+
+    /** Gets the bet to match on this street */
+    int getCurrentBet();
+
+    int getPot();
+
+    /** Gets the street being bet on: START before the flop, then FLOP, TURN or RIVER */
+    GameState getStreet();
+}
@@ -1,28 +1,37 @@
 package com.mackuntu.poker.Player;
 
 import com.mackuntu.poker.Action.Action;
+import com.mackuntu.poker.Action.Decision;
 
 public class TestStrategy implements PlayerStrategy {
-    private Action forcedAction;
+    private long forcedAction;
     
     public TestStrategy() {
-        this.forcedAction = null;
+        this.forcedAction = Decision.NONE;
     }
     
     public void setForcedAction(Action action) {
-        this.forcedAction = action;
+        setForcedAction(Decision.of(action));
+    }
+    
+    /**
+     * Forces the next decision, such as a {@link Decision#raiseTo} raise.
+     * @param decision The packed decision to return once
+     */
+    public void setForcedAction(long decision) {
+        this.forcedAction = decision;
     }
     
     @Override
-    public Action decideAction(GameContext context) {
-        if (forcedAction != null) {
-            Action action = forcedAction;
-            forcedAction = null;  // Clear after use
+    public long decideAction(GameContext context) {
+        if (forcedAction != Decision.NONE) {
+            long action = forcedAction;
+            forcedAction = Decision.NONE;  // Clear after use
             return action;
         }
         
         // Default behavior: check if possible, fold otherwise
         return context.getCurrentBet() == context.getCommitted() ? 
-            Action.CHECK : Action.FOLD;
+            Decision.CHECK : Decision.FOLD;
     }
-} 
\ No newline at end of file
+}
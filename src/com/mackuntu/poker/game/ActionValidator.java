@@ -1,8 +1,16 @@
 package com.mackuntu.poker.game;
 
-import com.mackuntu.poker.Action.Action;
 import com.mackuntu.poker.Player.Player;
 
 public interface ActionValidator {
-    boolean isValidAction(Action action, Player player, int currentBet);
-} 
\ No newline at end of file
+    /**
+     * Checks a decision against the betting rules.
+     * @param decision A packed {@link com.mackuntu.poker.Action.Decision}
+     */
+    boolean isValidAction(long decision, Player player, int currentBet);
+    /**
+     * Checks a decision against legal actions already worked out for the player.
+     * @param legalActions A mask of {@link com.mackuntu.poker.Action.LegalActions} bits
+     */
+    boolean isValidAction(long decision, Player player, int currentBet, int legalActions);
+}
@@ -0,0 +1,122 @@
+package com.mackuntu.poker.game;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+import com.mackuntu.poker.Card.CardSet;
+import com.mackuntu.poker.Dealer.RandomStreams;
+import com.mackuntu.poker.Evaluator.HandEvaluator;
+import com.mackuntu.poker.Player.Player;
+
+/**
+ * Works out what each player can expect to win from an all-in pot by playing
+ * out the rest of the board, side pots included.
+ * With at most {@link #MAX_CARDS_TO_COME} cards to come every runout is played
+ * out (990 boards at most). With more, as after a preflop all-in, a fixed
+ * {@link #SAMPLED_RUNOUTS} runouts are sampled from a generator seeded by the
+ * cards in play, so the same all-in always gets the same estimate. Either way
+ * it stays cheap enough to run on every all-in of a simulation.
+ */
+final class AllInEquity {
+    /** Most board cards still to come for which every runout is played out */
+    static final int MAX_CARDS_TO_COME = 2;
+    /** Runouts sampled when more cards are to come */
+    static final int SAMPLED_RUNOUTS = 1000;
+
+    private final SidePots pots;
+    private final int[] scores;
+    private final long[] totals;
+    /** The unseen cards, by index, for sampling runouts */
+    private final int[] deck;
+
+    AllInEquity(int seats) {
+        this.pots = new SidePots(seats);
+        this.scores = new int[seats];
+        this.totals = new long[seats];
+        this.deck = new int[52];
+    }
+
+    /**
+     * Averages each seat's winnings over every way the board can finish, or
+     * over a sample of them when more than {@link #MAX_CARDS_TO_COME} cards are to come.
+     * @param players The players; those in the hand must still hold their cards
+     * @param inHand Seats that can win, one bit per seat
+     * @param board The community cards dealt so far
+     * @param contributions Chips each seat put into the hand
+     * @param expected Receives the average chips each seat wins
+     */
+    void compute(Player[] players, int inHand, long board, int[] contributions, double[] expected) {
+        int toCome = 5 - CardSet.count(board);
+        long unseen = CardSet.FULL_DECK & ~board;
+        for (int rest = inHand; rest != 0; rest &= rest - 1) {
+            unseen &= ~players[Integer.numberOfTrailingZeros(rest)].getCardSet();
+        }
+
+        Arrays.fill(totals, 0);
+        if (toCome > MAX_CARDS_TO_COME) {
+            sample(players, inHand, board, unseen, toCome, contributions);
+            average(SAMPLED_RUNOUTS, expected);
+            return;
+        }
+        int runouts = 0;
+        if (toCome == 0) {
+            addRunout(players, inHand, board, contributions);
+            runouts++;
+        }
+        for (long first = toCome > 0 ? unseen : 0; first != 0; first &= first - 1) {
+            long card = first & -first;
+            if (toCome == 1) {
+                addRunout(players, inHand, board | card, contributions);
+                runouts++;
+                continue;
+            }
+            for (long second = first & (first - 1); second != 0; second &= second - 1) {
+                addRunout(players, inHand, board | card | (second & -second), contributions);
+                runouts++;
+            }
+        }
+
+        average(runouts, expected);
+    }
+
+    /**
+     * Plays out {@link #SAMPLED_RUNOUTS} random runouts. The generator is seeded
+     * by every card in play, so the sample depends only on the hand.
+     */
+    private void sample(Player[] players, int inHand, long board, long unseen, int toCome, int[] contributions) {
+        int size = 0;
+        for (long rest = unseen; rest != 0; rest &= rest - 1) {
+            deck[size++] = CardSet.firstCard(rest);
+        }
+        RandomGenerator random = RandomStreams.create(CardSet.FULL_DECK & ~unseen);
+        for (int sample = 0; sample < SAMPLED_RUNOUTS; sample++) {
+            // A partial Fisher-Yates shuffle puts a uniformly random draw in the first cards
+            long runout = board;
+            for (int i = 0; i < toCome; i++) {
+                int j = i + random.nextInt(size - i);
+                int card = deck[j];
+                deck[j] = deck[i];
+                deck[i] = card;
+                runout |= 1L << card;
+            }
+            addRunout(players, inHand, runout, contributions);
+        }
+    }
+
+    private void average(int runouts, double[] expected) {
+        for (int seat = 0; seat < totals.length; seat++) {
+            expected[seat] = (double) totals[seat] / runouts;
+        }
+    }
+
+    private void addRunout(Player[] players, int inHand, long board, int[] contributions) {
+        for (int rest = inHand; rest != 0; rest &= rest - 1) {
+            int seat = Integer.numberOfTrailingZeros(rest);
+            scores[seat] = HandEvaluator.evaluate(CardSet.union(players[seat].getCardSet(), board));
+        }
+        pots.resolve(contributions, inHand, scores);
+        for (int rest = inHand; rest != 0; rest &= rest - 1) {
+            int seat = Integer.numberOfTrailingZeros(rest);
+            totals[seat] += pots.getAward(seat);
+        }
+    }
+}
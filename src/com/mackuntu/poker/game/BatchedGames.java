@@ -0,0 +1,518 @@
+package com.mackuntu.poker.game;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+import com.mackuntu.poker.Action.Action;
+import com.mackuntu.poker.Action.Decision;
+import com.mackuntu.poker.Action.LegalActions;
+import com.mackuntu.poker.Card.CardSet;
+import com.mackuntu.poker.Evaluator.HandState;
+import com.mackuntu.poker.Player.GameContext;
+import com.mackuntu.poker.Player.PlayerStrategy;
+import com.mackuntu.poker.Player.TableView;
+
+/**
+ * Plays many tables at once, with every table's state held in flat primitive
+ * arrays rather than a {@link PokerGame} object graph per table. Per-seat
+ * values are indexed {@code table * seats + seat}; cards are {@link CardSet}
+ * longs and seat states are int masks, one bit per seat, as in
+ * {@link PokerPlayerStateManager}.
+ *
+ * Each {@link #step()} moves every running table on by one action, the same
+ * step {@link PokerGame#processNextAction()} takes, under the same rules:
+ * turn order and streets from {@link HandFlow}, legal actions from
+ * {@link LegalActions}, side pots from {@link SidePots}, and cards dealt from
+ * each table's generator in the same order as {@link CardManager}. A table dealt from the same generator with
+ * the same strategies therefore ends with the same stacks as a PokerGame.
+ *
+ * Strategies decide through one reusable {@link GameContext} per seat, read
+ * through a view that is pointed at the table being played, so nothing is
+ * allocated per hand or per decision.
+ */
+public final class BatchedGames {
+    private static final int DECK_SIZE = 52;
+    private static final GameState[] STATES = GameState.values();
+    private static final byte START = (byte) GameState.START.ordinal();
+    private static final byte FINISH = (byte) GameState.FINISH.ordinal();
+
+    /**
+     * Told when a table starts or finishes a hand, so results can be read
+     * while the table's state still describes that hand.
+     */
+    public interface HandListener {
+        HandListener NONE = new HandListener() {};
+
+        /** A table has posted its blinds and dealt the hole cards */
+        default void handStarted(int table) {}
+
+        /** A table has paid out its pot */
+        default void handFinished(int table) {}
+    }
+
+    private final int tables;
+    private final int seats;
+    private final int handLimit;
+
+    // Per seat, indexed table * seats + seat
+    private final PlayerStrategy[] strategies;
+    private final int[] stacks;
+    private final int[] committed;
+    private final int[] contributions;
+    private final long[] holeCards;
+
+    // Per table
+    private final RandomGenerator[] random;
+    private final byte[] deck;
+    private final byte[] deckSize;
+    private final HandState[] board;
+    private final byte[] street;
+    private final int[] activeMask;
+    private final int[] allInMask;
+    private final int[] dealer;
+    private final int[] toAct;
+    private final int[] roundStart;
+    private final int[] currentBet;
+    private final int[] minRaise;
+    private final int[] pot;
+    private final int[] smallBlind;
+    private final int[] bigBlind;
+    private final int[] handsPlayed;
+    private final boolean[] stopped;
+
+    // Scratch space, reused by every table
+    private final SidePots sidePots;
+    private final int[] scores;
+    private final int[] potShares;
+    private final TableCursor view;
+    private final GameContext[] contexts;
+    private HandListener listener = HandListener.NONE;
+
+    /**
+     * @param seats The number of seats at every table
+     * @param startingStack The chips each seat starts with
+     * @param handLimit The most hands each table plays; a table also stops once one player has every chip
+     * @param strategies The strategy of each seat, indexed {@code table * seats + seat}
+     * @param dealing The generator each table deals with, one per table
+     */
+    public BatchedGames(int seats, int startingStack, int handLimit, PlayerStrategy[] strategies, RandomGenerator[] dealing) {
+        if (seats < 2 || seats > PokerPlayerStateManager.MAX_SEATS) {
+            throw new IllegalArgumentException("Seats must be between 2 and " + PokerPlayerStateManager.MAX_SEATS);
+        }
+        if (strategies.length != dealing.length * seats) {
+            throw new IllegalArgumentException("Need a strategy for each of the " + dealing.length * seats + " seats");
+        }
+        this.tables = dealing.length;
+        this.seats = seats;
+        this.handLimit = handLimit;
+
+        this.strategies = strategies.clone();
+        this.stacks = new int[tables * seats];
+        this.committed = new int[tables * seats];
+        this.contributions = new int[tables * seats];
+        this.holeCards = new long[tables * seats];
+
+        this.random = dealing.clone();
+        this.deck = new byte[tables * DECK_SIZE];
+        this.deckSize = new byte[tables];
+        this.board = new HandState[tables];
+        this.street = new byte[tables];
+        this.activeMask = new int[tables];
+        this.allInMask = new int[tables];
+        this.dealer = new int[tables];
+        this.toAct = new int[tables];
+        this.roundStart = new int[tables];
+        this.currentBet = new int[tables];
+        this.minRaise = new int[tables];
+        this.pot = new int[tables];
+        this.smallBlind = new int[tables];
+        this.bigBlind = new int[tables];
+        this.handsPlayed = new int[tables];
+        this.stopped = new boolean[tables];
+
+        this.sidePots = new SidePots(seats);
+        this.scores = new int[seats];
+        this.potShares = new int[seats];
+        this.view = new TableCursor();
+        this.contexts = new GameContext[seats];
+        for (int seat = 0; seat < seats; seat++) {
+            contexts[seat] = GameContext.forSeat(view, seat);
+        }
+
+        Arrays.fill(stacks, startingStack);
+        Arrays.fill(roundStart, -1);
+        Arrays.fill(smallBlind, 20);
+        Arrays.fill(bigBlind, 40);
+        for (int table = 0; table < tables; table++) {
+            board[table] = new HandState();
+        }
+        for (int table = 0; table < tables; table++) {
+            for (int card = 0; card < DECK_SIZE; card++) {
+                deck[table * DECK_SIZE + card] = (byte) card;
+            }
+        }
+    }
+
+    public void setListener(HandListener listener) {
+        this.listener = listener == null ? HandListener.NONE : listener;
+    }
+
+    /**
+     * Deals the first hand at every table. Tables with no hands to play, or
+     * without two players with chips, are stopped straight away.
+     */
+    public void start() {
+        for (int table = 0; table < tables; table++) {
+            if (handLimit > 0 && hasEnoughPlayersWithMoney(table)) {
+                startHand(table);
+            } else {
+                stopped[table] = true;
+            }
+        }
+    }
+
+    /**
+     * Moves every running table on by one action, or on to its next hand if
+     * its last hand is over. A table stops once it has played its hands or
+     * only one player has chips left.
+     * @return The number of tables still running
+     */
+    public int step() {
+        int running = 0;
+        for (int table = 0; table < tables; table++) {
+            if (stopped[table]) {
+                continue;
+            }
+            if (street[table] == FINISH) {
+                if (handsPlayed[table] >= handLimit || !hasEnoughPlayersWithMoney(table)) {
+                    stopped[table] = true;
+                    continue;
+                }
+                advanceDealer(table);
+                startHand(table);
+            } else {
+                act(table);
+                if (street[table] == FINISH) {
+                    listener.handFinished(table);
+                }
+            }
+            running++;
+        }
+        return running;
+    }
+
+    /**
+     * Steps every table until all of them have stopped.
+     */
+    public void run() {
+        start();
+        while (step() > 0) {
+            // Every table moves on together
+        }
+    }
+
+    private boolean hasEnoughPlayersWithMoney(int table) {
+        int count = 0;
+        for (int seat = 0; seat < seats; seat++) {
+            if (stacks[table * seats + seat] > 0) {
+                count++;
+            }
+        }
+        return count >= 2;
+    }
+
+    private void startHand(int table) {
+        int base = table * seats;
+        handsPlayed[table]++;
+        if (handsPlayed[table] % 10 == 0 && bigBlind[table] <= Integer.MAX_VALUE / 2) {
+            smallBlind[table] *= 2;
+            bigBlind[table] *= 2;
+        }
+
+        street[table] = START;
+        int active = 0;
+        for (int seat = 0; seat < seats; seat++) {
+            committed[base + seat] = 0;
+            contributions[base + seat] = 0;
+            holeCards[base + seat] = CardSet.EMPTY;
+            if (stacks[base + seat] > 0) {
+                active |= 1 << seat;
+            }
+        }
+        activeMask[table] = active;
+        allInMask[table] = 0;
+        currentBet[table] = 0;
+        minRaise[table] = 0;
+        pot[table] = 0;
+        board[table].clear();
+        deckSize[table] = DECK_SIZE;
+
+        int smallBlindSeat = HandFlow.nextSeat(active, dealer[table]);
+        int bigBlindSeat = HandFlow.nextSeat(active, smallBlindSeat);
+        postBlind(table, smallBlindSeat, Math.min(smallBlind[table], stacks[base + smallBlindSeat]));
+        postBlind(table, bigBlindSeat, Math.min(bigBlind[table], stacks[base + bigBlindSeat]));
+
+        // Deal two cards to each seat in the hand, starting left of the dealer
+        int inHand = activeMask[table] | allInMask[table];
+        for (int i = 0; i < seats; i++) {
+            int seat = (dealer[table] + 1 + i) % seats;
+            if ((inHand & (1 << seat)) != 0) {
+                holeCards[base + seat] = CardSet.add(CardSet.add(CardSet.EMPTY, dealCard(table)), dealCard(table));
+            }
+        }
+
+        toAct[table] = HandFlow.firstToActPreflop(activeMask[table], bigBlindSeat, seats);
+        listener.handStarted(table);
+    }
+
+    private void postBlind(int table, int seat, int amount) {
+        bet(table, seat, amount);
+        // A big blind too short to cover the small blind leaves the bet where it was
+        if (amount > currentBet[table]) {
+            currentBet[table] = amount;
+            minRaise[table] = amount;
+        }
+        if (stacks[table * seats + seat] <= 0) {
+            goAllIn(table, seat);
+        }
+    }
+
+    private void bet(int table, int seat, int amount) {
+        int index = table * seats + seat;
+        stacks[index] -= amount;
+        committed[index] += amount;
+        contributions[index] += amount;
+        pot[table] += amount;
+    }
+
+    private void goAllIn(int table, int seat) {
+        activeMask[table] &= ~(1 << seat);
+        allInMask[table] |= 1 << seat;
+    }
+
+    private void fold(int table, int seat) {
+        activeMask[table] &= ~(1 << seat);
+        allInMask[table] &= ~(1 << seat);
+        holeCards[table * seats + seat] = CardSet.EMPTY;
+    }
+
+    /** Picks a card from the rest of the table's deck, as {@link com.mackuntu.poker.Dealer.Dealer} does */
+    private int dealCard(int table) {
+        int base = table * DECK_SIZE;
+        int size = deckSize[table];
+        int pick = random[table].nextInt(size);
+        byte card = deck[base + pick];
+        deck[base + pick] = deck[base + --size];
+        deck[base + size] = card;
+        deckSize[table] = (byte) size;
+        return card;
+    }
+
+    private void dealBoard(int table, int cards) {
+        dealCard(table);  // Burn
+        for (int i = 0; i < cards; i++) {
+            board[table].add(dealCard(table));
+        }
+    }
+
+    /** Takes one action at a table, following {@link PokerGame#processNextAction()} */
+    private void act(int table) {
+        if (HandFlow.isBettingClosed(activeMask[table], matchedMask(table))) {
+            dealOutBoard(table);
+            return;
+        }
+        if (roundStart[table] == -1) {
+            roundStart[table] = toAct[table];
+        }
+
+        int seat = toAct[table];
+        int index = table * seats + seat;
+        boolean canAct = (activeMask[table] & (1 << seat)) != 0;
+        int legalActions = canAct
+            ? LegalActions.compute(currentBet[table], committed[index], stacks[index], minRaise[table])
+            : LegalActions.NONE;
+        long decision = Decision.NONE;
+        if (canAct) {
+            view.table = table;
+            GameContext context = contexts[seat];
+            // Seats have no position set, as in PokerGame
+            context.update(holeCards[index], 0, legalActions, LegalActions.minRaiseTo(currentBet[table], minRaise[table]));
+            decision = strategies[index].decideAction(context);
+        }
+        // An action the rules do not allow becomes a fold
+        if (!apply(table, seat, decision, legalActions) && !apply(table, seat, Decision.FOLD, legalActions)) {
+            return;
+        }
+
+        switch (HandFlow.afterAction(activeMask[table], allInMask[table], matchedMask(table), roundStart[table], seat, seats)) {
+            case HandFlow.LAST_PLAYER:
+                toAct[table] = Integer.numberOfTrailingZeros(activeMask[table] | allInMask[table]);
+                awardPot(table);
+                street[table] = FINISH;
+                advanceDealer(table);
+                break;
+            case HandFlow.RUN_OUT:
+                dealOutBoard(table);
+                break;
+            case HandFlow.NEXT_STREET:
+                toAct[table] = HandFlow.nextSeat(activeMask[table], seat);
+                moveToNextStreet(table);
+                if (street[table] != FINISH) {
+                    resetToFirstPlayer(table);
+                    roundStart[table] = toAct[table];
+                } else {
+                    advanceDealer(table);
+                }
+                break;
+            default:
+                toAct[table] = HandFlow.nextSeat(activeMask[table], seat);
+                break;
+        }
+    }
+
+    /** Applies a decision if the legal actions allow it, as {@link BettingManager} does */
+    private boolean apply(int table, int seat, long decision, int legalActions) {
+        Action action = Decision.action(decision);
+        int index = table * seats + seat;
+        if (action == null || (activeMask[table] & (1 << seat)) == 0 || !LegalActions.contains(legalActions, action)) {
+            return false;
+        }
+        switch (action) {
+            case FOLD:
+                fold(table, seat);
+                break;
+            case CHECK:
+                break;
+            case CALL:
+                int toCall = LegalActions.callAmount(currentBet[table], committed[index], stacks[index]);
+                if (toCall == 0) {
+                    return false;
+                }
+                bet(table, seat, toCall);
+                break;
+            case RAISE:
+                int amount = Decision.amount(decision);
+                if (amount < LegalActions.minRaiseTo(currentBet[table], minRaise[table])
+                        || amount > LegalActions.maxRaiseTo(committed[index], stacks[index])) {
+                    return false;
+                }
+                bet(table, seat, amount - committed[index]);
+                currentBet[table] = amount;
+                minRaise[table] = amount;
+                break;
+        }
+        if (stacks[index] <= 0) {
+            goAllIn(table, seat);
+        }
+        return true;
+    }
+
+    /** Gets the active seats whose bet this street has reached the current bet */
+    private int matchedMask(int table) {
+        int matched = 0;
+        for (int rest = activeMask[table]; rest != 0; rest &= rest - 1) {
+            int seat = Integer.numberOfTrailingZeros(rest);
+            if (committed[table * seats + seat] >= currentBet[table]) {
+                matched |= 1 << seat;
+            }
+        }
+        return matched;
+    }
+
+    private void dealOutBoard(int table) {
+        while (street[table] != FINISH) {
+            moveToNextStreet(table);
+        }
+        advanceDealer(table);
+    }
+
+    private void moveToNextStreet(int table) {
+        currentBet[table] = 0;
+        minRaise[table] = 0;
+        for (int rest = activeMask[table]; rest != 0; rest &= rest - 1) {
+            committed[table * seats + Integer.numberOfTrailingZeros(rest)] = 0;
+        }
+        roundStart[table] = -1;
+
+        GameState next = HandFlow.nextStreet(STATES[street[table]]);
+        street[table] = (byte) next.ordinal();
+        if (next == GameState.FINISH) {
+            awardPot(table);
+        } else {
+            dealBoard(table, HandFlow.boardCards(next));
+        }
+    }
+
+    private void resetToFirstPlayer(int table) {
+        toAct[table] = HandFlow.firstToAct(STATES[street[table]], activeMask[table], dealer[table], seats);
+        roundStart[table] = -1;
+    }
+
+    private void advanceDealer(int table) {
+        int withChips = 0;
+        for (int seat = 0; seat < seats; seat++) {
+            if (stacks[table * seats + seat] > 0) {
+                withChips |= 1 << seat;
+            }
+        }
+        dealer[table] = HandFlow.nextDealer(dealer[table], withChips);
+    }
+
+    /** Pays the pot to the last player in the hand, or in side pots at showdown */
+    private void awardPot(int table) {
+        int base = table * seats;
+        int inHand = activeMask[table] | allInMask[table];
+        if (Integer.bitCount(inHand) == 1) {
+            stacks[base + Integer.numberOfTrailingZeros(inHand)] += pot[table];
+        } else {
+            for (int rest = inHand; rest != 0; rest &= rest - 1) {
+                int seat = Integer.numberOfTrailingZeros(rest);
+                scores[seat] = board[table].scoreWith(holeCards[base + seat]);
+            }
+            System.arraycopy(contributions, base, potShares, 0, seats);
+            sidePots.resolve(potShares, inHand, scores);
+            for (int seat = 0; seat < seats; seat++) {
+                stacks[base + seat] += sidePots.getAward(seat);
+            }
+        }
+        pot[table] = 0;
+        for (int seat = 0; seat < seats; seat++) {
+            contributions[base + seat] = 0;
+        }
+    }
+
+    public int getTableCount() { return tables; }
+    public int getSeatCount() { return seats; }
+    public int getStack(int table, int seat) { return stacks[table * seats + seat]; }
+    /** Gets a seat's hole cards, or {@link CardSet#EMPTY} once folded */
+    public long getHoleCards(int table, int seat) { return holeCards[table * seats + seat]; }
+    public long getBoard(int table) { return board[table].getCards(); }
+    public GameState getStreet(int table) { return STATES[street[table]]; }
+    public int getHandsPlayed(int table) { return handsPlayed[table]; }
+    public boolean isRunning(int table) { return !stopped[table]; }
+    /** Gets the seats dealt into the current hand that have not folded, one bit per seat */
+    public int getInHandMask(int table) { return activeMask[table] | allInMask[table]; }
+
+    /** The table a strategy is deciding at, read straight from the arrays */
+    private final class TableCursor implements TableView {
+        private int table;
+
+        @Override
+        public int getSeatCount() { return seats; }
+        @Override
+        public int getStack(int seat) { return stacks[table * seats + seat]; }
+        @Override
+        public int getCommitted(int seat) { return committed[table * seats + seat]; }
+        @Override
+        public int getActivePlayerCount() { return Integer.bitCount(activeMask[table]); }
+        @Override
+        public long getCommunityCardSet() { return board[table].getCards(); }
+        @Override
+        public int scoreHand(long holeCards) { return board[table].scoreWith(holeCards); }
+        @Override
+        public int getCurrentBet() { return currentBet[table]; }
+        @Override
+        public int getPot() { return pot[table]; }
+        @Override
+        public GameState getStreet() { return STATES[street[table]]; }
+    }
+}
@@ -1,6 +1,8 @@
 package com.mackuntu.poker.game;
 
 import com.mackuntu.poker.Action.Action;
+import com.mackuntu.poker.Action.Decision;
+import com.mackuntu.poker.Action.LegalActions;
 import com.mackuntu.poker.Player.Player;
 
 public class BettingManager {
@@ -10,7 +12,15 @@ public class BettingManager {
     private final ActionValidator actionValidator;
     
     public BettingManager(Player[] players) {
-        this.playerManager = new PokerPlayerStateManager(players);
+        this(new PokerPlayerStateManager(players));
+    }
+    
+    /**
+     * Creates a betting manager that shares seat state with the game, so a
+     * fold or all-in seen here is seen by the game too.
+     */
+    public BettingManager(PlayerStateManager playerManager) {
+        this.playerManager = playerManager;
         this.bettingRules = new StandardBettingRules();
         this.potManager = new PokerPotManager(playerManager);
         this.actionValidator = new StandardActionValidator(bettingRules);
@@ -24,19 +34,35 @@ public class BettingManager {
     
     public void initializeNewStreet() {
         bettingRules.resetBets();
-        for (Integer playerIndex : playerManager.getActivePlayers()) {
-            playerManager.getPlayer(playerIndex).clearCommitted();
+        for (int rest = playerManager.getActiveMask(); rest != 0; rest &= rest - 1) {
+            playerManager.getPlayer(Integer.numberOfTrailingZeros(rest)).clearCommitted();
         }
     }
     
-    public boolean processAction(Action action, int playerIndex) {
+    /**
+     * Applies a decision after checking it against the rules.
+     * @param decision A packed {@link Decision}
+     * @return false if the decision was not legal, leaving the hand unchanged
+     */
+    public boolean processAction(long decision, int playerIndex) {
+        return processAction(decision, playerIndex, getLegalActions(playerIndex));
+    }
+    
+    /**
+     * Applies a decision checked against legal actions already worked out for
+     * the seat, so the rules are not evaluated again.
+     * @param decision A packed {@link Decision}
+     * @param legalActions The mask from {@link #getLegalActions(int)}
+     * @return false if the decision was not legal, leaving the hand unchanged
+     */
+    public boolean processAction(long decision, int playerIndex, int legalActions) {
         Player player = playerManager.getPlayer(playerIndex);
-        if (!actionValidator.isValidAction(action, player, bettingRules.getCurrentBet())) {
+        if (!actionValidator.isValidAction(decision, player, bettingRules.getCurrentBet(), legalActions)) {
             return false;
         }
+        Action action = Decision.action(decision);
         
         boolean success = false;
-        int playerCommitted = player.getCommitted();
         
         switch (action) {
             case FOLD:
@@ -45,17 +71,15 @@ public class BettingManager {
                 break;
                 
             case CHECK:
-                if (bettingRules.canCheck(player)) {
-                    success = true;
-                }
+                success = true;
                 break;
                 
             case CALL:
-                success = handleCall(player);
+                success = handleCall(playerIndex, player);
                 break;
                 
             case RAISE:
-                success = handleRaise(player, action.getAmount());
+                success = handleRaise(playerIndex, player, Decision.amount(decision));
                 break;
         }
         
@@ -69,23 +93,20 @@ public class BettingManager {
         return success;
     }
     
-    private boolean handleCall(Player player) {
-        int toCall = bettingRules.getCurrentBet() - player.getCommitted();
-        if (toCall >= 0 && player.bet(toCall)) {
-            potManager.addToPot(toCall);
+    private boolean handleCall(int playerIndex, Player player) {
+        // A stack short of the bet calls all-in for less
+        int toCall = LegalActions.callAmount(bettingRules.getCurrentBet(), player.getCommitted(), player.getMoney());
+        if (toCall > 0 && player.bet(toCall)) {
+            potManager.addToPot(playerIndex, toCall);
             return true;
         }
         return false;
     }
     
-    private boolean handleRaise(Player player, int raiseAmount) {
-        if (!bettingRules.canRaise(player, raiseAmount)) {
-            return false;
-        }
-        
+    private boolean handleRaise(int playerIndex, Player player, int raiseAmount) {
         int totalNeeded = raiseAmount - player.getCommitted();
         if (player.bet(totalNeeded)) {
-            potManager.addToPot(totalNeeded);
+            potManager.addToPot(playerIndex, totalNeeded);
             bettingRules.setCurrentBet(raiseAmount);
             return true;
         }
@@ -95,8 +116,11 @@ public class BettingManager {
     public void postBlind(int playerIndex, int amount) {
         Player player = playerManager.getPlayer(playerIndex);
         if (player.bet(amount)) {
-            potManager.addToPot(amount);
-            bettingRules.setCurrentBet(amount);
+            potManager.addToPot(playerIndex, amount);
+            // A big blind too short to cover the small blind leaves the bet where it was
+            if (amount > bettingRules.getCurrentBet()) {
+                bettingRules.setCurrentBet(amount);
+            }
         }
     }
     
@@ -108,6 +132,21 @@ public class BettingManager {
         return bettingRules.getMinimumRaise();
     }
     
+    /**
+     * Gets the actions a seat may take now.
+     * @return A mask of {@link LegalActions} bits,
+     *         or {@link LegalActions#NONE} if the seat cannot act
+     */
+    public int getLegalActions(int playerIndex) {
+        Player player = playerManager.getPlayer(playerIndex);
+        return player.canAct() ? bettingRules.getLegalActions(player) : LegalActions.NONE;
+    }
+    
+    /** Gets the smallest total bet a raise can make on this street */
+    public int getMinRaiseTo() {
+        return bettingRules.getMinimumRaiseTo();
+    }
+    
     public int getPot() {
         return potManager.getPotSize();
     }
@@ -119,4 +158,17 @@ public class BettingManager {
     public void splitPot(int[] playerIndices) {
         potManager.splitPot(playerIndices);
     }
+    
+    /**
+     * Pays out a showdown in side pots.
+     * @see PotManager#awardShowdown(int, int[])
+     */
+    public SidePots awardShowdown(int inHand, int[] scores) {
+        return potManager.awardShowdown(inHand, scores);
+    }
+    
+    /** Gets the chips a seat has put into the pot this hand */
+    public int getContribution(int playerIndex) {
+        return potManager.getContribution(playerIndex);
+    }
 } 
\ No newline at end of file
@@ -3,11 +3,18 @@ package com.mackuntu.poker.game;
 import com.mackuntu.poker.Player.Player;
 
 public interface BettingRules {
+    /**
+     * Gets the actions a player may take now.
+     * @return A mask of {@link com.mackuntu.poker.Action.LegalActions} bits
+     */
+    int getLegalActions(Player player);
     boolean canCheck(Player player);
     boolean canCall(Player player);
     boolean canRaise(Player player, int amount);
     int getMinimumRaise();
+    /** Gets the smallest total bet a raise can make on this street */
+    int getMinimumRaiseTo();
     int getCurrentBet();
     void setCurrentBet(int amount);
     void resetBets();
-} 
\ No newline at end of file
+}
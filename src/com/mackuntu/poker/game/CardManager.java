@@ -1,44 +1,68 @@
 package com.mackuntu.poker.game;
 
 import java.util.ArrayList;
+import java.util.List;
 import com.mackuntu.poker.Card.Card;
 import com.mackuntu.poker.Dealer.Dealer;
+import com.mackuntu.poker.Evaluator.Board;
 import com.mackuntu.poker.Player.Player;
+import java.util.random.RandomGenerator;
 
 public class CardManager {
-    private final ArrayList<Card> communityCards;
+    private final Board board;  // Shared by the whole table; players hold only their hole cards
     private final ArrayList<Card> burnCards;
     private final Player[] players;
-    private final boolean testMode;
-    private Dealer dealer;
+    private final Dealer dealer;
     
     public CardManager(Player[] players) {
         this(players, false);
     }
     
     public CardManager(Player[] players, boolean testMode) {
+        this(players, new Dealer(testMode));
+    }
+    
+    public CardManager(Player[] players, RandomGenerator random) {
+        this(players, new Dealer(random));
+    }
+    
+    private CardManager(Player[] players, Dealer dealer) {
         this.players = players;
-        this.testMode = testMode;
-        this.communityCards = new ArrayList<>(5);
+        this.board = new Board();
         this.burnCards = new ArrayList<>(3);
+        this.dealer = dealer;
     }
     
     public void initializeNewHand() {
-        dealer = new Dealer(testMode);
-        communityCards.clear();
+        dealer.reset();
+        board.clear();
         burnCards.clear();
     }
     
     private Card createCard(int cardIndex) {
-        int suite = cardIndex / Card.TOTAL_RANKS;
-        int rank = (cardIndex % Card.TOTAL_RANKS) + 2; // +2 since ranks start at 2
-        return new Card(rank, suite);
+        return Card.of(cardIndex);
     }
     public void dealInitialCards(int dealerPosition) {
         // Deal two cards to each player with money
+        int seats = 0;
+        for (int i = 0; i < players.length; i++) {
+            if (players[i].getMoney() > 0) {
+                seats |= 1 << i;
+            }
+        }
+        dealInitialCards(dealerPosition, seats);
+    }
+    
+    /**
+     * Deals two cards to each seat in a mask, starting left of the dealer.
+     * Players already all-in from the blinds have no money left but are
+     * still dealt in.
+     * @param seats The seats to deal to, one bit per seat
+     */
+    public void dealInitialCards(int dealerPosition, int seats) {
         for (int i = 0; i < players.length; i++) {
             int targetPlayer = (dealerPosition + 1 + i) % players.length;
-            if (players[targetPlayer].getMoney() > 0) {
+            if ((seats & (1 << targetPlayer)) != 0) {
                 players[targetPlayer].addCard(createCard(dealer.getCard()));
                 players[targetPlayer].addCard(createCard(dealer.getCard()));
             }
@@ -62,28 +86,26 @@ public class CardManager {
     private void dealFlop() {
         burnCards.add(createCard(dealer.getCard()));
         for (int i = 0; i < 3; i++) {
-            Card card = createCard(dealer.getCard());
-            communityCards.add(card);
-            addCardToActivePlayers(card);
+            board.add(createCard(dealer.getCard()));
         }
     }
     
     private void dealTurnOrRiver() {
         burnCards.add(createCard(dealer.getCard()));
-        Card card = createCard(dealer.getCard());
-        communityCards.add(card);
-        addCardToActivePlayers(card);
+        board.add(createCard(dealer.getCard()));
     }
     
-    private void addCardToActivePlayers(Card card) {
-        for (Player player : players) {
-            if (!player.isFolded()) {
-                player.addCard(new Card(card.getNum() + 1, card.getSuite()));
-            }
-        }
+    /** Gets the community cards in the order they were dealt, as a read-only view */
+    public List<Card> getCommunityCards() {
+        return board.getCards();
+    }
+    
+    public long getCommunityCardSet() {
+        return board.getCardSet();
     }
     
-    public ArrayList<Card> getCommunityCards() {
-        return communityCards;
+    /** Gets the board every seat's hand is scored against */
+    public Board getBoard() {
+        return board;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.mackuntu.poker.game;
+
+import java.io.PrintStream;
+import com.mackuntu.poker.Action.Action;
+import com.mackuntu.poker.Action.Decision;
+import com.mackuntu.poker.Card.CardSet;
+import com.mackuntu.poker.Evaluator.HandEvaluator;
+import com.mackuntu.poker.Player.Player;
+
+/**
+ * Writes a game's events as a readable log, one line per event.
+ */
+public class ConsoleGameListener implements GameEventListener {
+    private final Player[] players;
+    private final PrintStream out;
+
+    public ConsoleGameListener(Player[] players) {
+        this(players, System.out);
+    }
+
+    public ConsoleGameListener(Player[] players, PrintStream out) {
+        this.players = players;
+        this.out = out;
+    }
+
+    @Override
+    public void handStarted(int handNumber, int dealerSeat) {
+        out.println("=== Hand " + handNumber + " - dealer: " + players[dealerSeat].getName() + " ===");
+    }
+
+    @Override
+    public void blindsIncreased(int smallBlind, int bigBlind) {
+        out.println("Blinds increased to " + smallBlind + "/" + bigBlind);
+    }
+
+    @Override
+    public void blindPosted(int seat, int amount, boolean bigBlind) {
+        out.println(players[seat].getName() + " posts " + (bigBlind ? "big" : "small") + " blind $" + amount);
+    }
+
+    @Override
+    public void actionTaken(int seat, Action action, int amount) {
+        String name = players[seat].getName();
+        switch (action) {
+            case FOLD -> out.println(name + " folds");
+            case CHECK -> out.println(name + " checks");
+            case CALL -> out.println(name + " calls $" + amount);
+            case RAISE -> out.println(name + " raises to $" + amount);
+        }
+    }
+
+    @Override
+    public void invalidAction(int seat, long decision) {
+        out.println("Invalid action from " + players[seat].getName() + ": " + Decision.toString(decision) + ". Forcing fold.");
+    }
+
+    @Override
+    public void streetDealt(GameState street, long board) {
+        out.println(street + ": " + CardSet.toString(board));
+    }
+
+    @Override
+    public void showdown(int seat, long cards, int score) {
+        out.println(players[seat].getName() + " shows " + CardSet.toString(cards)
+            + " (" + HandEvaluator.describe(score) + ")");
+    }
+
+    @Override
+    public void potAwarded(int seat, int amount) {
+        out.println(players[seat].getName() + " wins $" + amount);
+    }
+}
@@ -0,0 +1,84 @@
+package com.mackuntu.poker.game;
+
+import com.mackuntu.poker.Action.Action;
+
+/**
+ * Receives the events of a game as they happen.
+ * Every method does nothing by default, so a listener only overrides the
+ * events it cares about. Events carry seat indices, card sets and amounts
+ * rather than text, so a game without a listener formats nothing for them.
+ */
+public interface GameEventListener {
+    /** Ignores every event; the listener of a game until another is set */
+    GameEventListener NONE = new GameEventListener() {};
+
+    /**
+     * A new hand has started, before the blinds are posted.
+     * @param handNumber The hand number, counting from 1
+     * @param dealerSeat The seat holding the dealer button
+     */
+    default void handStarted(int handNumber, int dealerSeat) {}
+
+    /** The blinds have gone up, taking effect from this hand */
+    default void blindsIncreased(int smallBlind, int bigBlind) {}
+
+    /**
+     * A blind has been posted.
+     * @param seat The seat posting it
+     * @param amount The chips posted, less than the blind if it put the player all-in
+     * @param bigBlind true for the big blind, false for the small blind
+     */
+    default void blindPosted(int seat, int amount, boolean bigBlind) {}
+
+    /**
+     * A player's action has been applied.
+     * @param seat The seat that acted
+     * @param action The action
+     * @param amount The bet called or raised to, or 0 for a fold or check
+     */
+    default void actionTaken(int seat, Action action, int amount) {}
+
+    /**
+     * A player chose an action the rules do not allow; they are folded instead.
+     * @param seat The seat that acted
+     * @param decision The rejected {@link com.mackuntu.poker.Action.Decision}
+     */
+    default void invalidAction(int seat, long decision) {}
+
+    /**
+     * Community cards have been dealt.
+     * @param street The street now being played (FLOP, TURN or RIVER)
+     * @param board The whole board as a {@link com.mackuntu.poker.Card.CardSet}
+     */
+    default void streetDealt(GameState street, long board) {}
+
+    /**
+     * No more betting is possible and the rest of the board is about to be
+     * dealt. Only sent when the game reports all-in equity (see
+     * {@link PokerGame#setAllInEquity(boolean)}).
+     * @param seat A seat still in the hand
+     * @param expectedChips The chips the seat wins on average over the runouts
+     */
+    default void allInEquity(int seat, double expectedChips) {}
+
+    /**
+     * A player shows their hand at showdown.
+     * @param seat The seat showing
+     * @param cards The player's cards as a {@link com.mackuntu.poker.Card.CardSet}
+     * @param score The hand score (see {@link com.mackuntu.poker.Evaluator.HandEvaluator#evaluate(long)})
+     */
+    default void showdown(int seat, long cards, int score) {}
+
+    /**
+     * Chips from the pot have been paid to a player.
+     * @param seat The seat paid
+     * @param amount The chips paid
+     */
+    default void potAwarded(int seat, int amount) {}
+
+    /**
+     * The hand is over and every pot has been paid.
+     * @param handNumber The hand number, counting from 1
+     */
+    default void handFinished(int handNumber) {}
+}
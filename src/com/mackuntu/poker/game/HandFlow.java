@@ -0,0 +1,186 @@
+package com.mackuntu.poker.game;
+
+/**
+ * The order of play in a hand, worked out from seat masks (one bit per seat,
+ * as in {@link PokerPlayerStateManager}) and seat numbers: where the blinds
+ * and the button go, who acts next, when a betting round is over, when no
+ * more betting is possible and how the streets follow each other.
+ *
+ * {@link PokerGame} keeps a hand in player objects and {@link BatchedGames}
+ * in flat arrays, but both ask these rules what happens next, as they both
+ * ask {@link com.mackuntu.poker.Action.LegalActions} what a seat may do, so a
+ * hand is played the same way by either.
+ */
+public final class HandFlow {
+    /** After an action: the betting round goes on with the next active seat */
+    public static final int NEXT_SEAT = 0;
+    /** After an action: the betting round is over, so the next street is dealt */
+    public static final int NEXT_STREET = 1;
+    /** After an action: nobody can bet any more, so the board is dealt out to showdown */
+    public static final int RUN_OUT = 2;
+    /** After an action: everyone else has folded, so the last player takes the pot */
+    public static final int LAST_PLAYER = 3;
+
+    private HandFlow() {
+    }
+
+    /**
+     * Finds the first seat of a mask clockwise after a seat, which may be the
+     * seat itself if it is the only one in the mask.
+     * @param mask The seats to choose from, one bit per seat
+     * @param seat The seat to start after
+     * @return The seat, or -1 if the mask is empty
+     */
+    public static int nextSeat(int mask, int seat) {
+        if (mask == 0) {
+            return -1;
+        }
+        // Seats after this one first, then wrap round to the lowest
+        int after = mask & ~((2 << seat) - 1);
+        return Integer.numberOfTrailingZeros(after != 0 ? after : mask);
+    }
+
+    /**
+     * Moves the button to the next seat with chips, whatever that player did
+     * in the hand that just ended.
+     * @param dealer The current button seat
+     * @param withChips The seats with chips left, one bit per seat
+     * @return The new button seat, or the current one if nobody has chips
+     */
+    public static int nextDealer(int dealer, int withChips) {
+        return withChips == 0 ? dealer : nextSeat(withChips, dealer);
+    }
+
+    /**
+     * Finds the first seat to act before the flop: the first after the big
+     * blind who can still bet. The blinds may have put everyone all-in, in
+     * which case the seat after the big blind is returned.
+     * @param active The seats that can still act
+     * @param bigBlindSeat The seat that posted the big blind
+     * @param seats The number of seats at the table
+     * @return The seat to act
+     */
+    public static int firstToActPreflop(int active, int bigBlindSeat, int seats) {
+        int first = nextSeat(active, bigBlindSeat);
+        return first < 0 ? (bigBlindSeat + 1) % seats : first;
+    }
+
+    /**
+     * Finds the first seat to act on a street: the first active seat from
+     * the small blind's place after the flop, or from three after the button
+     * before it.
+     * @param street The street about to be bet
+     * @param active The seats that can still act
+     * @param dealer The button seat
+     * @param seats The number of seats at the table
+     * @return The seat to act, or -1 if nobody can
+     */
+    public static int firstToAct(GameState street, int active, int dealer, int seats) {
+        int offset = street == GameState.START ? 3 : 1;
+        int first = (dealer + offset) % seats;
+        return (active & (1 << first)) != 0 ? first : nextSeat(active, first);
+    }
+
+    /**
+     * Checks whether the hand can see no more betting: nobody can bet, or
+     * one player can but has matched the bet and everyone else left is all-in.
+     * @param active The seats that can still act
+     * @param matched The active seats whose bet this street has reached the current bet
+     * @return true if the rest of the board should be dealt out
+     */
+    public static boolean isBettingClosed(int active, int matched) {
+        return active == 0 || (Integer.bitCount(active) == 1 && (active & ~matched) == 0);
+    }
+
+    /**
+     * Checks whether moving the action clockwise from one seat to another
+     * reached the round start seat (the start seat itself is excluded, the
+     * destination included; a full lap back to the same seat passes every seat).
+     * The round start player may have folded or gone all-in since, so the
+     * action can step over their seat rather than land on it.
+     * @param roundStart The seat the betting round started with
+     * @param from The seat that acted
+     * @param to The seat the action moved on to
+     * @param seats The number of seats at the table
+     * @return true if the action got back round to the start seat
+     */
+    public static boolean passedRoundStart(int roundStart, int from, int to, int seats) {
+        int toStart = (roundStart - from + seats) % seats;
+        int moved = (to - from + seats) % seats;
+        return (toStart == 0 ? seats : toStart) <= (moved == 0 ? seats : moved);
+    }
+
+    /**
+     * Checks whether a betting round is over: the action has been round the
+     * table and every seat that can still act has matched the bet.
+     * @param active The seats that can still act
+     * @param matched The active seats whose bet this street has reached the current bet
+     * @param roundStart The seat the betting round started with
+     * @param from The seat that acted
+     * @param to The seat the action moved on to
+     * @param seats The number of seats at the table
+     * @return true if the next street should be dealt
+     */
+    public static boolean isRoundComplete(int active, int matched, int roundStart, int from, int to, int seats) {
+        return passedRoundStart(roundStart, from, to, seats) && active != 0 && (active & ~matched) == 0;
+    }
+
+    /**
+     * Works out what happens once a seat has acted.
+     * @param active The seats that can still act
+     * @param allIn The seats still in the hand with no chips left to bet
+     * @param matched The active seats whose bet this street has reached the current bet
+     * @param roundStart The seat the betting round started with
+     * @param seat The seat that acted
+     * @param seats The number of seats at the table
+     * @return {@link #NEXT_SEAT}, {@link #NEXT_STREET}, {@link #RUN_OUT} or {@link #LAST_PLAYER}
+     */
+    public static int afterAction(int active, int allIn, int matched, int roundStart, int seat, int seats) {
+        if (Integer.bitCount(active | allIn) == 1) {
+            return LAST_PLAYER;
+        }
+        if (isBettingClosed(active, matched)) {
+            return RUN_OUT;
+        }
+        return isRoundComplete(active, matched, roundStart, seat, nextSeat(active, seat), seats)
+            ? NEXT_STREET : NEXT_SEAT;
+    }
+
+    /**
+     * Gets the street that follows another.
+     * @param street START, FLOP, TURN or RIVER
+     * @return The next street, FINISH after the river
+     * @throws IllegalArgumentException if the hand is not being played
+     */
+    public static GameState nextStreet(GameState street) {
+        switch (street) {
+            case START:
+                return GameState.FLOP;
+            case FLOP:
+                return GameState.TURN;
+            case TURN:
+                return GameState.RIVER;
+            case RIVER:
+                return GameState.FINISH;
+            default:
+                throw new IllegalArgumentException("No street follows " + street);
+        }
+    }
+
+    /**
+     * Gets the number of board cards dealt for a street.
+     * @param street The street being dealt
+     * @return 3 for the flop, 1 for the turn or river, otherwise 0
+     */
+    public static int boardCards(GameState street) {
+        switch (street) {
+            case FLOP:
+                return 3;
+            case TURN:
+            case RIVER:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+}
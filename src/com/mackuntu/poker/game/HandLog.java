@@ -0,0 +1,163 @@
+package com.mackuntu.poker.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import com.mackuntu.poker.Action.Action;
+import com.mackuntu.poker.Card.CardSet;
+import com.mackuntu.poker.Evaluator.HandEvaluator;
+import com.mackuntu.poker.Player.Player;
+
+/**
+ * The analysis of the current hand, kept as compact records and only turned
+ * into text when someone reads it. Recording an action stores a few ints and
+ * the player's cards; the hand is evaluated and described at render time.
+ */
+final class HandLog {
+    private static final int ACTION = 0;
+    private static final int BLINDS = 1;
+    private static final int GAME_OVER = 2;
+    private static final int WIN = 3;
+    private static final int SPLIT = 4;
+
+    /** Marks a win record whose pot was not contested at showdown */
+    private static final int NO_SCORE = -1;
+
+    private int[] kinds = new int[16];
+    private int[] seats = new int[16];
+    private int[] amounts = new int[16];
+    /** Action ordinal, big blind or winning score, depending on the kind */
+    private int[] details = new int[16];
+    private int[] streets = new int[16];
+    /** Cards to describe for an action, or the winning seats of a split */
+    private long[] cards = new long[16];
+    private int size;
+    private List<String> text;
+
+    void clear() {
+        size = 0;
+        text = null;
+    }
+
+    /**
+     * Records an applied action.
+     * @param cards The player's cards and the board, or {@link CardSet#EMPTY}
+     *              when the player folded and their hand is not described
+     */
+    void action(int seat, Action action, int amount, GameState street, long cards) {
+        add(ACTION, seat, amount, action.ordinal(), street.ordinal(), cards);
+    }
+
+    void blindsIncreased(int smallBlind, int bigBlind) {
+        add(BLINDS, -1, smallBlind, bigBlind, 0, CardSet.EMPTY);
+    }
+
+    void gameOver() {
+        add(GAME_OVER, -1, 0, 0, 0, CardSet.EMPTY);
+    }
+
+    /** Records a pot won without a showdown */
+    void won(int seat, int pot) {
+        add(WIN, seat, pot, NO_SCORE, 0, CardSet.EMPTY);
+    }
+
+    void won(int seat, int pot, int score) {
+        add(WIN, seat, pot, score, 0, CardSet.EMPTY);
+    }
+
+    /**
+     * Records a pot split between several seats.
+     * @param winners The winning seats, one bit per seat
+     */
+    void split(int winners, int pot, int score) {
+        add(SPLIT, -1, pot, score, 0, winners & 0xFFFFFFFFL);
+    }
+
+    private void add(int kind, int seat, int amount, int detail, int street, long cardSet) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            seats = Arrays.copyOf(seats, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            details = Arrays.copyOf(details, capacity);
+            streets = Arrays.copyOf(streets, capacity);
+            cards = Arrays.copyOf(cards, capacity);
+        }
+        kinds[size] = kind;
+        seats[size] = seat;
+        amounts[size] = amount;
+        details[size] = detail;
+        streets[size] = street;
+        cards[size] = cardSet;
+        size++;
+        text = null;
+    }
+
+    /**
+     * Renders the records as lines of text. The lines are kept until the
+     * next record is added, so drawing every frame does not rebuild them.
+     * @param players The players, for their names
+     * @return An unmodifiable list of lines
+     */
+    List<String> render(Player[] players) {
+        if (text == null) {
+            List<String> lines = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                lines.add(render(i, players));
+            }
+            text = Collections.unmodifiableList(lines);
+        }
+        return text;
+    }
+
+    private String render(int i, Player[] players) {
+        switch (kinds[i]) {
+            case ACTION:
+                return renderAction(i, players[seats[i]].getName());
+            case BLINDS:
+                return "Blinds increased to " + amounts[i] + "/" + details[i];
+            case GAME_OVER:
+                return "Game over - not enough players with money to continue";
+            case WIN:
+                String message = players[seats[i]].getName() + " wins $" + amounts[i];
+                return details[i] == NO_SCORE ? message : message + " with " + HandEvaluator.describe(details[i]);
+            case SPLIT:
+                StringBuilder sb = new StringBuilder("Split pot ($" + amounts[i] + ") between: ");
+                long winners = cards[i];
+                for (long rest = winners; rest != 0; rest &= rest - 1) {
+                    if (rest != winners) sb.append(", ");
+                    sb.append(players[Long.numberOfTrailingZeros(rest)].getName());
+                }
+                return sb.append(" with ").append(HandEvaluator.describe(details[i])).toString();
+            default:
+                return "";
+        }
+    }
+
+    private String renderAction(int i, String name) {
+        String actionDesc;
+        switch (Action.values()[details[i]]) {
+            case FOLD:
+                actionDesc = name + " folds";
+                break;
+            case CHECK:
+                actionDesc = name + " checks";
+                break;
+            case CALL:
+                actionDesc = name + " calls $" + amounts[i];
+                break;
+            case RAISE:
+                actionDesc = name + " raises to $" + amounts[i];
+                break;
+            default:
+                return "";
+        }
+
+        // Only describe the hand of a player still in it once there is a board
+        if (streets[i] != GameState.START.ordinal() && !CardSet.isEmpty(cards[i])) {
+            actionDesc += " (" + HandEvaluator.describe(HandEvaluator.evaluate(cards[i])) + ")";
+        }
+        return actionDesc;
+    }
+}
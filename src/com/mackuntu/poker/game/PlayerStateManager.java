@@ -9,6 +9,22 @@ public interface PlayerStateManager {
     void handlePlayerAllIn(int playerIndex);
     List<Integer> getActivePlayers();
     int getActivePlayerCount();
+    /** Seats that can still act this hand, one bit per seat */
+    int getActiveMask();
+    /** Seats that folded this hand */
+    int getFoldedMask();
+    /** Seats still in the hand with no chips left to bet */
+    int getAllInMask();
+    /** Seats dealt out of the hand for having no money */
+    int getBustedMask();
+    /** Seats that can still win the pot: the active and all-in seats */
+    int getInHandMask();
+    /**
+     * Finds the first active seat clockwise after a seat, which may be the
+     * seat itself if no other is active.
+     * @return The seat, or -1 if no seat is active
+     */
+    int nextActiveSeat(int playerIndex);
     int getPlayerCount();
     void initializeActivePlayers();
     void reinitializePlayers();
@@ -1,20 +1,27 @@
 package com.mackuntu.poker.game;
 
-import java.util.ArrayList;
 import java.util.List;
 import com.mackuntu.poker.Action.Action;
-import com.mackuntu.poker.Card.Card;
+import com.mackuntu.poker.Action.Decision;
+import com.mackuntu.poker.Card.CardSet;
 import com.mackuntu.poker.Player.Player;
-import com.mackuntu.poker.Evaluator.HandEvaluator;
+import com.mackuntu.poker.Player.TableView;
+import com.mackuntu.poker.Evaluator.Board;
+import java.util.random.RandomGenerator;
 
-public class PokerGame {
+public class PokerGame implements TableView {
     private final Player[] players;
     private final PlayerStateManager playerManager;
     private final DealerPositionManager dealerManager;
     private final GameMessageManager messageManager;
     private final BettingManager bettingManager;
     private final CardManager cardManager;
-    private final ArrayList<String> handAnalysis;
+    private final HandLog handLog;
+    private final int[] showdownScores;
+    private final int[] contributions;
+    private final double[] expectedAwards;
+    private AllInEquity equity;
+    private boolean allInEquity;
     private final boolean testMode;
     private GameState state;
     private int currentPlayer;
@@ -22,8 +29,29 @@ public class PokerGame {
     private int bigBlind;
     private int handsPlayed;
     private int roundStartPlayer = -1;
+    private GameEventListener listener = GameEventListener.NONE;
     
     public PokerGame(Player[] players, boolean testMode) {
+        this(players, testMode, new CardManager(players, testMode), 1000);
+    }
+    
+    /**
+     * Creates a game whose cards are dealt with the given generator.
+     * Seeding the generator (see {@link com.mackuntu.poker.Dealer.RandomStreams})
+     * makes every hand of the game repeatable.
+     */
+    public PokerGame(Player[] players, RandomGenerator random) {
+        this(players, random, 1000);
+    }
+    
+    /**
+     * Creates a game dealt with the given generator, giving every player the same stack.
+     */
+    public PokerGame(Player[] players, RandomGenerator random, int startingStack) {
+        this(players, false, new CardManager(players, random), startingStack);
+    }
+    
+    private PokerGame(Player[] players, boolean testMode, CardManager cardManager, int startingStack) {
         this.players = players;
         this.testMode = testMode;
         this.playerManager = new PokerPlayerStateManager(players);
@@ -32,14 +60,17 @@ public class PokerGame {
         this.state = GameState.START;
         this.smallBlind = 20;
         this.bigBlind = 40;
-        this.bettingManager = new BettingManager(players);
-        this.cardManager = new CardManager(players, testMode);
-        this.handAnalysis = new ArrayList<>();
+        this.bettingManager = new BettingManager(playerManager);
+        this.cardManager = cardManager;
+        this.handLog = new HandLog();
+        this.showdownScores = new int[players.length];
+        this.contributions = new int[players.length];
+        this.expectedAwards = new double[players.length];
         this.handsPlayed = 0;
         
-        // Initialize player positions
+        // Give every player the starting stack
         for (int i = 0; i < players.length; i++) {
-            players[i].setMoney(1000);  // Starting stack
+            players[i].setMoney(startingStack);
         }
     }
     
@@ -57,15 +88,16 @@ public class PokerGame {
         // First check if we have enough players with money
         if (!hasEnoughPlayersWithMoney()) {
             state = GameState.FINISH;
-            addHandAnalysis("Game over - not enough players with money to continue");
+            handLog.gameOver();
             return;
         }
 
         handsPlayed++;
-        if (handsPlayed % 10 == 0) {
+        if (handsPlayed % 10 == 0 && bigBlind <= Integer.MAX_VALUE / 2) {  // Stop before the blinds overflow
             smallBlind *= 2;
             bigBlind *= 2;
-            addHandAnalysis("Blinds increased to " + smallBlind + "/" + bigBlind);
+            handLog.blindsIncreased(smallBlind, bigBlind);
+            listener.blindsIncreased(smallBlind, bigBlind);
         }
         
         // Reset game state
@@ -73,26 +105,24 @@ public class PokerGame {
         playerManager.reinitializePlayers();  // This will make all players with money active for the new hand
         bettingManager.initializeNewHand();
         cardManager.initializeNewHand();
-        handAnalysis.clear();
-        
-        // Find next valid small blind position (player must have money)
-        int smallBlindPos = (dealerManager.getDealerPosition() + 1) % players.length;
-        while (players[smallBlindPos].getMoney() <= 0) {
-            smallBlindPos = (smallBlindPos + 1) % players.length;
-        }
+        handLog.clear();
+        listener.handStarted(handsPlayed, dealerManager.getDealerPosition());
         
-        // Find next valid big blind position (player must have money)
-        int bigBlindPos = (smallBlindPos + 1) % players.length;
-        while (players[bigBlindPos].getMoney() <= 0) {
-            bigBlindPos = (bigBlindPos + 1) % players.length;
-        }
+        // The blinds are the next two players with money after the button
+        int withChips = playerManager.getActiveMask();
+        int smallBlindPos = HandFlow.nextSeat(withChips, dealerManager.getDealerPosition());
+        int bigBlindPos = HandFlow.nextSeat(withChips, smallBlindPos);
         
         // Post blinds if players can afford them
         Player smallBlindPlayer = players[smallBlindPos];
         Player bigBlindPlayer = players[bigBlindPos];
         
-        bettingManager.postBlind(smallBlindPos, Math.min(smallBlind, smallBlindPlayer.getMoney()));
-        bettingManager.postBlind(bigBlindPos, Math.min(bigBlind, bigBlindPlayer.getMoney()));
+        int smallBlindAmount = Math.min(smallBlind, smallBlindPlayer.getMoney());
+        bettingManager.postBlind(smallBlindPos, smallBlindAmount);
+        listener.blindPosted(smallBlindPos, smallBlindAmount, false);
+        int bigBlindAmount = Math.min(bigBlind, bigBlindPlayer.getMoney());
+        bettingManager.postBlind(bigBlindPos, bigBlindAmount);
+        listener.blindPosted(bigBlindPos, bigBlindAmount, true);
         
         if (smallBlindPlayer.getMoney() <= 0) {
             handlePlayerAllIn(smallBlindPos);
@@ -102,13 +132,10 @@ public class PokerGame {
         }
         
         // Deal cards
-        cardManager.dealInitialCards(dealerManager.getDealerPosition());
+        cardManager.dealInitialCards(dealerManager.getDealerPosition(), playerManager.getInHandMask());
         
-        // Set initial player to first player after big blind with money
-        currentPlayer = (bigBlindPos + 1) % players.length;
-        while (players[currentPlayer].getMoney() <= 0) {
-            currentPlayer = (currentPlayer + 1) % players.length;
-        }
+        // Set initial player to first player after big blind who can still bet
+        currentPlayer = HandFlow.firstToActPreflop(playerManager.getActiveMask(), bigBlindPos, players.length);
     }
     
     private void handlePlayerAllIn(int playerIndex) {
@@ -123,275 +150,261 @@ public class PokerGame {
         bettingManager.initializeNewStreet();
         roundStartPlayer = -1;  // Reset for next street
         
-        switch (state) {
-            case START:
-                cardManager.dealNextStreet(GameState.FLOP);
-                state = GameState.FLOP;
-                break;
-            case FLOP:
-                cardManager.dealNextStreet(GameState.TURN);
-                state = GameState.TURN;
-                break;
-            case TURN:
-                cardManager.dealNextStreet(GameState.RIVER);
-                state = GameState.RIVER;
-                break;
-            case RIVER:
-                state = GameState.FINISH;
-                determineWinner();
-                break;
-            default:
-                break;
+        state = HandFlow.nextStreet(state);
+        if (state == GameState.FINISH) {
+            determineWinner();
+        } else {
+            cardManager.dealNextStreet(state);
+            listener.streetDealt(state, cardManager.getCommunityCardSet());
         }
     }
 
-    private boolean isRoundComplete() {
-        // First, check if we've gone around the table at least once
-        if (roundStartPlayer == -1) {
-            roundStartPlayer = currentPlayer;
-            return false;
-        }
-        
-        // Get all active players and their bets
-        List<Integer> activePlayers = getActivePlayers();
-        if (activePlayers.isEmpty()) {
-            return false;
-        }
-        
-        // Check if all active players have equal bets
-        int targetBet = bettingManager.getCurrentBet();
-        for (int playerIndex : activePlayers) {
-            Player player = players[playerIndex];
-            if (player.getCommitted() != targetBet) {
-                return false;
+    /** Gets the active seats whose bet this street has reached the current bet */
+    private int getMatchedMask() {
+        int currentBet = bettingManager.getCurrentBet();
+        int matched = 0;
+        for (int rest = playerManager.getActiveMask(); rest != 0; rest &= rest - 1) {
+            int seat = Integer.numberOfTrailingZeros(rest);
+            if (players[seat].getCommitted() >= currentBet) {
+                matched |= 1 << seat;
             }
         }
-        
-        // If we've gone around the table and all bets are equal, the round is complete
-        return currentPlayer == roundStartPlayer;
+        return matched;
     }
 
     private void moveToNextPlayer() {
-        do {
-            currentPlayer = (currentPlayer + 1) % players.length;
-        } while (!isPlayerActive(currentPlayer));
+        currentPlayer = playerManager.nextActiveSeat(currentPlayer);
     }
 
     private void resetToFirstPlayer() {
         // In pre-flop, first player is after big blind (dealer + 3)
         // In all other streets, first player is small blind (dealer + 1)
-        int offset = state == GameState.START ? 3 : 1;
-        currentPlayer = (dealerManager.getDealerPosition() + offset) % players.length;
-        while (!isPlayerActive(currentPlayer)) {
-            currentPlayer = (currentPlayer + 1) % players.length;
-        }
+        currentPlayer = HandFlow.firstToAct(state, playerManager.getActiveMask(),
+            dealerManager.getDealerPosition(), players.length);
         roundStartPlayer = -1;  // Reset for new betting round
     }
 
     public boolean processNextAction() {
         if (state == GameState.FINISH) {
-            System.out.println("In FINISH state - checking if game can continue");
-            
             // Check if game is truly over (not enough players with money)
             if (!hasEnoughPlayersWithMoney()) {
-                System.out.println("Game is over - not enough players with money");
                 return false;  // Signal that no more actions can be taken
             }
             
-            System.out.println("Starting new hand");
             dealerManager.advanceDealer(playerManager);
             startNewHand();
             return true;
         }
         
+        // The blinds can leave nobody able to bet
+        if (HandFlow.isBettingClosed(playerManager.getActiveMask(), getMatchedMask())) {
+            dealOutBoard();
+            return true;
+        }
+        
         // Initialize roundStartPlayer if not set
         if (roundStartPlayer == -1) {
             roundStartPlayer = currentPlayer;
-            System.out.println("Setting round start player to: " + currentPlayer);
         }
         
-        // Get and process player's action
-        System.out.println("Getting action for player " + currentPlayer + " (" + players[currentPlayer].getName() + ")");
-        Action playerAction = players[currentPlayer].getAction(
-            bettingManager.getCurrentBet(),
-            cardManager.getCommunityCards(),
-            bettingManager.getPot()
-        );
-        System.out.println("Player action: " + playerAction);
-        
-        boolean actionTaken = bettingManager.processAction(playerAction, currentPlayer);
-        System.out.println("Action taken: " + actionTaken);
+        // Get and process player's action, offering only what the rules allow
+        int legalActions = bettingManager.getLegalActions(currentPlayer);
+        long decision = players[currentPlayer].getAction(
+            this, currentPlayer, legalActions, bettingManager.getMinRaiseTo());
+        boolean actionTaken = bettingManager.processAction(decision, currentPlayer, legalActions);
         
         if (!actionTaken) {
-            System.out.println("Invalid action: " + playerAction + ". Forcing fold.");
+            listener.invalidAction(currentPlayer, decision);
             // Force a fold if the player makes an invalid action
-            playerAction = Action.FOLD;
-            actionTaken = bettingManager.processAction(playerAction, currentPlayer);
+            decision = Decision.FOLD;
+            actionTaken = bettingManager.processAction(decision, currentPlayer, legalActions);
             if (!actionTaken) {
-                System.out.println("Critical error: Could not process fold action");
-                return false;
+                return false;  // Could not even fold
             }
         }
 
         // Record the action
-        addHandAnalysis(getActionDescription(players[currentPlayer], playerAction));
+        Action playerAction = Decision.action(decision);
+        int amount = getActionAmount(currentPlayer, decision);
+        listener.actionTaken(currentPlayer, playerAction, amount);
+        recordAction(currentPlayer, playerAction, amount);
         
-        // Check if only one player remains
-        if (getActivePlayerCount() == 1) {
-            System.out.println("Only one player remains active!");
-            List<Integer> activePlayers = getActivePlayers();
-            currentPlayer = activePlayers.get(0);
-            System.out.println("Last player standing: " + players[currentPlayer].getName());
-            determineWinner();  // Award pot to the last remaining player
-            state = GameState.FINISH;  // Set state to FINISH after awarding pot
-            dealerManager.advanceDealer(playerManager);  // Advance dealer for next hand
-            return true;
+        switch (HandFlow.afterAction(playerManager.getActiveMask(), playerManager.getAllInMask(),
+                getMatchedMask(), roundStartPlayer, currentPlayer, players.length)) {
+            case HandFlow.LAST_PLAYER:
+                currentPlayer = Integer.numberOfTrailingZeros(playerManager.getInHandMask());
+                determineWinner();  // Award pot to the last remaining player
+                state = GameState.FINISH;  // Set state to FINISH after awarding pot
+                dealerManager.advanceDealer(playerManager);  // Advance dealer for next hand
+                return true;
+            case HandFlow.RUN_OUT:
+                // Everyone else still in the hand is all-in, so nobody can bet
+                dealOutBoard();
+                return true;
+            case HandFlow.NEXT_STREET:
+                moveToNextPlayer();
+                moveToNextStreet();
+                
+                // Reset player order for next street if game isn't finished
+                if (state != GameState.FINISH) {
+                    resetToFirstPlayer();
+                    roundStartPlayer = currentPlayer;  // Set the new round start player
+                } else {
+                    dealerManager.advanceDealer(playerManager);
+                }
+                return true;
+            default:
+                moveToNextPlayer();
+                return false;
         }
-        
-        // Move to next player
-        int oldPlayer = currentPlayer;
-        moveToNextPlayer();
-        System.out.println("Moved from player " + oldPlayer + " to " + currentPlayer);
-        
-        // Check if round is complete
-        if (isRoundComplete()) {
-            System.out.println("Round is complete - moving to next street");
+    }
+    
+    /**
+     * Deals the rest of the board and goes to showdown, for when no more
+     * betting is possible, without going round the table street by street.
+     */
+    private void dealOutBoard() {
+        if (allInEquity) {
+            reportAllInEquity();
+        }
+        while (state != GameState.FINISH) {
             moveToNextStreet();
-            
-            // Reset player order for next street if game isn't finished
-            if (state != GameState.FINISH) {
-                resetToFirstPlayer();
-                roundStartPlayer = currentPlayer;  // Set the new round start player
-                System.out.println("Reset to first player: " + currentPlayer);
-            } else {
-                System.out.println("Game finished - dealer will advance");
-                dealerManager.advanceDealer(playerManager);
-            }
-            return true;
         }
-        
-        return false;
+        dealerManager.advanceDealer(playerManager);
     }
     
-    private String getActionDescription(Player player, Action action) {
-        // Get player's current hand strength
-        ArrayList<Card> playerCards = new ArrayList<>(player.getCards());
-        playerCards.addAll(cardManager.getCommunityCards());
-        HandEvaluator handEval = new HandEvaluator(playerCards);
-        String handDesc = handEval.getString();
-        
-        String actionDesc;
-        switch (action) {
-            case FOLD:
-                actionDesc = player.getName() + " folds";
-                break;
-            case CHECK:
-                actionDesc = player.getName() + " checks";
-                break;
+    /** Tells the listener what each player all-in can expect to win, before the board is dealt */
+    private void reportAllInEquity() {
+        int inHand = playerManager.getInHandMask();
+        for (int seat = 0; seat < players.length; seat++) {
+            contributions[seat] = bettingManager.getContribution(seat);
+        }
+        if (equity == null) {
+            equity = new AllInEquity(players.length);
+        }
+        equity.compute(players, inHand, cardManager.getCommunityCardSet(), contributions, expectedAwards);
+        for (int rest = inHand; rest != 0; rest &= rest - 1) {
+            int seat = Integer.numberOfTrailingZeros(rest);
+            listener.allInEquity(seat, expectedAwards[seat]);
+        }
+    }
+    
+    /** Gets the bet an applied action called or raised to, or 0 for a fold or check */
+    private int getActionAmount(int seat, long decision) {
+        switch (Decision.action(decision)) {
             case CALL:
-                actionDesc = player.getName() + " calls $" + bettingManager.getCurrentBet();
-                break;
+                // What the caller is in for, less than the bet when all-in for less
+                return players[seat].getCommitted();
             case RAISE:
-                actionDesc = player.getName() + " raises to $" + action.getAmount();
-                break;
+                return Decision.amount(decision);
             default:
-                return "";
-        }
-        
-        // Only add hand description if player hasn't folded and there are community cards
-        if (!player.isFolded() && !cardManager.getCommunityCards().isEmpty()) {
-            actionDesc += " (" + handDesc + ")";
+                return 0;
         }
-        
-        return actionDesc;
+    }
+    
+    /**
+     * Adds an applied action to the hand log. Only the cards are kept; the
+     * hand is described when the log is read.
+     */
+    private void recordAction(int seat, Action action, int amount) {
+        Player player = players[seat];
+        long cards = player.isFolded() ? CardSet.EMPTY
+            : CardSet.union(player.getCardSet(), cardManager.getCommunityCardSet());
+        handLog.action(seat, action, amount, state, cards);
     }
     
     private void determineWinner() {
-        // Find active players
-        List<Integer> activeIndices = new ArrayList<>();
-        for (int i = 0; i < players.length; i++) {
-            if (isPlayerActive(i)) {
-                activeIndices.add(i);
-            }
-        }
+        // Everyone dealt in who has not folded, all-in players included
+        int inHand = playerManager.getInHandMask();
         
-        if (activeIndices.size() == 1) {
+        if (Integer.bitCount(inHand) == 1) {
             // Only one player left - they win
-            int winner = activeIndices.get(0);
+            int winner = Integer.numberOfTrailingZeros(inHand);
             int potAmount = bettingManager.getPot();
             bettingManager.awardPot(winner);
-            String message = players[winner].getName() + " wins $" + potAmount;
-            addHandAnalysis(message);
-            messageManager.addMessage(message);
+            listener.potAwarded(winner, potAmount);
+            handLog.won(winner, potAmount);
         } else {
-            // Compare hands
-            int bestRank = -1;
-            List<Integer> winners = new ArrayList<>();
-            
-            for (int index : activeIndices) {
-                ArrayList<Card> playerCards = new ArrayList<>(players[index].getCards());
-                playerCards.addAll(cardManager.getCommunityCards());
-                HandEvaluator evaluator = new HandEvaluator(playerCards);
-                int rank = evaluator.getRanking();
-                
-                if (rank > bestRank) {
-                    bestRank = rank;
-                    winners.clear();
-                    winners.add(index);
-                } else if (rank == bestRank) {
-                    winners.add(index);
-                }
+            // Compare hands by full score so kickers decide between equal categories
+            // Each seat holds only its hole cards, scored on the one shared board
+            Board board = cardManager.getBoard();
+            for (int rest = inHand; rest != 0; rest &= rest - 1) {
+                int index = Integer.numberOfTrailingZeros(rest);
+                showdownScores[index] = board.scoreWith(players[index].getCardSet());
+                listener.showdown(index, players[index].getCardSet(), showdownScores[index]);
             }
             
-            int potAmount = bettingManager.getPot();
-            if (winners.size() == 1) {
-                int winner = winners.get(0);
-                bettingManager.awardPot(winner);
-                ArrayList<Card> winningCards = new ArrayList<>(players[winner].getCards());
-                winningCards.addAll(cardManager.getCommunityCards());
-                HandEvaluator winnerHand = new HandEvaluator(winningCards);
-                String message = players[winner].getName() + " wins $" + potAmount + 
-                               " with " + winnerHand.getString();
-                addHandAnalysis(message);
-                messageManager.addMessage(message);
-            } else {
-                int[] winnerArray = new int[winners.size()];
-                for (int i = 0; i < winners.size(); i++) {
-                    winnerArray[i] = winners.get(i);
+            // Players all-in for less can only win what they matched
+            SidePots pots = bettingManager.awardShowdown(inHand, showdownScores);
+            for (int pot = 0; pot < pots.getPotCount(); pot++) {
+                int winners = pots.getPotWinners(pot);
+                if (Integer.bitCount(winners) == 1) {
+                    handLog.won(Integer.numberOfTrailingZeros(winners), pots.getPotAmount(pot), pots.getPotScore(pot));
+                } else {
+                    handLog.split(winners, pots.getPotAmount(pot), pots.getPotScore(pot));
                 }
-                bettingManager.splitPot(winnerArray);
-                
-                StringBuilder sb = new StringBuilder("Split pot ($" + potAmount + ") between: ");
-                for (int i = 0; i < winners.size(); i++) {
-                    if (i > 0) sb.append(", ");
-                    sb.append(players[winners.get(i)].getName());
+            }
+            for (int seat = 0; seat < players.length; seat++) {
+                if (pots.getAward(seat) > 0) {
+                    listener.potAwarded(seat, pots.getAward(seat));
                 }
-                ArrayList<Card> winningCards = new ArrayList<>(players[winners.get(0)].getCards());
-                winningCards.addAll(cardManager.getCommunityCards());
-                HandEvaluator winnerHand = new HandEvaluator(winningCards);
-                sb.append(" with ").append(winnerHand.getString());
-                String message = sb.toString();
-                addHandAnalysis(message);
-                messageManager.addMessage(message);
             }
         }
+        listener.handFinished(handsPlayed);
     }
     
-    private void addHandAnalysis(String analysis) {
-        handAnalysis.add(analysis);
-    }
+    /**
+     * Gets the analysis of the current hand as lines of text, rendered from
+     * the hand log when asked for.
+     * @return An unmodifiable list of lines
+     */
+    public List<String> getHandAnalysis() { return handLog.render(players); }
     
     // Getters
-    public List<String> getHandAnalysis() { return handAnalysis; }
     public int getSmallBlind() { return smallBlind; }
     public int getBigBlind() { return bigBlind; }
     public int getCurrentPlayer() { return currentPlayer; }
     public GameState getGameState() { return state; }
-    public int getPot() { return bettingManager.getPot(); }
     public int getDealerIndex() { return dealerManager.getDealerPosition(); }
     public CardManager getCardManager() { return cardManager; }
     public boolean isTestMode() { return testMode; }
+    /**
+     * Sets the listener told about each event of the game, such as a
+     * {@link ConsoleGameListener}; null stops the events.
+     */
+    public void setListener(GameEventListener listener) {
+        this.listener = listener == null ? GameEventListener.NONE : listener;
+    }
+    /**
+     * Sets whether a hand that goes all-in works out each player's share of
+     * the pot over the possible runouts and reports it to the listener (see
+     * {@link GameEventListener#allInEquity(int, double)}). The share is exact
+     * once the flop is out and sampled before it; the chips still move by the
+     * board dealt.
+     */
+    public void setAllInEquity(boolean allInEquity) {
+        this.allInEquity = allInEquity;
+    }
     public List<Integer> getActivePlayers() { return playerManager.getActivePlayers(); }
     public boolean isPlayerActive(int playerIndex) { return playerManager.isPlayerActive(playerIndex); }
+
+    // The table as strategies see it
+    @Override
     public int getActivePlayerCount() { return playerManager.getActivePlayerCount(); }
+    @Override
+    public int getPot() { return bettingManager.getPot(); }
+    @Override
+    public int getSeatCount() { return players.length; }
+    @Override
+    public int getStack(int seat) { return players[seat].getMoney(); }
+    @Override
+    public int getCommitted(int seat) { return players[seat].getCommitted(); }
+    @Override
+    public long getCommunityCardSet() { return cardManager.getCommunityCardSet(); }
+    @Override
+    public int scoreHand(long holeCards) { return cardManager.getBoard().scoreWith(holeCards); }
+    @Override
+    public int getCurrentBet() { return bettingManager.getCurrentBet(); }
+    @Override
+    public GameState getStreet() { return state; }
 } 
\ No newline at end of file
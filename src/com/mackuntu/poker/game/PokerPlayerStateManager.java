@@ -5,123 +5,150 @@ import java.util.List;
 import com.mackuntu.poker.Player.Player;
 import com.mackuntu.poker.Player.PlayerState;
 
+/**
+ * Tracks which seats are active, folded, all-in or busted as int bitmasks,
+ * one bit per seat, so counting and walking the seats does not allocate.
+ */
 public class PokerPlayerStateManager implements PlayerStateManager {
+    /** Seats a mask can hold */
+    public static final int MAX_SEATS = Integer.SIZE;
+
     private final Player[] players;
-    private final ArrayList<Integer> activePlayers;
+    private int activeMask;
+    private int foldedMask;
+    private int allInMask;
+    private int bustedMask;
     private int currentPlayerIndex;
-    
+
     public PokerPlayerStateManager(Player[] players) {
+        if (players.length > MAX_SEATS) {
+            throw new IllegalArgumentException("At most " + MAX_SEATS + " seats are supported");
+        }
         this.players = players;
-        this.activePlayers = new ArrayList<>();
         initializeActivePlayers();
     }
-    
+
     @Override
     public void initializeActivePlayers() {
-        activePlayers.clear();
+        activeMask = 0;
+        foldedMask = 0;
+        allInMask = 0;
+        bustedMask = 0;
         // All players with money start as active in the new hand
         for (int i = 0; i < players.length; i++) {
             if (players[i].getMoney() > 0) {
                 players[i].setState(PlayerState.ACTIVE);
-                activePlayers.add(i);
+                activeMask |= 1 << i;
+            } else {
+                bustedMask |= 1 << i;
             }
         }
-        if (!activePlayers.isEmpty()) {
-            currentPlayerIndex = activePlayers.get(0);
+        if (activeMask != 0) {
+            currentPlayerIndex = Integer.numberOfTrailingZeros(activeMask);
         }
     }
-    
+
     @Override
     public void reinitializePlayers() {
         // Reset all player states for new hand
         for (Player player : players) {
             player.reInit();  // This clears cards and resets state based on money
         }
-        // Initialize active players list with all players who have money
+        // Initialize active players with all players who have money
         initializeActivePlayers();
     }
-    
+
     @Override
     public boolean isPlayerActive(int playerIndex) {
         // During a hand, a player is active if they haven't folded and aren't all-in
-        return players[playerIndex].isActive();
+        return (activeMask & (1 << playerIndex)) != 0;
     }
-    
+
     @Override
     public void handlePlayerFold(int playerIndex) {
         players[playerIndex].fold();  // This sets state to FOLDED
-        activePlayers.remove(Integer.valueOf(playerIndex));
-        
+        activeMask &= ~(1 << playerIndex);
+        allInMask &= ~(1 << playerIndex);
+        foldedMask |= 1 << playerIndex;
+
         // If the folding player was the current player, move to the next one
-        if (currentPlayerIndex == playerIndex && !activePlayers.isEmpty()) {
-            // Find the next active player in sequence
-            int nextIndex = 0;
-            for (int i = 0; i < activePlayers.size(); i++) {
-                if (activePlayers.get(i) > playerIndex) {
-                    nextIndex = i;
-                    break;
-                }
-            }
-            currentPlayerIndex = activePlayers.get(nextIndex);
+        if (currentPlayerIndex == playerIndex && activeMask != 0) {
+            currentPlayerIndex = nextActiveSeat(playerIndex);
         }
     }
-    
+
     @Override
     public void handlePlayerAllIn(int playerIndex) {
-        activePlayers.remove(Integer.valueOf(playerIndex));
-        if (currentPlayerIndex == playerIndex && !activePlayers.isEmpty()) {
+        activeMask &= ~(1 << playerIndex);
+        allInMask |= 1 << playerIndex;
+        if (currentPlayerIndex == playerIndex && activeMask != 0) {
             moveToNextPlayer();
         }
     }
-    
+
     @Override
     public List<Integer> getActivePlayers() {
-        // Refresh active players list based on current state
-        ArrayList<Integer> currentActive = new ArrayList<>();
-        for (int i = 0; i < players.length; i++) {
-            if (isPlayerActive(i)) {
-                currentActive.add(i);
-            }
+        List<Integer> active = new ArrayList<>(Integer.bitCount(activeMask));
+        for (int rest = activeMask; rest != 0; rest &= rest - 1) {
+            active.add(Integer.numberOfTrailingZeros(rest));
         }
-        // Update our internal list
-        activePlayers.clear();
-        activePlayers.addAll(currentActive);
-        return new ArrayList<>(activePlayers);
+        return active;
     }
-    
+
     @Override
     public int getActivePlayerCount() {
-        return getActivePlayers().size();  // Use refreshed list
+        return Integer.bitCount(activeMask);
     }
-    
+
+    @Override
+    public int getActiveMask() {
+        return activeMask;
+    }
+
+    @Override
+    public int getFoldedMask() {
+        return foldedMask;
+    }
+
+    @Override
+    public int getAllInMask() {
+        return allInMask;
+    }
+
+    @Override
+    public int getBustedMask() {
+        return bustedMask;
+    }
+
+    @Override
+    public int getInHandMask() {
+        return activeMask | allInMask;
+    }
+
+    @Override
+    public int nextActiveSeat(int playerIndex) {
+        return HandFlow.nextSeat(activeMask, playerIndex);
+    }
+
     @Override
     public int getPlayerCount() {
         return players.length;
     }
-    
+
     @Override
     public Player getPlayer(int playerIndex) {
         return players[playerIndex];
     }
-    
+
     @Override
     public void moveToNextPlayer() {
-        if (activePlayers.isEmpty()) {
-            return;
+        if (activeMask != 0) {
+            currentPlayerIndex = nextActiveSeat(currentPlayerIndex);
         }
-        
-        int currentActiveIndex = activePlayers.indexOf(currentPlayerIndex);
-        if (currentActiveIndex == -1) {
-            currentPlayerIndex = activePlayers.get(0);
-            return;
-        }
-        
-        currentActiveIndex = (currentActiveIndex + 1) % activePlayers.size();
-        currentPlayerIndex = activePlayers.get(currentActiveIndex);
     }
-    
+
     @Override
     public int getCurrentPlayerIndex() {
         return currentPlayerIndex;
     }
-} 
\ No newline at end of file
+}
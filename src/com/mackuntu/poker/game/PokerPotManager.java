@@ -1,22 +1,36 @@
 package com.mackuntu.poker.game;
 
-import com.mackuntu.poker.Player.Player;
+import java.util.Arrays;
 
+/**
+ * Holds the chips bet in a hand, remembering how much each seat put in so a
+ * showdown can be paid out in side pots.
+ */
 public class PokerPotManager implements PotManager {
     private int pot;
     private final PlayerStateManager playerManager;
+    private final int[] contributions;
+    private final SidePots sidePots;
     
     public PokerPotManager(PlayerStateManager playerManager) {
         this.playerManager = playerManager;
+        this.contributions = new int[playerManager.getPlayerCount()];
+        this.sidePots = new SidePots(contributions.length);
         resetPot();
     }
     
     @Override
-    public void addToPot(int amount) {
+    public void addToPot(int playerIndex, int amount) {
         if (amount < 0) {
             throw new IllegalArgumentException("Cannot add negative amount to pot");
         }
         pot += amount;
+        contributions[playerIndex] += amount;
+    }
+    
+    @Override
+    public int getContribution(int playerIndex) {
+        return contributions[playerIndex];
     }
     
     @Override
@@ -51,6 +65,21 @@ public class PokerPotManager implements PotManager {
         resetPot();
     }
     
+    @Override
+    public SidePots awardShowdown(int inHand, int[] scores) {
+        if (pot <= 0) {
+            throw new IllegalStateException("Cannot award zero or negative pot");
+        }
+        sidePots.resolve(contributions, inHand, scores);
+        for (int seat = 0; seat < contributions.length; seat++) {
+            if (sidePots.getAward(seat) > 0) {
+                playerManager.getPlayer(seat).adjustMoney(sidePots.getAward(seat));
+            }
+        }
+        resetPot();
+        return sidePots;
+    }
+    
     @Override
     public int getPotSize() {
         return pot;
@@ -59,5 +88,6 @@ public class PokerPotManager implements PotManager {
     @Override
     public void resetPot() {
         pot = 0;
+        Arrays.fill(contributions, 0);
     }
 } 
\ No newline at end of file
@@ -1,9 +1,18 @@
 package com.mackuntu.poker.game;
 
 public interface PotManager {
-    void addToPot(int amount);
+    void addToPot(int playerIndex, int amount);
+    int getContribution(int playerIndex);
     void awardPot(int playerIndex);
     void splitPot(int[] playerIndices);
+    /**
+     * Pays out a showdown, splitting the pot into side pots by what each
+     * seat put in.
+     * @param inHand Seats that can win, one bit per seat
+     * @param scores Hand scores of the seats in the hand
+     * @return The pots and their winners, valid until the next showdown
+     */
+    SidePots awardShowdown(int inHand, int[] scores);
     int getPotSize();
     void resetPot();
-} 
\ No newline at end of file
+}
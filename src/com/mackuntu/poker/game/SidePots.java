@@ -0,0 +1,153 @@
+package com.mackuntu.poker.game;
+
+import java.util.Arrays;
+
+/**
+ * Splits a showdown pot into a main pot and side pots by what each seat put
+ * into the hand, and works out who wins each of them.
+ *
+ * Seats are sorted once by contribution. Walking them in that order, every
+ * step adds one slice of chips from each seat still above it, and each level
+ * a player in the hand is all-in for closes a pot. Seats still in the hand are
+ * also sorted once by score; since each pot needs a higher contribution than
+ * the one before, seats that drop out of eligibility never come back, so the
+ * best eligible hand of every pot is found by moving one cursor down that
+ * ordering. A showdown costs O(n log n) in seats and allocates nothing.
+ */
+public final class SidePots {
+    /** Bits a seat index takes in a packed sort key */
+    private static final int SEAT_BITS = 5;
+    private static final int SEAT_MASK = (1 << SEAT_BITS) - 1;
+
+    private final int seats;
+    private final long[] byContribution;
+    private final long[] byScore;
+    private final int[] potAmounts;
+    private final int[] potLevels;
+    private final int[] potWinners;
+    private final int[] potScores;
+    private final int[] awards;
+    private int potCount;
+
+    /**
+     * @param seats The number of seats at the table, at most
+     *              {@link PokerPlayerStateManager#MAX_SEATS}
+     */
+    public SidePots(int seats) {
+        if (seats > PokerPlayerStateManager.MAX_SEATS) {
+            throw new IllegalArgumentException("At most " + PokerPlayerStateManager.MAX_SEATS + " seats are supported");
+        }
+        this.seats = seats;
+        this.byContribution = new long[seats];
+        this.byScore = new long[seats];
+        this.potAmounts = new int[seats];
+        this.potLevels = new int[seats];
+        this.potWinners = new int[seats];
+        this.potScores = new int[seats];
+        this.awards = new int[seats];
+    }
+
+    /**
+     * Builds the pots and decides their winners. Ties split a pot evenly,
+     * with the odd chips going to the lowest winning seat.
+     * @param contributions Chips each seat put into the hand, folded seats included
+     * @param inHand Seats that can win, one bit per seat
+     * @param scores Hand scores of the seats in the hand; higher wins
+     */
+    public void resolve(int[] contributions, int inHand, int[] scores) {
+        if (inHand == 0) {
+            throw new IllegalArgumentException("No seat is left to win the pot");
+        }
+        buildPots(contributions, inHand);
+        awardPots(contributions, inHand, scores);
+    }
+
+    private void buildPots(int[] contributions, int inHand) {
+        for (int seat = 0; seat < seats; seat++) {
+            byContribution[seat] = ((long) contributions[seat] << SEAT_BITS) | seat;
+        }
+        Arrays.sort(byContribution);
+
+        potCount = 0;
+        int level = 0;
+        int open = 0;
+        for (int k = 0; k < seats; k++) {
+            int seat = (int) byContribution[k] & SEAT_MASK;
+            int contribution = (int) (byContribution[k] >>> SEAT_BITS);
+            open += (contribution - level) * (seats - k);
+            level = contribution;
+            // A player in the hand caps a pot at what they put in
+            if ((inHand & (1 << seat)) != 0 && open > 0) {
+                potAmounts[potCount] = open;
+                potLevels[potCount] = level;
+                potCount++;
+                open = 0;
+            }
+        }
+        // Chips a folded player put in above everyone still in the hand
+        if (open > 0) {
+            potAmounts[potCount - 1] += open;
+        }
+    }
+
+    private void awardPots(int[] contributions, int inHand, int[] scores) {
+        int ranked = 0;
+        for (int rest = inHand; rest != 0; rest &= rest - 1) {
+            int seat = Integer.numberOfTrailingZeros(rest);
+            byScore[ranked++] = ((long) scores[seat] << SEAT_BITS) | seat;
+        }
+        Arrays.sort(byScore, 0, ranked);
+        Arrays.fill(awards, 0);
+
+        // Walks down from the best hand; pots are in rising level order
+        int cursor = ranked - 1;
+        for (int pot = 0; pot < potCount; pot++) {
+            while (contributions[seatAt(cursor)] < potLevels[pot]) {
+                cursor--;
+            }
+            int score = scores[seatAt(cursor)];
+            int winners = 0;
+            for (int i = cursor; i >= 0 && scores[seatAt(i)] == score; i--) {
+                if (contributions[seatAt(i)] >= potLevels[pot]) {
+                    winners |= 1 << seatAt(i);
+                }
+            }
+            potWinners[pot] = winners;
+            potScores[pot] = score;
+
+            int share = potAmounts[pot] / Integer.bitCount(winners);
+            for (int rest = winners; rest != 0; rest &= rest - 1) {
+                awards[Integer.numberOfTrailingZeros(rest)] += share;
+            }
+            awards[Integer.numberOfTrailingZeros(winners)] += potAmounts[pot] % Integer.bitCount(winners);
+        }
+    }
+
+    private int seatAt(int rank) {
+        return (int) byScore[rank] & SEAT_MASK;
+    }
+
+    /** Gets the number of pots, the main pot first */
+    public int getPotCount() {
+        return potCount;
+    }
+
+    public int getPotAmount(int pot) {
+        return potAmounts[pot];
+    }
+
+    /** Gets the seats that won a pot, one bit per seat */
+    public int getPotWinners(int pot) {
+        return potWinners[pot];
+    }
+
+    /** Gets the score that won a pot */
+    public int getPotScore(int pot) {
+        return potScores[pot];
+    }
+
+    /** Gets the chips a seat won over all pots */
+    public int getAward(int seat) {
+        return awards[seat];
+    }
+}
@@ -1,6 +1,8 @@
 package com.mackuntu.poker.game;
 
 import com.mackuntu.poker.Action.Action;
+import com.mackuntu.poker.Action.Decision;
+import com.mackuntu.poker.Action.LegalActions;
 import com.mackuntu.poker.Player.Player;
 
 public class StandardActionValidator implements ActionValidator {
@@ -11,26 +13,17 @@ public class StandardActionValidator implements ActionValidator {
     }
     
     @Override
-    public boolean isValidAction(Action action, Player player, int currentBet) {
-        if (!player.canAct()) {
+    public boolean isValidAction(long decision, Player player, int currentBet) {
+        return isValidAction(decision, player, currentBet, bettingRules.getLegalActions(player));
+    }
+    
+    @Override
+    public boolean isValidAction(long decision, Player player, int currentBet, int legalActions) {
+        Action action = Decision.action(decision);
+        if (action == null || !player.canAct() || !LegalActions.contains(legalActions, action)) {
             return false;
         }
-        
-        switch (action) {
-            case FOLD:
-                return true;
-                
-            case CHECK:
-                return bettingRules.canCheck(player);
-                
-            case CALL:
-                return bettingRules.canCall(player);
-                
-            case RAISE:
-                return bettingRules.canRaise(player, action.getAmount());
-                
-            default:
-                return false;
-        }
+        // A raise must also land inside the raise bounds
+        return action != Action.RAISE || bettingRules.canRaise(player, Decision.amount(decision));
     }
-} 
\ No newline at end of file
+}
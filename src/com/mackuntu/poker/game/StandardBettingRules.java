@@ -1,5 +1,7 @@
 package com.mackuntu.poker.game;
 
+import com.mackuntu.poker.Action.Action;
+import com.mackuntu.poker.Action.LegalActions;
 import com.mackuntu.poker.Player.Player;
 
 public class StandardBettingRules implements BettingRules {
@@ -10,34 +12,27 @@ public class StandardBettingRules implements BettingRules {
         resetBets();
     }
     
+    @Override
+    public int getLegalActions(Player player) {
+        // Can only check with no bet to call, call a bet the player can afford,
+        // and raise by at least the current bet without going over their stack
+        return LegalActions.compute(currentBet, player.getCommitted(), player.getMoney(), minRaise);
+    }
+    
     @Override
     public boolean canCheck(Player player) {
-        // Can only check if player has matched the current bet
-        // AND there is no current bet to call
-        return player.getCommitted() == currentBet && currentBet == 0;
+        return LegalActions.contains(getLegalActions(player), Action.CHECK);
     }
     
     @Override
     public boolean canCall(Player player) {
-        int toCall = currentBet - player.getCommitted();
-        // Can call if there's a bet to match and player has enough money
-        return toCall > 0 && toCall <= player.getMoney();
+        return LegalActions.contains(getLegalActions(player), Action.CALL);
     }
     
     @Override
     public boolean canRaise(Player player, int amount) {
-        if (amount <= currentBet) {
-            return false;
-        }
-        
-        int totalNeeded = amount - player.getCommitted();
-        // Can raise if:
-        // 1. Amount is more than current bet
-        // 2. Player has enough money
-        // 3. Raise amount meets minimum raise requirement
-        return totalNeeded > 0 && 
-               totalNeeded <= player.getMoney() && 
-               (amount - currentBet) >= minRaise;
+        return amount >= getMinimumRaiseTo()
+            && amount <= LegalActions.maxRaiseTo(player.getCommitted(), player.getMoney());
     }
     
     @Override
@@ -45,6 +40,11 @@ public class StandardBettingRules implements BettingRules {
         return minRaise;
     }
     
+    @Override
+    public int getMinimumRaiseTo() {
+        return LegalActions.minRaiseTo(currentBet, minRaise);
+    }
+    
     @Override
     public int getCurrentBet() {
         return currentBet;
@@ -61,4 +61,4 @@ public class StandardBettingRules implements BettingRules {
         currentBet = 0;
         minRaise = 0;
     }
-} 
\ No newline at end of file
+}
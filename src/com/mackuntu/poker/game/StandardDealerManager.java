@@ -24,8 +24,12 @@ public class StandardDealerManager implements DealerPositionManager {
     
     @Override
     public void advanceDealer(PlayerStateManager playerManager) {
-        do {
-            dealerPosition = (dealerPosition + 1) % numPlayers;
-        } while (!playerManager.isPlayerActive(dealerPosition));
+        int withChips = 0;
+        for (int i = 0; i < numPlayers; i++) {
+            if (playerManager.getPlayer(i).getMoney() > 0) {
+                withChips |= 1 << i;
+            }
+        }
+        dealerPosition = HandFlow.nextDealer(dealerPosition, withChips);
     }
 } 
\ No newline at end of file
@@ -5,8 +5,10 @@ import processing.core.PFont;
 import processing.core.PImage;
 import com.mackuntu.poker.Card.Card;
 import com.mackuntu.poker.Player.Player;
+import com.mackuntu.poker.Evaluator.Board;
 import com.mackuntu.poker.Evaluator.HandEvaluator;
 import java.util.ArrayList;
+import java.util.List;
 
 public class PokerUI {
     private static final int CARD_WIDTH = 84;
@@ -65,14 +67,14 @@ public class PokerUI {
         applet.ellipse(width/2, height/2, width * 0.85f, height * 0.75f);  // Adjusted table size
     }
 
-    public void drawCommunityCards(ArrayList<Card> deck, int width, int height) {
+    public void drawCommunityCards(List<Card> deck, int width, int height) {
         if (deck == null || deck.isEmpty()) return;
         
         int totalWidth = (int)(deck.size() * CARD_WIDTH * CARD_SCALE);
         int startX = width/2 - totalWidth/2;
         
         for(int i = 0; i < deck.size(); i++) {
-            applet.image(deckImages[deck.get(i).hashCode()],
+            applet.image(deckImages[deck.get(i).getIndex()],
                 startX + i * (CARD_WIDTH * CARD_SCALE), 
                 height/2 - (CARD_HEIGHT * CARD_SCALE)/2,
                 CARD_WIDTH * CARD_SCALE,
@@ -115,9 +117,9 @@ public class PokerUI {
             applet.image(cardBack, x + CARD_WIDTH * CARD_SCALE, y, 
                 CARD_WIDTH * CARD_SCALE, CARD_HEIGHT * CARD_SCALE);
         } else if (playerHand.size() >= 2) {
-            applet.image(deckImages[playerHand.get(0).hashCode()], x, y, 
+            applet.image(deckImages[playerHand.get(0).getIndex()], x, y, 
                 CARD_WIDTH * CARD_SCALE, CARD_HEIGHT * CARD_SCALE);
-            applet.image(deckImages[playerHand.get(1).hashCode()], 
+            applet.image(deckImages[playerHand.get(1).getIndex()], 
                 x + CARD_WIDTH * CARD_SCALE, y, 
                 CARD_WIDTH * CARD_SCALE, CARD_HEIGHT * CARD_SCALE);
         }
@@ -158,7 +160,7 @@ public class PokerUI {
     }
 
     public void drawHandAnalysis(ArrayList<String> handAnalysis, int currentPlayerIndex, 
-            Player[] players, ArrayList<Card> communityCards, int width, int height) {
+            Player[] players, Board board, int width, int height) {
         // Draw background
         applet.fill(0, 100);
         applet.noStroke();
@@ -174,16 +176,7 @@ public class PokerUI {
         // Add current hand info
         if (currentPlayerIndex >= 0 && currentPlayerIndex < players.length 
                 && !players[currentPlayerIndex].isFolded()) {
-            ArrayList<Card> playerCards = players[currentPlayerIndex].getCards();
-            if (playerCards != null) {
-                ArrayList<Card> allCards = new ArrayList<>(playerCards);
-                if (communityCards != null) {
-                    allCards.addAll(communityCards);
-                }
-                HandEvaluator currentHand = new HandEvaluator(allCards);
-                String handDesc = currentHand.getString();
-                allLines.add("Current Hand: " + handDesc);
-            }
+            allLines.add("Current Hand: " + HandEvaluator.describe(players[currentPlayerIndex].getHandScore(board)));
         }
         
         // Add action history
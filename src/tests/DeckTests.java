@@ -7,9 +7,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com.mackuntu.poker.Card.Card;
+import com.mackuntu.poker.Card.CardSet;
 import com.mackuntu.poker.Dealer.Dealer;
+import com.mackuntu.poker.Dealer.RandomStreams;
 import com.mackuntu.poker.Evaluator.HandEvaluator;
 import java.util.ArrayList;
+import java.util.HashSet;
 
 public class DeckTests {
 	/** The dealer instance used for testing */
@@ -67,6 +70,42 @@ public class DeckTests {
 		assertEquals(4, hand.getRanking(), "Should be a straight (rank 4)");
 	}
 
+	/**
+	 * Tests that a full deck deals every card once, and that reset returns them all.
+	 */
+	@Test
+	public void testDealerDealsWholeDeckAndResets() {
+		for (int round = 0; round < 2; round++) {
+			long dealt = CardSet.EMPTY;
+			for (int i = 0; i < 52; i++) {
+				int card = dealer.getCard();
+				assertFalse(CardSet.contains(dealt, card));
+				dealt = CardSet.add(dealt, card);
+			}
+			assertEquals(CardSet.FULL_DECK, dealt);
+			assertEquals(0, dealer.getSize());
+			assertThrows(IllegalStateException.class, () -> dealer.getCard());
+			dealer.reset();
+			assertEquals(52, dealer.getSize());
+		}
+	}
+
+	/**
+	 * Tests that a reset test-mode dealer deals the same cards as a new one.
+	 */
+	@Test
+	public void testTestModeResetRepeatsDeal() {
+		Dealer reused = new Dealer(true);
+		for (int i = 0; i < 20; i++) {
+			reused.getCard();
+		}
+		reused.reset();
+		Dealer fresh = new Dealer(true);
+		for (int i = 0; i < 52; i++) {
+			assertEquals(fresh.getCard(), reused.getCard());
+		}
+	}
+
 	/**
 	 * Tests that the shuffle operation completes without errors.
 	 * Note: This is a basic test that only verifies the operation doesn't throw exceptions.
@@ -78,4 +117,102 @@ public class DeckTests {
 		dealer.shuffle();
 		assertTrue(true, "Shuffle should complete without errors");
 	}
+
+	/**
+	 * Tests that card sets agree with the cards they were built from.
+	 */
+	@Test
+	public void testCardSet() {
+		ArrayList<Card> cards = new ArrayList<>();
+		cards.add(new Card(14, 0));
+		cards.add(new Card(14, 3));
+		cards.add(new Card(2, 1));
+		long set = CardSet.of(cards);
+
+		assertEquals(3, CardSet.count(set));
+		assertTrue(CardSet.contains(set, new Card(14, 3)));
+		assertFalse(CardSet.contains(set, new Card(14, 1)));
+		assertEquals(2, CardSet.rankCount(set, 14));
+		assertEquals(1 << 12, CardSet.suitMask(set, 0), "Spades should only hold the ace");
+		assertEquals(1, CardSet.suitMask(set, 1), "Hearts should only hold the deuce");
+		assertEquals(4, CardSet.count(CardSet.rankMask(9)));
+
+		long union = CardSet.union(set, CardSet.of(new Card(9, 2)));
+		assertEquals(4, CardSet.count(union));
+		assertEquals(set, CardSet.remove(union, new Card(9, 2)));
+		assertEquals(52, CardSet.count(CardSet.FULL_DECK));
+	}
+
+	/**
+	 * Tests that converting a card set back to cards keeps every card.
+	 */
+	@Test
+	public void testCardSetRoundTrip() {
+		for (int index = 0; index < 52; index++) {
+			Card card = CardSet.toList(CardSet.add(CardSet.EMPTY, index)).get(0);
+			assertEquals(index, card.hashCode());
+			assertEquals(CardSet.rankOf(index), card.getNum());
+			assertEquals(CardSet.suitOf(index), card.getSuite());
+		}
+	}
+
+	/**
+	 * Tests that the card cache hands out one shared instance per card.
+	 */
+	@Test
+	public void testCardFlyweight() {
+		for (int index = 0; index < 52; index++) {
+			Card card = Card.of(index);
+			assertEquals(index, card.getIndex());
+			assertSame(card, Card.of(card.getNum(), card.getSuite()));
+			assertSame(card, Card.of(card.getRank(), card.getSuit()));
+			assertEquals(new Card(card.getNum(), card.getSuite()), card);
+		}
+		assertSame(Card.Rank.ACE, Card.Rank.fromValue(14));
+		assertSame(Card.Suit.values()[3], Card.Suit.fromValue(3));
+		assertThrows(IllegalArgumentException.class, () -> Card.of(52));
+		assertThrows(IllegalArgumentException.class, () -> Card.of(15, 0));
+		assertThrows(IllegalArgumentException.class, () -> Card.Rank.fromValue(1));
+		assertThrows(IllegalArgumentException.class, () -> Card.Suit.fromValue(-1));
+	}
+
+	/**
+	 * Tests that dealers given generators with the same seed deal the same cards.
+	 */
+	@Test
+	public void testSeededDealersRepeat() {
+		Dealer first = new Dealer(RandomStreams.create(7));
+		Dealer second = new Dealer(RandomStreams.create(7));
+		for (int hand = 0; hand < 3; hand++) {
+			for (int i = 0; i < 52; i++) {
+				assertEquals(first.getCard(), second.getCard());
+			}
+			first.reset();
+			second.reset();
+		}
+	}
+
+	/**
+	 * Tests that table and seat streams are reproducible and distinct.
+	 */
+	@Test
+	public void testDerivedSeeds() {
+		assertEquals(RandomStreams.tableSeed(1, 0), RandomStreams.tableSeed(1, 0));
+		assertEquals(RandomStreams.forSeat(1, 2, 3).nextLong(), RandomStreams.forSeat(1, 2, 3).nextLong());
+
+		HashSet<Long> seeds = new HashSet<>();
+		for (int table = 0; table < 100; table++) {
+			long tableSeed = RandomStreams.tableSeed(1, table);
+			assertTrue(seeds.add(tableSeed));
+			for (int seat = 0; seat < 10; seat++) {
+				assertTrue(seeds.add(RandomStreams.seatSeed(tableSeed, seat)));
+			}
+		}
+		assertNotEquals(RandomStreams.tableSeed(1, 0), RandomStreams.tableSeed(2, 0));
+
+		// A numbered stream must not deal what the table of the same number does
+		for (int table = 0; table < 100; table++) {
+			assertNotEquals(RandomStreams.forTable(1, table).nextLong(), RandomStreams.forStream(1, table).nextLong());
+		}
+	}
 }
@@ -1,10 +1,32 @@
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.mackuntu.poker.Card.Card;
+import com.mackuntu.poker.Card.CardSet;
+import com.mackuntu.poker.Evaluator.Board;
+import com.mackuntu.poker.Evaluator.Equity;
+import com.mackuntu.poker.Evaluator.EquityCache;
+import com.mackuntu.poker.Evaluator.EquityCalculator;
+import com.mackuntu.poker.Evaluator.HandCache;
 import com.mackuntu.poker.Evaluator.HandEvaluator;
+import com.mackuntu.poker.Evaluator.HandIndexer;
+import com.mackuntu.poker.Evaluator.HandState;
+import com.mackuntu.poker.Evaluator.PreflopTable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
 
 public class HandEvaluatorTests {
     private HandEvaluator evaluator;
@@ -205,4 +227,579 @@ public class HandEvaluatorTests {
         evaluator = new HandEvaluator(cards);
         assertEquals(8, evaluator.getRanking(), "Should find straight flush despite extra cards");
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testTwoTripsMakeFullHouse() {
+        cards.add(new Card(9, 0));  // 9 of Spades
+        cards.add(new Card(9, 1));  // 9 of Hearts
+        cards.add(new Card(9, 2));  // 9 of Diamonds
+        cards.add(new Card(5, 0));  // 5 of Spades
+        cards.add(new Card(5, 1));  // 5 of Hearts
+        cards.add(new Card(5, 3));  // 5 of Clubs
+        cards.add(new Card(2, 2));  // 2 of Diamonds
+
+        evaluator = new HandEvaluator(cards);
+        assertEquals(6, evaluator.getRanking(), "Two sets of trips should make a full house");
+        assertTrue(evaluator.getString().contains("9s full of 5s"), "Should be nines full of fives");
+    }
+
+    @Test
+    public void testFiveCardCategoryCounts() {
+        // Known frequencies of each category over all 2,598,960 five-card hands
+        int[] expected = {1302540, 1098240, 123552, 54912, 10200, 5108, 3744, 624, 36, 4};
+        int[] counts = new int[10];
+        for (int a = 0; a < 52; a++)
+            for (int b = a + 1; b < 52; b++)
+                for (int c = b + 1; c < 52; c++)
+                    for (int d = c + 1; d < 52; d++)
+                        for (int e = d + 1; e < 52; e++) {
+                            long hand = (1L << a) | (1L << b) | (1L << c) | (1L << d) | (1L << e);
+                            counts[HandEvaluator.getRanking(HandEvaluator.evaluate(hand))]++;
+                        }
+        assertArrayEquals(expected, counts);
+    }
+
+    @Test
+    public void testSevenCardScoreIsBestFiveCardScore() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 2000; trial++) {
+            int[] hand = new int[7];
+            long mask = 0L;
+            for (int i = 0; i < 7; i++) {
+                int card;
+                do {
+                    card = random.nextInt(52);
+                } while ((mask & (1L << card)) != 0);
+                hand[i] = card;
+                mask |= 1L << card;
+            }
+
+            // Drop every pair of cards in turn and keep the best five-card score
+            int best = 0;
+            for (int i = 0; i < 7; i++) {
+                for (int j = i + 1; j < 7; j++) {
+                    long five = mask & ~(1L << hand[i]) & ~(1L << hand[j]);
+                    best = Math.max(best, HandEvaluator.evaluate(five));
+                }
+            }
+            assertEquals(best, HandEvaluator.evaluate(mask), "Seven-card score should be the best five-card score");
+        }
+    }
+
+    @Test
+    public void testHoleAndCommunityConstructor() {
+        ArrayList<Card> hole = new ArrayList<>();
+        hole.add(new Card(14, 1)); // Ace of Hearts
+        hole.add(new Card(14, 2)); // Ace of Diamonds
+        cards.add(new Card(14, 0)); // Ace of Spades
+        cards.add(new Card(7, 3));  // 7 of Clubs
+        cards.add(new Card(7, 1));  // 7 of Hearts
+
+        evaluator = new HandEvaluator(hole, cards);
+        assertEquals(6, evaluator.getRanking(), "Should be a full house");
+        assertTrue(evaluator.getString().contains("As full of 7s"), "Should be aces full of sevens");
+    }
+
+    @Test
+    public void testKickersBreakTies() {
+        // Two pair, aces up
+        ArrayList<Card> acesUp = new ArrayList<>();
+        acesUp.add(new Card(14, 0));
+        acesUp.add(new Card(14, 1));
+        acesUp.add(new Card(3, 2));
+        acesUp.add(new Card(3, 3));
+        acesUp.add(new Card(9, 0));
+
+        // Two pair, sixes up
+        cards.add(new Card(6, 0));
+        cards.add(new Card(6, 1));
+        cards.add(new Card(3, 0));
+        cards.add(new Card(3, 1));
+        cards.add(new Card(13, 2));
+
+        HandEvaluator aces = new HandEvaluator(acesUp);
+        HandEvaluator sixes = new HandEvaluator(cards);
+        assertEquals(aces.getRanking(), sixes.getRanking(), "Both hands should be two pair");
+        assertTrue(aces.compareTo(sixes) > 0, "Aces up should beat sixes up");
+        assertTrue(sixes.getScore() < aces.getScore(), "Scores should order the hands");
+
+        // Same pairs, only the kicker differs
+        ArrayList<Card> lowerKicker = new ArrayList<>(acesUp);
+        lowerKicker.set(4, new Card(8, 0));
+        assertTrue(aces.compareTo(new HandEvaluator(lowerKicker)) > 0, "Higher kicker should win");
+
+        // Same ranks in different suits tie
+        ArrayList<Card> otherSuits = new ArrayList<>();
+        otherSuits.add(new Card(14, 2));
+        otherSuits.add(new Card(14, 3));
+        otherSuits.add(new Card(3, 0));
+        otherSuits.add(new Card(3, 1));
+        otherSuits.add(new Card(9, 1));
+        assertEquals(0, aces.compareTo(new HandEvaluator(otherSuits)), "Identical ranks should tie");
+    }
+
+    @Test
+    public void testWheelLosesToSixHighStraight() {
+        cards.add(new Card(14, 0));
+        cards.add(new Card(2, 1));
+        cards.add(new Card(3, 2));
+        cards.add(new Card(4, 3));
+        cards.add(new Card(5, 0));
+        HandEvaluator wheel = new HandEvaluator(cards);
+
+        ArrayList<Card> sixHigh = new ArrayList<>(cards);
+        sixHigh.set(0, new Card(6, 1));
+        assertTrue(new HandEvaluator(sixHigh).compareTo(wheel) > 0, "Six high straight should beat the wheel");
+    }
+
+    @Test
+    public void testEquity() {
+        long aces = (1L << CardSet.index(14, 0)) | (1L << CardSet.index(14, 1));
+        try (EquityCalculator single = new EquityCalculator();
+             EquityCalculator pooled = new EquityCalculator(4)) {
+            // Pocket aces win about 85% heads-up and about 31% against nine hands
+            Equity headsUp = single.estimate(aces, CardSet.EMPTY, CardSet.EMPTY, 1, 200_000, 7L);
+            assertEquals(200_000, headsUp.getSamples());
+            assertEquals(0.852, headsUp.getEquity(), 0.01, "Aces heads-up: " + headsUp);
+            assertEquals(1.0, headsUp.getWin() + headsUp.getTie() + headsUp.getLose(), 1e-9);
+            Equity fullRing = pooled.estimate(aces, CardSet.EMPTY, CardSet.EMPTY, 9, 200_000, 7L);
+            assertEquals(0.31, fullRing.getEquity(), 0.02, "Aces at a full table: " + fullRing);
+
+            // The seed alone decides the sampled runouts, not the thread count
+            Equity pooledHeadsUp = pooled.estimate(aces, CardSet.EMPTY, CardSet.EMPTY, 1, 200_000, 7L);
+            assertEquals(headsUp.getWins(), pooledHeadsUp.getWins());
+            assertEquals(headsUp.getTies(), pooledHeadsUp.getTies());
+            assertEquals(headsUp.getLosses(), pooledHeadsUp.getLosses());
+
+            // A royal flush on the board is split with everyone
+            long royal = 0;
+            for (int rank = 10; rank <= 14; rank++) {
+                royal |= 1L << CardSet.index(rank, 2);
+            }
+            long deuces = (1L << CardSet.index(2, 0)) | (1L << CardSet.index(2, 1));
+            Equity split = single.estimate(deuces, royal, CardSet.EMPTY, 2, 10_000, 1L);
+            assertEquals(1.0, split.getTie(), 1e-9);
+            assertEquals(1.0 / 3, split.getEquity(), 1e-9);
+
+            // Dead aces take away most of a pair of kings' outs against aces
+            long kings = (1L << CardSet.index(13, 0)) | (1L << CardSet.index(13, 1));
+            Equity live = single.estimate(kings, CardSet.EMPTY, CardSet.EMPTY, 1, 100_000, 3L);
+            Equity deadAces = single.estimate(kings, CardSet.EMPTY, aces, 1, 100_000, 3L);
+            assertTrue(deadAces.getEquity() > live.getEquity(), "Dead aces should help kings");
+
+            // A time budget samples at least one chunk
+            Equity timed = pooled.estimate(aces, CardSet.EMPTY, CardSet.EMPTY, 1, Duration.ofMillis(20), 5L);
+            assertTrue(timed.getSamples() > 0);
+
+            assertThrows(IllegalArgumentException.class,
+                () -> single.estimate(aces, aces, CardSet.EMPTY, 1, 100, 1L), "Overlapping cards");
+            assertThrows(IllegalArgumentException.class,
+                () -> single.estimate(aces, CardSet.EMPTY, CardSet.EMPTY, 0, 100, 1L), "No opponents");
+            assertThrows(IllegalArgumentException.class,
+                () -> single.estimate(aces, CardSet.EMPTY, CardSet.EMPTY, 23, 100, 1L), "Not enough cards");
+            assertThrows(IllegalArgumentException.class,
+                () -> single.estimate(aces, CardSet.EMPTY, CardSet.EMPTY, 1, 0, 1L), "No samples");
+        }
+        assertThrows(IllegalArgumentException.class, () -> new EquityCalculator(0));
+    }
+
+    @Test
+    public void testExactEquity() {
+        long hole = (1L << CardSet.index(14, 0)) | (1L << CardSet.index(13, 0));
+        long flop = (1L << CardSet.index(10, 0)) | (1L << CardSet.index(7, 1)) | (1L << CardSet.index(2, 0));
+        long turn = flop | (1L << CardSet.index(9, 2));
+        long river = turn | (1L << CardSet.index(4, 3));
+
+        // On the river, check against scoring every hand the opponent could hold
+        int hero = HandEvaluator.evaluate(hole | river);
+        long unseen = CardSet.difference(CardSet.FULL_DECK, hole | river);
+        long hands = 0;
+        double share = 0;
+        for (int a = 0; a < 52; a++) {
+            for (int b = a + 1; b < 52; b++) {
+                if (CardSet.contains(unseen, a) && CardSet.contains(unseen, b)) {
+                    int score = HandEvaluator.evaluate(river | (1L << a) | (1L << b));
+                    hands++;
+                    share += score < hero ? 1 : score == hero ? 0.5 : 0;
+                }
+            }
+        }
+        try (EquityCalculator single = new EquityCalculator();
+             EquityCalculator pooled = new EquityCalculator(4)) {
+            Equity exact = single.enumerate(hole, river, CardSet.EMPTY, 1);
+            assertTrue(exact.isExact());
+            assertEquals(hands, exact.getSamples());
+            assertEquals(share / hands, exact.getEquity(), 1e-12);
+
+            // Every runout is counted once, whichever thread counts it
+            assertEquals(1081L * 990, EquityCalculator.countRunouts(hole, flop, CardSet.EMPTY, 1));
+            assertEquals(46L * 45 * 44 * 43 * 42 / 8, EquityCalculator.countRunouts(hole, turn, CardSet.EMPTY, 2));
+            Equity flopExact = pooled.enumerate(hole, flop, CardSet.EMPTY, 1);
+            assertEquals(1081L * 990, flopExact.getSamples());
+            Equity singleFlop = single.enumerate(hole, flop, CardSet.EMPTY, 1);
+            assertEquals(singleFlop.getWins(), flopExact.getWins());
+            assertEquals(singleFlop.getTies(), flopExact.getTies());
+            Equity twoOpponents = pooled.enumerate(hole, turn, CardSet.EMPTY, 2);
+            assertEquals(EquityCalculator.countRunouts(hole, turn, CardSet.EMPTY, 2), twoOpponents.getSamples());
+            Equity sampled = pooled.estimate(hole, turn, CardSet.EMPTY, 2, 400_000, 3L);
+            assertEquals(twoOpponents.getEquity(), sampled.getEquity(), 0.005);
+
+            // calculate() enumerates within the limit and samples beyond it
+            assertTrue(single.calculate(hole, flop, CardSet.EMPTY, 1, 10_000, 1L).isExact());
+            Equity preflop = single.calculate(hole, CardSet.EMPTY, CardSet.EMPTY, 1, 10_000, 1L);
+            assertFalse(preflop.isExact());
+            assertEquals(10_000, preflop.getSamples());
+        }
+        try (EquityCalculator strict = new EquityCalculator(1, 1000)) {
+            assertTrue(strict.calculate(hole, river, CardSet.EMPTY, 1, 10_000, 1L).isExact());
+            assertFalse(strict.calculate(hole, turn, CardSet.EMPTY, 1, 10_000, 1L).isExact());
+        }
+    }
+
+    @Test
+    public void testPreflopClasses() {
+        int[] hands = new int[PreflopTable.HAND_CLASSES];
+        for (int a = 0; a < 52; a++) {
+            for (int b = a + 1; b < 52; b++) {
+                hands[PreflopTable.classOf((1L << a) | (1L << b))]++;
+            }
+        }
+        for (int handClass = 0; handClass < PreflopTable.HAND_CLASSES; handClass++) {
+            assertEquals(PreflopTable.combos(handClass), hands[handClass], PreflopTable.describe(handClass));
+            assertEquals(handClass, PreflopTable.classOf(PreflopTable.representative(handClass)));
+        }
+        assertEquals("AA", PreflopTable.describe(PreflopTable.classOf(14, 14, false)));
+        assertEquals("AKs", PreflopTable.describe(PreflopTable.classOf(14, 13, true)));
+        assertEquals("T9o", PreflopTable.describe(PreflopTable.classOf(10, 9, false)));
+        long sevenDeuce = (1L << CardSet.index(7, 0)) | (1L << CardSet.index(2, 3));
+        assertEquals("72o", PreflopTable.describe(PreflopTable.classOf(sevenDeuce)));
+    }
+
+    @Test
+    public void testPreflopTable(@TempDir Path directory) throws IOException {
+        PreflopTable table = PreflopTable.compute(400, 2, 11L);
+        int aces = PreflopTable.classOf(14, 14, false);
+        int kings = PreflopTable.classOf(13, 13, false);
+        int sevenDeuce = PreflopTable.classOf(7, 2, false);
+
+        assertEquals(1, table.getRank(aces), "Aces should be the strongest hand");
+        assertTrue(table.getRank(sevenDeuce) > 150, "72o should be near the bottom");
+        assertEquals(0.85, table.getEquity(aces, 1), 0.05);
+        assertTrue(table.getEquity(aces, 1) > table.getEquity(aces, 4));
+        assertTrue(table.getEquity(aces, 4) > table.getEquity(aces, PreflopTable.MAX_OPPONENTS));
+        assertEquals(table.getEquity(aces, 3),
+            table.getEquity((1L << CardSet.index(14, 2)) | (1L << CardSet.index(14, 3)), 3));
+        assertEquals(0.82, table.getMatchup(aces, kings), 0.06);
+        assertEquals(1.0f, table.getMatchup(aces, kings) + table.getMatchup(kings, aces), 1e-6f);
+        assertEquals(0.5f, table.getMatchup(kings, kings));
+        assertThrows(IllegalArgumentException.class, () -> table.getEquity(aces, 0));
+
+        // The same seed gives the same table on any number of threads
+        PreflopTable single = PreflopTable.compute(400, 1, 11L);
+        assertEquals(table.getEquity(sevenDeuce, 5), single.getEquity(sevenDeuce, 5));
+        assertEquals(table.getMatchup(sevenDeuce, kings), single.getMatchup(sevenDeuce, kings));
+
+        // Heads-up figures are exact, so another seed leaves them and the ranks as they were
+        PreflopTable reseeded = PreflopTable.compute(400, 1, 12L);
+        assertEquals(0.8520, table.getEquity(aces, 1), 1e-4);
+        assertEquals(0.3458, table.getEquity(sevenDeuce, 1), 1e-4);
+        assertEquals(0.8195, table.getMatchup(aces, kings), 1e-4);
+        for (int handClass = 0; handClass < PreflopTable.HAND_CLASSES; handClass++) {
+            assertEquals(table.getRank(handClass), reseeded.getRank(handClass));
+            assertEquals(table.getEquity(handClass, 1), reseeded.getEquity(handClass, 1));
+            assertEquals(table.getMatchup(handClass, sevenDeuce), reseeded.getMatchup(handClass, sevenDeuce));
+        }
+
+        Path file = directory.resolve("preflop.bin");
+        table.save(file);
+        PreflopTable loaded = PreflopTable.load(file);
+        for (int handClass = 0; handClass < PreflopTable.HAND_CLASSES; handClass++) {
+            assertEquals(table.getRank(handClass), loaded.getRank(handClass));
+            assertEquals(table.getEquity(handClass, 2), loaded.getEquity(handClass, 2));
+            assertEquals(table.getMatchup(handClass, aces), loaded.getMatchup(handClass, aces));
+        }
+        // A damaged file is caught by its checksum
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> PreflopTable.load(file));
+        Files.write(file, new byte[] {1, 2, 3, 4});
+        assertThrows(IOException.class, () -> PreflopTable.load(file));
+    }
+
+    @Test
+    public void testPreflopTableRebuilds(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tables").resolve("preflop.bin");
+        int aces = PreflopTable.classOf(14, 14, false);
+        int sevenDeuce = PreflopTable.classOf(7, 2, false);
+
+        // A missing file is computed and written
+        PreflopTable first = PreflopTable.open(file, 300, 1, 5L);
+        PreflopTable written = PreflopTable.load(file);
+        assertEquals(first.getEquity(sevenDeuce, 4), written.getEquity(sevenDeuce, 4));
+        byte[] good = Files.readAllBytes(file);
+        // Readable by other users, so their processes can map it too
+        if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertTrue(Files.getPosixFilePermissions(file).contains(PosixFilePermission.OTHERS_READ));
+        }
+        // A file that cannot be written is reported and the table used from memory
+        Path blocked = directory.resolve("not-a-directory");
+        Files.write(blocked, new byte[1]);
+        PreflopTable unwritten = PreflopTable.open(blocked.resolve("preflop.bin"), 300, 1, 5L);
+        assertEquals(first.getEquity(sevenDeuce, 4), unwritten.getEquity(sevenDeuce, 4));
+
+        // A file of another version (header bytes 12-15), a damaged one, one of
+        // another size and one that is not a table file are each rebuilt and mapped
+        byte[] stale = good.clone();
+        stale[12]++;
+        byte[] damaged = good.clone();
+        damaged[good.length - 3] ^= 0x10;
+        // A larger table with a correct length and checksum, as when the layout
+        // changes without a new version
+        byte[] resized = Arrays.copyOf(good, good.length + Float.BYTES);
+        ByteBuffer header = ByteBuffer.wrap(resized).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(16, header.getLong(16) + Float.BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(resized, 32, resized.length - 32);
+        header.putInt(24, (int) crc.getValue());
+        for (byte[] bad : new byte[][] {stale, damaged, resized, {7, 7, 7}}) {
+            Files.write(file, bad);
+            assertThrows(IOException.class, () -> PreflopTable.load(file));
+            PreflopTable rebuilt = PreflopTable.open(file, 300, 1, 5L);
+            assertEquals(first.getEquity(aces, 3), rebuilt.getEquity(aces, 3));
+            assertArrayEquals(good, Files.readAllBytes(file), "The file should be written again");
+            assertEquals(first.getRank(sevenDeuce), PreflopTable.load(file).getRank(sevenDeuce));
+        }
+    }
+
+    @Test
+    public void testHandIndexer() {
+        assertEquals(169, HandIndexer.forBoard(0).size());
+        assertEquals(1_286_792, HandIndexer.forBoard(3).size());
+        assertEquals(13_960_050, HandIndexer.forBoard(4).size());
+        assertEquals(123_156_254, HandIndexer.forBoard(5).size());
+        assertEquals(2_428_287_420L, new HandIndexer(2, 3, 1, 1).size());
+
+        // Every starting hand falls in one of the 169 classes, and every class is used
+        HandIndexer preflop = HandIndexer.forBoard(0);
+        BitSet used = new BitSet();
+        for (int a = 0; a < 52; a++) {
+            for (int b = a + 1; b < 52; b++) {
+                used.set((int) preflop.index((1L << a) | (1L << b), CardSet.EMPTY));
+            }
+        }
+        assertEquals(169, used.cardinality());
+
+        // Renaming suits keeps the index: AsKs on 9h8h2d is AcKc on 9d8d2h
+        HandIndexer flop = HandIndexer.forBoard(3);
+        long spades = (1L << CardSet.index(14, 0)) | (1L << CardSet.index(13, 0));
+        long clubs = (1L << CardSet.index(14, 3)) | (1L << CardSet.index(13, 3));
+        long heartsBoard = (1L << CardSet.index(9, 1)) | (1L << CardSet.index(8, 1)) | (1L << CardSet.index(2, 2));
+        long diamondsBoard = (1L << CardSet.index(9, 2)) | (1L << CardSet.index(8, 2)) | (1L << CardSet.index(2, 1));
+        assertEquals(flop.index(spades, heartsBoard), flop.index(clubs, diamondsBoard));
+        long rainbow = (1L << CardSet.index(9, 1)) | (1L << CardSet.index(8, 2)) | (1L << CardSet.index(2, 3));
+        assertNotEquals(flop.index(spades, heartsBoard), flop.index(spades, rainbow));
+
+        // Indices map back to a hand of the same class
+        HandIndexer rounds = new HandIndexer(2, 3, 1, 1);
+        Random random = new Random(5);
+        for (int i = 0; i < 20_000; i++) {
+            long index = (long) (random.nextDouble() * rounds.size());
+            long[] hand = rounds.unindex(index);
+            assertEquals(1, CardSet.count(hand[3]));
+            assertEquals(index, rounds.index(hand));
+            index = (long) (random.nextDouble() * flop.size());
+            hand = flop.unindex(index);
+            assertEquals(index, flop.index(hand[0], hand[1]));
+        }
+        assertEquals(0, rounds.index(rounds.unindex(0)));
+        assertEquals(rounds.size() - 1, rounds.index(rounds.unindex(rounds.size() - 1)));
+
+        assertThrows(IllegalArgumentException.class, () -> flop.index(spades, CardSet.EMPTY), "Short board");
+        assertThrows(IllegalArgumentException.class, () -> flop.index(spades, spades | 1L), "Overlapping cards");
+        assertThrows(IllegalArgumentException.class, () -> flop.unindex(flop.size()));
+        assertThrows(IllegalArgumentException.class, () -> HandIndexer.forBoard(1));
+    }
+
+    @Test
+    public void testHandCache() throws InterruptedException {
+        // One bucket, so eviction order is fully visible
+        HandCache small = new HandCache(HandCache.WAYS);
+        assertEquals(HandCache.WAYS, small.getCapacity());
+        for (long key = 0; key < HandCache.WAYS; key++) {
+            small.put(key, key * 10);
+        }
+        assertEquals(30, small.get(3, -1));
+        assertEquals(-1, small.get(99, -1));
+        assertEquals(1, small.getHits());
+        assertEquals(1, small.getMisses());
+        // The hand passes over the entry just read and evicts the next one
+        small.put(99, 990);
+        assertEquals(1, small.getEvictions());
+        assertEquals(990, small.get(99, -1));
+        assertEquals(30, small.get(3, -1));
+        int kept = 0;
+        for (long key = 0; key < HandCache.WAYS; key++) {
+            if (small.get(key, -1) == key * 10) {
+                kept++;
+            }
+        }
+        assertEquals(HandCache.WAYS - 1, kept);
+        small.clear();
+        assertEquals(-1, small.get(3, -1));
+
+        // Bounded however many keys go through it
+        HandCache cache = new HandCache(1000, 4);
+        assertEquals(1024, cache.getCapacity());
+        AtomicInteger loads = new AtomicInteger();
+        for (long key = 0; key < 10_000; key++) {
+            long value = cache.computeIfAbsent(key, k -> {
+                loads.incrementAndGet();
+                return -k;
+            });
+            assertEquals(-key, value);
+        }
+        assertEquals(10_000, loads.get());
+        assertTrue(cache.getEvictions() >= 10_000 - cache.getCapacity());
+
+        // Shared between threads, every lookup gets the right value
+        HandCache shared = new HandCache(4096);
+        Thread[] threads = new Thread[4];
+        AtomicInteger wrong = new AtomicInteger();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    long key = i % 2000;
+                    if (shared.computeIfAbsent(key, k -> k * 3) != key * 3) {
+                        wrong.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, wrong.get());
+        assertEquals(200_000, shared.getHits() + shared.getMisses());
+        assertTrue(shared.getHitRate() > 0.9);
+    }
+
+    @Test
+    public void testEquityCache() {
+        try (EquityCalculator calculator = new EquityCalculator()) {
+            EquityCache equities = new EquityCache(calculator, 1 << 12, 20_000);
+            long spades = (1L << CardSet.index(14, 0)) | (1L << CardSet.index(13, 0));
+            long clubs = (1L << CardSet.index(14, 3)) | (1L << CardSet.index(13, 3));
+            long heartsBoard = (1L << CardSet.index(9, 1)) | (1L << CardSet.index(8, 1)) | (1L << CardSet.index(2, 2));
+            long diamondsBoard = (1L << CardSet.index(9, 2)) | (1L << CardSet.index(8, 2)) | (1L << CardSet.index(2, 1));
+
+            double first = equities.getEquity(spades, heartsBoard, 1);
+            assertEquals(calculator.enumerate(spades, heartsBoard, CardSet.EMPTY, 1).getEquity(), first, 1e-12);
+            // The same hand with other suits is already cached
+            assertEquals(first, equities.getEquity(clubs, diamondsBoard, 1));
+            assertEquals(1, equities.getCache().getHits());
+            assertEquals(1, equities.getCache().getMisses());
+
+            // Other opponent counts and streets are other entries
+            double preflop = equities.getEquity(spades, CardSet.EMPTY, 2);
+            assertEquals(preflop, equities.getEquity(clubs, CardSet.EMPTY, 2));
+            assertNotEquals(preflop, equities.getEquity(spades, CardSet.EMPTY, 3));
+            assertEquals(3, equities.getCache().getMisses());
+            assertThrows(IllegalArgumentException.class, () -> equities.getEquity(spades, CardSet.EMPTY, 0));
+
+            // A sampled equity is the class's, whichever of its hands asks first
+            long offsuit = (1L << CardSet.index(14, 1)) | (1L << CardSet.index(13, 2));
+            long otherOffsuit = (1L << CardSet.index(14, 3)) | (1L << CardSet.index(13, 0));
+            EquityCache forwards = new EquityCache(calculator, 1 << 12, 2000);
+            EquityCache backwards = new EquityCache(calculator, 1 << 12, 2000);
+            double asked = forwards.getEquity(offsuit, CardSet.EMPTY, 1);
+            assertEquals(asked, backwards.getEquity(otherOffsuit, CardSet.EMPTY, 1));
+            assertEquals(asked, forwards.getEquity(otherOffsuit, CardSet.EMPTY, 1));
+            assertEquals(asked, backwards.getEquity(offsuit, CardSet.EMPTY, 1));
+        }
+    }
+
+    @Test
+    public void testHandState() {
+        Random random = new Random(9);
+        for (int deal = 0; deal < 2000; deal++) {
+            HandState hand = new HandState();
+            long cards = CardSet.EMPTY;
+            // Hole cards, then the flop, turn and river, scored after each
+            while (CardSet.count(cards) < 7) {
+                int card = random.nextInt(52);
+                hand.add(card);
+                cards = CardSet.add(cards, card);
+                assertEquals(HandEvaluator.evaluate(cards), hand.getScore(), CardSet.toString(cards));
+            }
+            assertEquals(cards, hand.getCards());
+            assertEquals(7, hand.size());
+
+            // Scoring hole cards on a board leaves the board as it was
+            long board = CardSet.EMPTY;
+            while (CardSet.count(board) < 5) {
+                board = CardSet.add(board, random.nextInt(52));
+            }
+            long hole = CardSet.EMPTY;
+            while (CardSet.count(hole) < 2) {
+                int card = random.nextInt(52);
+                if (!CardSet.contains(board, card)) {
+                    hole = CardSet.add(hole, card);
+                }
+            }
+            HandState onBoard = new HandState(board);
+            assertEquals(HandEvaluator.evaluate(board | hole), onBoard.scoreWith(hole));
+            assertEquals(HandEvaluator.evaluate(board), onBoard.getScore());
+
+            int removed = CardSet.firstCard(cards);
+            hand.remove(removed);
+            assertEquals(HandEvaluator.evaluate(CardSet.difference(cards, 1L << removed)), hand.getScore());
+        }
+
+        // A flush is found from the suit counts
+        HandState flush = new HandState();
+        for (int rank : new int[] {2, 5, 9, 11, 13}) {
+            flush.add(CardSet.index(rank, 1));
+        }
+        assertEquals(5, flush.getRanking());
+        flush.add(CardSet.index(13, 1));
+        assertEquals(5, flush.size(), "A card already held counts once");
+        flush.clear();
+        assertEquals(0, flush.size());
+        assertEquals("no cards", flush.describe());
+
+        // HandEvaluator keeps its score up to date card by card
+        HandEvaluator evaluator = new HandEvaluator();
+        evaluator.addCard(new Card(14, 0));
+        evaluator.addCard(new Card(14, 1));
+        assertEquals(1, evaluator.getRanking());
+        evaluator.addCard(new Card(14, 2));
+        assertEquals(3, evaluator.getRanking());
+        evaluator.removeCard(new Card(14, 1));
+        assertEquals(1, evaluator.getRanking());
+    }
+
+    @Test
+    public void testBoard() {
+        Board board = new Board();
+        long hole = CardSet.of(new Card(14, 0)) | CardSet.of(new Card(13, 0));
+        for (Card card : new Card[] {new Card(12, 0), new Card(11, 0), new Card(2, 3)}) {
+            board.add(card);
+        }
+        assertEquals(3, board.size());
+        assertEquals(new Card(11, 0), board.getCards().get(1), "Cards are kept in the order dealt");
+        assertThrows(UnsupportedOperationException.class, () -> board.getCards().add(new Card(5, 1)));
+        assertThrows(IllegalArgumentException.class, () -> board.add(new Card(2, 3)));
+        assertEquals(HandEvaluator.evaluate(hole | board.getCardSet()), board.scoreWith(hole));
+
+        board.add(new Card(10, 0));
+        assertEquals(9, HandEvaluator.getRanking(board.scoreWith(hole)), "Royal flush on the turn");
+        board.add(new Card(3, 3));
+        assertThrows(IllegalStateException.class, () -> board.add(new Card(4, 3)));
+
+        board.clear();
+        assertTrue(board.isEmpty());
+        assertEquals(CardSet.EMPTY, board.getCardSet());
+    }
+}
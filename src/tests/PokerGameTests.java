@@ -10,13 +10,22 @@ import java.util.ArrayList;
 import java.util.Arrays;
 
 import com.mackuntu.poker.Card.Card;
+import com.mackuntu.poker.Card.CardSet;
 import com.mackuntu.poker.Player.Player;
 import com.mackuntu.poker.Action.Action;
+import com.mackuntu.poker.Action.Decision;
+import com.mackuntu.poker.Action.LegalActions;
+import com.mackuntu.poker.Player.GameContext;
+import com.mackuntu.poker.Player.PlayerStrategy;
 import com.mackuntu.poker.game.GameState;
+import com.mackuntu.poker.game.HandFlow;
 import com.mackuntu.poker.game.PokerGame;
+import com.mackuntu.poker.game.PokerPlayerStateManager;
+import com.mackuntu.poker.game.SidePots;
 import com.mackuntu.poker.Player.TestStrategy;
 import com.mackuntu.poker.Evaluator.HandEvaluator;
 import com.mackuntu.poker.game.CardManager;
+import com.mackuntu.poker.game.GameEventListener;
 
 public class PokerGameTests {
     private PokerGame game;
@@ -50,9 +59,7 @@ public class PokerGameTests {
         // Set all players to call
         for (int i = 0; i < numPlayers; i++) {
             TestStrategy strategy = new TestStrategy();
-            Action callAction = Action.CALL;
-            callAction.setAmount(game.getBigBlind());
-            strategy.setForcedAction(callAction);
+            strategy.setForcedAction(Action.CALL);
             players[i] = new Player("Player " + i, strategy);
             players[i].setMoney(1000);
         }
@@ -87,9 +94,7 @@ public class PokerGameTests {
         // Set all players to call the big blind
         for (int i = 0; i < players.length; i++) {
             TestStrategy strategy = new TestStrategy();
-            Action callAction = Action.CALL;
-            callAction.setAmount(game.getBigBlind());
-            strategy.setForcedAction(callAction);
+            strategy.setForcedAction(Action.CALL);
             players[i] = new Player("Player " + i, strategy);
             players[i].setMoney(1000);
         }
@@ -198,9 +203,7 @@ public class PokerGameTests {
         // Set all players to call the big blind
         for (int i = 0; i < players.length; i++) {
             TestStrategy strategy = new TestStrategy();
-            Action callAction = Action.CALL;
-            callAction.setAmount(game.getBigBlind());
-            strategy.setForcedAction(callAction);
+            strategy.setForcedAction(Action.CALL);
             Player oldPlayer = players[i];
             Player newPlayer = new Player(oldPlayer.getName(), strategy);
             newPlayer.setMoney(oldPlayer.getMoney());
@@ -271,9 +274,7 @@ public class PokerGameTests {
         // Set all players to call pre-flop and check post-flop
         for (int i = 0; i < players.length; i++) {
             TestStrategy strategy = new TestStrategy();
-            Action callAction = Action.CALL;
-            callAction.setAmount(game.getBigBlind());
-            strategy.setForcedAction(callAction);
+            strategy.setForcedAction(Action.CALL);
             players[i] = new Player("Player " + i, strategy);
             players[i].setMoney(1000);
         }
@@ -428,9 +429,7 @@ public class PokerGameTests {
         // Set all players to call to progress the game
         for (int i = 0; i < players.length; i++) {
             TestStrategy strategy = (TestStrategy) players[i].getStrategy();
-            Action callAction = Action.CALL;
-            callAction.setAmount(game.getBigBlind());
-            strategy.setForcedAction(callAction);
+            strategy.setForcedAction(Action.CALL);
         }
         
         // Process until flop
@@ -441,6 +440,15 @@ public class PokerGameTests {
         // Check flop (should be 3 cards)
         assertEquals(3, game.getCardManager().getCommunityCards().size(), 
             "Flop should have 3 cards");
+        // The board is shared; each seat holds only its hole cards
+        long board = game.getCardManager().getCommunityCardSet();
+        for (Player player : players) {
+            if (player.isFolded()) {
+                continue;
+            }
+            assertEquals(2, CardSet.count(player.getCardSet()), player.getName() + " should hold only hole cards");
+            assertFalse(CardSet.intersects(player.getCardSet(), board));
+        }
         
         // Process until turn
         while (game.getGameState() == GameState.FLOP) {
@@ -494,7 +502,7 @@ public class PokerGameTests {
         
         // Add community cards one by one
         for (Card card : communityFlush) {
-            cardManager.getCommunityCards().add(card);
+            cardManager.getBoard().add(card);
         }
         
         // Evaluate the hand
@@ -508,4 +516,404 @@ public class PokerGameTests {
         assertEquals(5, evaluator.getRanking(), "Should be a flush");
         assertTrue(evaluator.getString().contains("flush"), "Hand should be evaluated as a flush");
     }
-} 
\ No newline at end of file
+
+    @Test
+    @Timeout(value = 1, unit = TimeUnit.SECONDS)
+    public void testListenerReceivesHandEvents() {
+        List<String> events = new ArrayList<>();
+        int[] awarded = new int[1];
+        PokerGame listened = new PokerGame(players, true);
+        listened.setListener(new GameEventListener() {
+            @Override
+            public void handStarted(int handNumber, int dealerSeat) {
+                events.add("start " + handNumber);
+            }
+
+            @Override
+            public void blindPosted(int seat, int amount, boolean bigBlind) {
+                events.add((bigBlind ? "big " : "small ") + amount);
+            }
+
+            @Override
+            public void actionTaken(int seat, Action action, int amount) {
+                events.add(action.toString());
+            }
+
+            @Override
+            public void potAwarded(int seat, int amount) {
+                awarded[0] += amount;
+                events.add("won " + amount);
+            }
+
+            @Override
+            public void handFinished(int handNumber) {
+                events.add("finish " + handNumber);
+            }
+        });
+
+        listened.startNewHand();
+        int pot = listened.getPot();
+        int iterations = 0;
+        while (listened.getGameState() != GameState.FINISH && iterations++ < 100) {
+            listened.processNextAction();
+        }
+
+        // Everyone but the big blind folds to it
+        assertEquals(List.of("start 1", "small 20", "big 40", "FOLD", "FOLD", "FOLD", "FOLD", "FOLD",
+            "won " + pot, "finish 1"), events);
+        assertEquals(pot, awarded[0]);
+    }
+
+    @Test
+    public void testHandAnalysisIsRenderedFromRecords() {
+        TestStrategy smallBlind = new TestStrategy();
+        smallBlind.setForcedAction(Decision.raiseTo(80));
+        TestStrategy bigBlind = new TestStrategy();
+        bigBlind.setForcedAction(Action.CALL);
+        Player[] table = new Player[NUM_PLAYERS];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = new Player("Player " + i, i == 1 ? smallBlind : i == 2 ? bigBlind : new TestStrategy());
+        }
+        PokerGame logged = new PokerGame(table, true);
+        logged.startNewHand();
+
+        // The small blind raises, the big blind calls and the flop is dealt
+        while (logged.getGameState() == GameState.START) {
+            logged.processNextAction();
+        }
+        logged.processNextAction();
+
+        String flopHand = new HandEvaluator(CardSet.union(table[1].getCardSet(),
+            logged.getCardManager().getCommunityCardSet())).getString();
+        assertEquals(List.of("Player 3 folds", "Player 4 folds", "Player 5 folds", "Player 0 folds",
+            "Player 1 raises to $80", "Player 2 calls $80", "Player 1 checks (" + flopHand + ")"),
+            logged.getHandAnalysis());
+        assertSame(logged.getHandAnalysis(), logged.getHandAnalysis(), "Unchanged log should not be re-rendered");
+    }
+
+    @Test
+    public void testSeatMasks() {
+        players[4].setMoney(0);
+        PokerPlayerStateManager seats = new PokerPlayerStateManager(players);
+        assertEquals(0b101111, seats.getActiveMask());
+        assertEquals(0b010000, seats.getBustedMask());
+        assertEquals(5, seats.getActivePlayerCount());
+
+        seats.handlePlayerFold(1);
+        seats.handlePlayerAllIn(5);
+        assertEquals(0b001101, seats.getActiveMask());
+        assertEquals(0b000010, seats.getFoldedMask());
+        assertEquals(0b100000, seats.getAllInMask());
+        assertEquals(0b101101, seats.getInHandMask());
+        assertEquals(List.of(0, 2, 3), seats.getActivePlayers());
+
+        assertEquals(2, seats.nextActiveSeat(0));
+        assertEquals(0, seats.nextActiveSeat(3), "Should wrap round past the all-in and busted seats");
+        assertEquals(0, seats.nextActiveSeat(5));
+        seats.handlePlayerFold(0);
+        seats.handlePlayerFold(2);
+        assertEquals(3, seats.nextActiveSeat(3), "The only active seat follows itself");
+        seats.handlePlayerFold(3);
+        assertEquals(-1, seats.nextActiveSeat(3));
+    }
+
+    @Test
+    public void testHandFlow() {
+        // Seat 2 opened the round, folded, and the action went from seat 1 to seat 3
+        assertTrue(HandFlow.passedRoundStart(2, 1, 3, 4), "Stepping over the start seat closes the lap");
+        assertFalse(HandFlow.passedRoundStart(2, 3, 0, 4));
+        assertTrue(HandFlow.passedRoundStart(1, 1, 1, 4), "A full lap back to the start seat passes it");
+
+        assertEquals(HandFlow.LAST_PLAYER, HandFlow.afterAction(0b0100, 0, 0b0100, 0, 1, 4));
+        assertEquals(HandFlow.RUN_OUT, HandFlow.afterAction(0b0100, 0b0011, 0b0100, 0, 2, 4),
+            "One player left to bet who has matched everyone all-in");
+        assertEquals(HandFlow.NEXT_SEAT, HandFlow.afterAction(0b0111, 0, 0b0011, 0, 1, 4),
+            "Seat 2 still has to match the bet");
+        assertEquals(HandFlow.NEXT_STREET, HandFlow.afterAction(0b0111, 0, 0b0111, 0, 2, 4));
+
+        assertEquals(GameState.FINISH, HandFlow.nextStreet(GameState.RIVER));
+        assertThrows(IllegalArgumentException.class, () -> HandFlow.nextStreet(GameState.FINISH));
+        assertEquals(3, HandFlow.nextDealer(1, 0b1001), "The button skips seats without chips");
+        assertEquals(1, HandFlow.firstToAct(GameState.FLOP, 0b1010, 0, 4));
+        assertEquals(3, HandFlow.firstToAct(GameState.FLOP, 0b1001, 0, 4), "A folded small blind is skipped");
+    }
+
+    @Test
+    public void testSidePots() {
+        SidePots pots = new SidePots(4);
+        // Seat 1 is all-in for 50 with the best hand, seat 3 folded after putting in 30,
+        // and seats 0 and 2 tie for the rest
+        pots.resolve(new int[] {100, 50, 100, 30}, 0b0111, new int[] {300, 500, 300, 0});
+        assertEquals(2, pots.getPotCount());
+        assertEquals(180, pots.getPotAmount(0), "Main pot is 50 from each of three seats plus the folded 30");
+        assertEquals(0b0010, pots.getPotWinners(0));
+        assertEquals(500, pots.getPotScore(0));
+        assertEquals(100, pots.getPotAmount(1));
+        assertEquals(0b0101, pots.getPotWinners(1));
+        assertArrayEquals(new int[] {50, 180, 50, 0},
+            new int[] {pots.getAward(0), pots.getAward(1), pots.getAward(2), pots.getAward(3)});
+
+        // The odd chip of a split goes to the lowest winning seat
+        pots.resolve(new int[] {3, 3, 1, 0}, 0b0011, new int[] {7, 7, 0, 0});
+        assertEquals(1, pots.getPotCount());
+        assertEquals(7, pots.getPotAmount(0));
+        assertEquals(4, pots.getAward(0));
+        assertEquals(3, pots.getAward(1));
+    }
+
+    @Test
+    public void testShortAllInOnlyWinsWhatItMatched() {
+        TestStrategy caller = new TestStrategy();
+        caller.setForcedAction(Action.CALL);
+        Player[] table = new Player[3];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = new Player("Player " + i, i == 0 ? caller : new TestStrategy());
+        }
+        PokerGame allIn = new PokerGame(table, true);
+        table[1].setMoney(20);
+        allIn.startNewHand();  // Seat 1 is all-in for the small blind
+
+        int iterations = 0;
+        while (allIn.getGameState() != GameState.FINISH && iterations++ < 100) {
+            allIn.processNextAction();
+        }
+
+        // Seat 0 calls and the big blind folds, so seats 0 and 1 play a 60 chip
+        // main pot and seat 0 alone gets the 40 chip side pot
+        int total = 0;
+        for (Player player : table) {
+            total += player.getMoney();
+        }
+        assertEquals(2020, total, "No chips should be created or lost");
+        assertEquals(960, table[2].getMoney());
+        assertTrue(table[0].getMoney() >= 1000, "Seat 0 should win at least the side pot back");
+        assertTrue(List.of(0, 30, 60).contains(table[1].getMoney()), "Short stack wins at most the main pot");
+    }
+
+    @Test
+    public void testAllInRunsOutBoardAtOnce() {
+        Player[] table = new Player[2];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = new Player("Player " + i, new TestStrategy());
+        }
+        PokerGame allIn = new PokerGame(table, true);
+        table[1].setMoney(20);
+        allIn.startNewHand();  // Seat 1 is all-in for the small blind and the big blind has matched it
+
+        assertTrue(allIn.processNextAction());
+        assertEquals(GameState.FINISH, allIn.getGameState(), "Nobody can bet, so the hand should be over");
+        assertEquals(5, allIn.getCardManager().getCommunityCards().size());
+        assertEquals(1020, table[0].getMoney() + table[1].getMoney());
+    }
+
+    @Test
+    public void testPreflopAllInReportsEquity() {
+        double[][] reported = new double[2][2];
+        for (double[] expected : reported) {
+            Player[] table = new Player[2];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = new Player("Player " + i, new TestStrategy());
+            }
+            PokerGame allIn = new PokerGame(table, true);
+            allIn.setAllInEquity(true);
+            Arrays.fill(expected, -1);
+            allIn.setListener(new GameEventListener() {
+                @Override
+                public void allInEquity(int seat, double expectedChips) {
+                    expected[seat] = expectedChips;
+                }
+            });
+            table[1].setMoney(20);
+            allIn.startNewHand();  // Seat 1 is all-in preflop, five cards to come
+            allIn.processNextAction();
+        }
+
+        assertTrue(reported[0][0] > 0 && reported[0][1] > 0, "Both seats should have a share of the pot");
+        assertEquals(60, reported[0][0] + reported[0][1], 1e-9, "The shares should add up to the pot");
+        assertTrue(reported[0][0] >= 20, "The big blind gets back what the short stack could not call");
+        assertArrayEquals(reported[0], reported[1], "The same hand should get the same estimate");
+    }
+
+    @Test
+    public void testLegalActions() {
+        GameContext facingBet = new GameContext.Builder()
+            .currentBet(40)
+            .playerMoney(100)
+            .build();
+        assertTrue(facingBet.isLegal(Action.FOLD));
+        assertFalse(facingBet.isLegal(Action.CHECK), "There is a bet to match");
+        assertTrue(facingBet.isLegal(Action.CALL));
+        assertTrue(facingBet.isLegal(Action.RAISE));
+        assertEquals(80, facingBet.getMinRaise());
+        assertEquals(100, facingBet.getMaxRaise());
+        assertEquals(Decision.raiseTo(100), facingBet.raiseTo(500), "A raise should be capped at the stack");
+        assertEquals(Decision.raiseTo(80), facingBet.raiseTo(50), "A raise should be at least the minimum");
+
+        GameContext shortStack = new GameContext.Builder()
+            .currentBet(40)
+            .playerMoney(30)
+            .build();
+        assertEquals(LegalActions.bit(Action.FOLD) | LegalActions.bit(Action.CALL), shortStack.getLegalActions(),
+            "A short stack can call all-in for less");
+        assertEquals(Decision.CALL, shortStack.raiseTo(80), "A raise falls back to calling all-in");
+        assertEquals(30, LegalActions.callAmount(40, 0, 30));
+
+        GameContext bigBlindOption = new GameContext.Builder()
+            .currentBet(40)
+            .committed(40)
+            .playerMoney(960)
+            .build();
+        assertTrue(bigBlindOption.isLegal(Action.CHECK), "The big blind can check a limped pot");
+        assertFalse(bigBlindOption.isLegal(Action.CALL), "There is nothing to call");
+        assertEquals(Decision.CHECK, bigBlindOption.call());
+
+        GameContext unopened = new GameContext.Builder()
+            .playerMoney(100)
+            .build();
+        assertEquals(Decision.CHECK, unopened.call(), "With no bet a call falls back to a check");
+    }
+
+    @Test
+    public void testBigBlindChecksLimpedPot() {
+        // Everyone limps; the big blind's default is to check its option
+        int bigBlind = (game.getDealerIndex() + 2) % NUM_PLAYERS;
+        for (int i = 0; i < NUM_PLAYERS; i++) {
+            if (i != bigBlind) {
+                ((TestStrategy) players[i].getStrategy()).setForcedAction(Action.CALL);
+            }
+        }
+        while (game.getGameState() == GameState.START) {
+            game.processNextAction();
+        }
+        assertEquals(GameState.FLOP, game.getGameState());
+        assertFalse(players[bigBlind].isFolded(), "The big blind's check should not be turned into a fold");
+        assertEquals("CHECK", players[bigBlind].getLastAction());
+        assertEquals(NUM_PLAYERS * 2 * INITIAL_SMALL_BLIND, game.getPot());
+    }
+
+    @Test
+    public void testShortStackCallsAllIn() {
+        // The first to act has less than the big blind left
+        int first = game.getCurrentPlayer();
+        players[first].setMoney(15);
+        ((TestStrategy) players[first].getStrategy()).setForcedAction(Action.CALL);
+        int pot = game.getPot();
+        game.processNextAction();
+        assertFalse(players[first].isFolded(), "A short stack should call all-in, not fold");
+        assertEquals(0, players[first].getMoney());
+        assertEquals(pot + 15, game.getPot());
+    }
+
+    @Test
+    public void testDecisionsArePackedValues() {
+        long raise = Decision.raiseTo(250);
+        assertEquals(Action.RAISE, Decision.action(raise));
+        assertEquals(250, Decision.amount(raise));
+        assertEquals(Action.CALL, Decision.action(Decision.of(Action.CALL)));
+        assertEquals(0, Decision.amount(Decision.CALL));
+        assertNull(Decision.action(Decision.NONE));
+        assertEquals(0, Decision.amount(Decision.raiseTo(-5)), "A negative raise should be taken as 0");
+        assertThrows(IllegalArgumentException.class, () -> Decision.of(Action.RAISE));
+
+        // A second raise leaves the first one as it was
+        Decision.raiseTo(999);
+        assertEquals(250, Decision.amount(raise));
+    }
+
+    @Test
+    public void testContextViewsTheLiveTable() {
+        List<GameContext> seen = new ArrayList<>();
+        List<Integer> seatCounts = new ArrayList<>();
+        PlayerStrategy watcher = context -> {
+            seen.add(context);
+            seatCounts.add(context.getSeatCount());
+            assertEquals(GameState.START, context.getStreet());
+            assertEquals(context.getPlayerMoney(), context.getStack(context.getSeat()));
+            return context.call();
+        };
+        Player[] table = new Player[12];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = new Player("Player " + i, i == 3 ? watcher : new TestStrategy());
+        }
+        PokerGame bigTable = new PokerGame(table, true);
+        bigTable.startNewHand();
+
+        int iterations = 0;
+        while (seen.isEmpty() && iterations++ < 20) {
+            bigTable.processNextAction();
+        }
+        assertEquals(1, seen.size(), "Seat 3 should have been asked once");
+        GameContext context = seen.get(0);
+        assertEquals(3, context.getSeat());
+        assertEquals(12, (int) seatCounts.get(0));
+        assertEquals(bigTable.getBigBlind(), context.getCommitted(), "Seat 3 called the big blind");
+        assertEquals(bigTable.getBigBlind(), context.getCommitted(2), "The view should read other seats live");
+
+        // A new hand asks the same player through the same context
+        bigTable.startNewHand();
+        while (seen.size() < 2 && iterations++ < 40) {
+            bigTable.processNextAction();
+        }
+        assertSame(context, seen.get(1), "The context should be reused, not rebuilt");
+
+        assertEquals(11, new GameContext.Builder().position(11).build().getPosition(),
+            "Positions past a 6-max table should be allowed");
+    }
+
+    @Test
+    public void testContextScoresTheHand() {
+        // Pocket aces on an ace-high flop: three of a kind
+        long hole = CardSet.of(Arrays.asList(new Card(14, 0), new Card(14, 1)));
+        long flop = CardSet.of(Arrays.asList(new Card(14, 2), new Card(9, 3), new Card(4, 0)));
+        GameContext built = new GameContext.Builder().holeCards(hole).communityCards(flop).build();
+        assertEquals(HandEvaluator.evaluate(CardSet.union(hole, flop)), built.getHandScore());
+        assertEquals(3, built.getHandRanking(), "Three of a kind");
+
+        // A live table scores every decision on the board as dealt so far
+        int[] checked = new int[GameState.values().length];
+        PlayerStrategy scorer = context -> {
+            assertEquals(HandEvaluator.evaluate(CardSet.union(context.getHoleCardSet(), context.getCommunityCardSet())),
+                context.getHandScore(), "Seat " + context.getSeat() + " on " + context.getStreet());
+            checked[context.getStreet().ordinal()]++;
+            return context.call();
+        };
+        Player[] table = new Player[4];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = new Player("Player " + i, scorer);
+        }
+        PokerGame game = new PokerGame(table, true);
+        for (int hand = 0; hand < 5; hand++) {
+            game.startNewHand();
+            int iterations = 0;
+            while (game.getGameState() != GameState.FINISH && iterations++ < 200) {
+                game.processNextAction();
+            }
+        }
+        assertTrue(checked[GameState.START.ordinal()] > 0 && checked[GameState.RIVER.ordinal()] > 0,
+            "Decisions should have been scored from preflop to the river");
+    }
+
+    @Test
+    public void testShortBigBlindKeepsTheBet() {
+        TestStrategy caller = new TestStrategy();
+        caller.setForcedAction(Action.CALL);
+        Player[] table = new Player[3];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = new Player("Player " + i, i == 0 ? caller : new TestStrategy());
+        }
+        PokerGame shortBlind = new PokerGame(table, true);
+        List<Long> invalid = new ArrayList<>();
+        shortBlind.setListener(new GameEventListener() {
+            @Override
+            public void invalidAction(int seat, long decision) {
+                invalid.add(decision);
+            }
+        });
+        table[2].setMoney(5);
+        shortBlind.startNewHand();  // Seat 2 is all-in for less than the small blind
+
+        shortBlind.processNextAction();
+        assertTrue(invalid.isEmpty(), "Calling the small blind should be legal");
+        assertEquals(20, table[0].getCommitted(), "Seat 0 should have called the small blind, not the short big blind");
+    }
+}
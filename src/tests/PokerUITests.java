@@ -5,6 +5,7 @@ import processing.core.PApplet;
 import processing.core.PFont;
 import processing.core.PImage;
 import com.mackuntu.poker.Card.Card;
+import com.mackuntu.poker.Evaluator.Board;
 import com.mackuntu.poker.Player.Player;
 import com.mackuntu.poker.Player.TestStrategy;
 import com.mackuntu.poker.ui.PokerUI;
@@ -218,10 +219,10 @@ public class PokerUITests {
         ArrayList<String> analysis = new ArrayList<>();
         analysis.add("Player 1 raises to $100");
         Player[] players = new Player[]{testPlayer};
-        ArrayList<Card> communityCards = new ArrayList<>();
+        Board board = new Board();
         
         applet.clearTracking();
-        ui.drawHandAnalysis(analysis, 0, players, communityCards, applet.width, applet.height);
+        ui.drawHandAnalysis(analysis, 0, players, board, applet.width, applet.height);
         
         assertTrue(applet.anyTextContains("Player 1 raises to $100"), "Hand analysis should be displayed");
     }
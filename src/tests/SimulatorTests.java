@@ -0,0 +1,141 @@
+/**
+ * Test suite for the headless simulator.
+ * Tests that runs finish, keep every chip and repeat exactly for a seed.
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import java.util.concurrent.TimeUnit;
+
+import com.mackuntu.poker.Engine.SimulationResult;
+import com.mackuntu.poker.Engine.Simulator;
+
+public class SimulatorTests {
+    private static Simulator.Config config(long seed) {
+        return config(seed, 1);
+    }
+
+    private static Simulator.Config config(long seed, int threads) {
+        Simulator.Config.Builder builder = new Simulator.Config.Builder()
+            .tables(20)
+            .hands(300)
+            .startingStack(1000)
+            .seed(seed)
+            .threads(threads);
+        for (String strategy : new String[] {"basic", "aggressive", "random", "basic", "aggressive", "random"}) {
+            builder.seat(strategy, Simulator.strategy(strategy));
+        }
+        return builder.build();
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    public void testRunKeepsEveryChip() {
+        SimulationResult result = new Simulator(config(1)).run();
+
+        assertEquals(20, result.getTables());
+        assertTrue(result.getHands() > 0);
+        long total = 0;
+        for (int seat = 0; seat < result.getSeatCount(); seat++) {
+            total += result.getNetChips(seat);
+            assertTrue(result.getHandsDealt(seat) > 0);
+        }
+        assertEquals(0, total, "Chips won and lost should cancel out");
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    public void testSameSeedRepeats() {
+        SimulationResult first = new Simulator(config(5)).run();
+        SimulationResult second = new Simulator(config(5)).run();
+
+        assertEquals(first.getHands(), second.getHands());
+        for (int seat = 0; seat < first.getSeatCount(); seat++) {
+            assertEquals(first.getNetChips(seat), second.getNetChips(seat));
+            assertEquals(first.getHandsDealt(seat), second.getHandsDealt(seat));
+        }
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    public void testThreadCountDoesNotChangeResults() {
+        SimulationResult serial = new Simulator(config(9, 1)).run();
+        SimulationResult parallel = new Simulator(config(9, 4)).run();
+
+        assertEquals(serial.getTables(), parallel.getTables());
+        assertEquals(serial.getHands(), parallel.getHands());
+        for (int seat = 0; seat < serial.getSeatCount(); seat++) {
+            assertEquals(serial.getNetChips(seat), parallel.getNetChips(seat));
+            assertEquals(serial.getHandsDealt(seat), parallel.getHandsDealt(seat));
+            assertEquals(serial.getShowdowns(seat), parallel.getShowdowns(seat));
+            assertEquals(serial.getShowdownsWon(seat), parallel.getShowdownsWon(seat));
+        }
+        assertEquals(serial.report().lines().skip(1).toList(), parallel.report().lines().skip(1).toList());
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    public void testAllInEvKeepsEveryChip() {
+        Simulator.Config.Builder builder = new Simulator.Config.Builder()
+            .tables(20)
+            .hands(300)
+            .seed(3)
+            .threads(1)
+            .allInEv(true);
+        for (String strategy : new String[] {"aggressive", "aggressive", "random", "random"}) {
+            builder.seat(strategy, Simulator.strategy(strategy));
+        }
+        SimulationResult result = new Simulator(builder.build()).run();
+        SimulationResult plain = new Simulator(config(3)).run();
+
+        assertTrue(result.isAllInEv());
+        assertFalse(plain.isAllInEv());
+        double total = 0;
+        boolean adjusted = false;
+        for (int seat = 0; seat < result.getSeatCount(); seat++) {
+            total += result.getAllInEvChips(seat);
+            adjusted |= result.getAllInEvChips(seat) != result.getNetChips(seat);
+        }
+        assertTrue(adjusted, "Some all-in hands should have been credited at their equity");
+        assertEquals(0, total, 0.001 * result.getHands(), "Equity is shared out of the same chips");
+        assertTrue(result.report().contains("ev/hand"));
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    public void testBatchedTablesMatchPokerGame() {
+        for (String[] seats : new String[][] {
+                {"basic", "aggressive", "random", "basic", "aggressive", "random"},
+                {"aggressive", "random"}}) {
+            Simulator.Config.Builder objects = new Simulator.Config.Builder().tables(20).hands(300).seed(11).threads(1);
+            Simulator.Config.Builder batched = new Simulator.Config.Builder().tables(20).hands(300).seed(11).threads(3)
+                .batched(true);
+            for (String strategy : seats) {
+                objects.seat(strategy, Simulator.strategy(strategy));
+                batched.seat(strategy, Simulator.strategy(strategy));
+            }
+            SimulationResult expected = new Simulator(objects.build()).run();
+            SimulationResult actual = new Simulator(batched.build()).run();
+
+            assertEquals(expected.getTables(), actual.getTables());
+            assertEquals(expected.getHands(), actual.getHands());
+            for (int seat = 0; seat < seats.length; seat++) {
+                assertEquals(expected.getNetChips(seat), actual.getNetChips(seat), "Seat " + seat + " of " + seats.length);
+                assertEquals(expected.getHandsDealt(seat), actual.getHandsDealt(seat));
+                assertEquals(expected.getShowdowns(seat), actual.getShowdowns(seat), "Showdowns of seat " + seat);
+            }
+        }
+    }
+
+    @Test
+    public void testConfigValidation() {
+        Simulator.Config.Builder builder = new Simulator.Config.Builder()
+            .seat("basic", Simulator.strategy("basic"));
+        assertThrows(IllegalStateException.class, builder::build);
+        assertThrows(IllegalArgumentException.class, () -> builder.tables(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.threads(0));
+        assertThrows(IllegalArgumentException.class, () -> Simulator.strategy("unknown"));
+        builder.seat("random", Simulator.strategy("random")).batched(true).allInEv(true);
+        assertThrows(IllegalStateException.class, builder::build, "All-in EV needs unbatched tables");
+    }
+}